@@ -0,0 +1,103 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates the square inputs used by the benchmarks, as row-major arrays of
+ * RGB values where black pixels are borders and white pixels are empty.
+ */
+public final class BenchmarkInputs {
+
+    /**
+     * RGB value of border pixels
+     */
+    static final int BLACK = 0xFF000000;
+    /**
+     * RGB value of empty pixels
+     */
+    static final int WHITE = 0xFFFFFFFF;
+
+    /**
+     * Seed shared by all generated inputs, so every run measures the same data
+     */
+    private static final long SEED = 42;
+
+    private BenchmarkInputs() {
+    }
+
+    /**
+     * The kinds of input available to the benchmarks.
+     */
+    public enum Kind {
+        /**
+         * Line art produced by {@link MandalaGenerator}
+         */
+        MANDALA,
+        /**
+         * A single region covering the whole matrix
+         */
+        EMPTY,
+        /**
+         * Half of the pixels are borders, chosen at random, leaving many small regions
+         */
+        NOISE,
+        /**
+         * Horizontal walls with gaps alternating between both ends, forming one
+         * region that snakes through every other row (worst case for span fills)
+         */
+        SERPENTINE
+    }
+
+    /**
+     * Generates an input of the given kind.
+     *
+     * @param kind the kind of input
+     * @param size the width and height of the input
+     * @return the pixels of the input, stored row by row
+     */
+    static int[] generate(Kind kind, int size) {
+        return switch (kind) {
+            case MANDALA -> mandala(size);
+            case EMPTY -> empty(size);
+            case NOISE -> noise(size);
+            case SERPENTINE -> serpentine(size);
+        };
+    }
+
+    private static int[] mandala(int size) {
+        BufferedImage image = new MandalaGenerator(SEED).generateMandala(size, size);
+        return image.getRGB(0, 0, size, size, null, 0, size);
+    }
+
+    private static int[] empty(int size) {
+        int[] pixels = new int[size * size];
+        Arrays.fill(pixels, WHITE);
+        return pixels;
+    }
+
+    private static int[] noise(int size) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        int[] pixels = new int[size * size];
+
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextBoolean() ? BLACK : WHITE;
+        }
+
+        return pixels;
+    }
+
+    private static int[] serpentine(int size) {
+        int[] pixels = empty(size);
+
+        for (int y = 1; y < size; y += 2) {
+            int row = y * size;
+            Arrays.fill(pixels, row, row + size, BLACK);
+            pixels[row + ((y / 2) % 2 == 0 ? size - 1 : 0)] = WHITE;
+        }
+
+        return pixels;
+    }
+
+}
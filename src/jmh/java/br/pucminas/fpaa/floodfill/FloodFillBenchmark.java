@@ -0,0 +1,127 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link FloodFill#execute()} on generated inputs with every
+ * {@link FillStrategy}, with and without a tolerance. Besides operations
+ * per second, the {@code pixels} secondary result reports how many matrix
+ * cells are processed per second.
+ * <p>
+ * The forks resolve {@code jdk.incubator.vector}, so the seed scans and
+ * tolerance snaps run vectorised; {@code -jvmArgsAppend -Xmx8g} replaces
+ * the fork arguments to measure the scalar fallback instead.
+ * <p>
+ * Run with the GC profiler to also get the allocation rate:
+ * {@code java -jar target/floodfill-1.0-SNAPSHOT-benchmarks.jar FloodFillBenchmark -prof gc}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx8g", "--add-modules", "jdk.incubator.vector" })
+public class FloodFillBenchmark {
+
+    @Param({ "MANDALA", "EMPTY", "NOISE", "SERPENTINE" })
+    private BenchmarkInputs.Kind input;
+
+    @Param({ "512", "4096", "16384" })
+    private int size;
+
+    @Param({ "SCANLINE", "STACK", "PARALLEL", "TWO_PASS", "PACKED" })
+    private FillStrategy strategy;
+
+    @Param({ "0", "8" })
+    private int tolerance;
+
+    /**
+     * The unmodified input, copied into {@link #matrix} before every fill
+     */
+    private int[] source;
+    /**
+     * The matrix being filled
+     */
+    private int[] matrix;
+    /**
+     * The filler, kept across invocations so its scratch state stays warm
+     */
+    private BenchmarkFloodFill floodFill;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = BenchmarkInputs.generate(input, size);
+        matrix = source.clone();
+        floodFill = new BenchmarkFloodFill(matrix, size);
+        floodFill.setStrategy(strategy);
+        floodFill.setTolerance(tolerance);
+    }
+
+    @Setup(Level.Invocation)
+    public void restoreMatrix() {
+        System.arraycopy(source, 0, matrix, 0, source.length);
+    }
+
+    @Benchmark
+    public int execute(PixelCounter counter) {
+        floodFill.execute();
+        counter.pixels += matrix.length;
+        return floodFill.nextValue;
+    }
+
+    /**
+     * Counts the matrix cells processed, reported by JMH as cells per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class PixelCounter {
+
+        public long pixels;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            pixels = 0;
+        }
+    }
+
+    /**
+     * Fills regions with increasing values and ignores change notifications,
+     * so only the fill itself is measured.
+     */
+    private static final class BenchmarkFloodFill extends FloodFill {
+
+        private int nextValue = 1;
+
+        BenchmarkFloodFill(int[] matrix, int size) {
+            super(matrix, size, size, BenchmarkInputs.BLACK, BenchmarkInputs.WHITE);
+        }
+
+        @Override
+        public void onValueChange(int x, int y, int newValue) {
+        }
+
+        @Override
+        public void onSpanFilled(int y, int xStart, int xEndExclusive, int newValue) {
+        }
+
+        @Override
+        public int generateValue() {
+            return nextValue++;
+        }
+    }
+
+}
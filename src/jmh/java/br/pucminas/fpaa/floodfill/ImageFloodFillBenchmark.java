@@ -0,0 +1,77 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures creating an {@link ImageFloodFill} and executing it on generated
+ * images, both for an image type filled in place ({@code TYPE_INT_RGB}) and
+ * for one that goes through a copy ({@code TYPE_3BYTE_BGR}). The
+ * {@code pixels} secondary result reports pixels processed per second.
+ * <p>
+ * The forks resolve {@code jdk.incubator.vector}, so the seed scans and
+ * tolerance snaps run vectorised; {@code -jvmArgsAppend -Xmx8g} replaces
+ * the fork arguments to measure the scalar fallback instead.
+ * <p>
+ * Run with the GC profiler to also get the allocation rate:
+ * {@code java -jar target/floodfill-1.0-SNAPSHOT-benchmarks.jar ImageFloodFillBenchmark -prof gc}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx8g", "--add-modules", "jdk.incubator.vector" })
+public class ImageFloodFillBenchmark {
+
+    @Param({ "MANDALA", "EMPTY", "NOISE", "SERPENTINE" })
+    private BenchmarkInputs.Kind input;
+
+    @Param({ "512", "4096", "16384" })
+    private int size;
+
+    @Param({ "INT_RGB", "3BYTE_BGR" })
+    private String imageType;
+
+    /**
+     * The unmodified input, written back into {@link #image} before every fill
+     */
+    private int[] source;
+    /**
+     * The image being filled
+     */
+    private BufferedImage image;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = BenchmarkInputs.generate(input, size);
+        image = new BufferedImage(size, size,
+                imageType.equals("INT_RGB") ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_3BYTE_BGR);
+    }
+
+    @Setup(Level.Invocation)
+    public void restoreImage() {
+        image.setRGB(0, 0, size, size, source, 0, size);
+    }
+
+    @Benchmark
+    public BufferedImage execute(FloodFillBenchmark.PixelCounter counter) {
+        new ImageFloodFill(image).execute();
+        counter.pixels += (long) size * size;
+        return image;
+    }
+
+}
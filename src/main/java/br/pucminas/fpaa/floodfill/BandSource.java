@@ -0,0 +1,73 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Source of the cells of a matrix too large to be held in memory, read in
+ * horizontal bands of whole rows by {@link StreamingFloodFill}. A source may
+ * be read more than once, always from top to bottom. {@link PixelSource}
+ * extends it with writes, for matrices that are filled in place.
+ * <p>
+ * A source that holds a file open releases it when closed.
+ */
+public interface BandSource extends Closeable {
+
+    /**
+     * Returns the number of columns of the matrix.
+     *
+     * @return the width of the matrix
+     */
+    int getWidth();
+
+    /**
+     * Returns the number of rows of the matrix.
+     *
+     * @return the height of the matrix
+     */
+    int getHeight();
+
+    /**
+     * Reads a band of consecutive rows into the given buffer, where cell
+     * (x, y + r) is stored at index {@code r * width + x}.
+     *
+     * @param y      the first row of the band
+     * @param rows   the number of rows of the band
+     * @param buffer the array receiving the cells, with at least rows * width elements
+     * @throws IOException if the rows cannot be read
+     */
+    void readRows(int y, int rows, int[] buffer) throws IOException;
+
+    /**
+     * Releases the file the source holds open, if any. Sources over memory
+     * hold nothing, and do nothing.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * Returns a source reading a file of raw cells: one big-endian
+     * {@code int} per cell, stored row by row with no header, which is also
+     * the format {@link StreamingFloodFill} writes. The file is opened on
+     * the first read and stays open, with one buffer for the bands, until the
+     * source is closed.
+     *
+     * @param file   the file holding the cells
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @return the band source of the file
+     * @throws IllegalArgumentException if the dimensions are not positive
+     */
+    static BandSource ofRawFile(Path file, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Matrix dimensions must be positive");
+        }
+
+        return new PixelSources.RawFileSource(file, width, height);
+    }
+
+}
@@ -0,0 +1,431 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Headless batch mode that fills every image of a directory with
+ * {@link ImageFloodFill} and writes the results as PNG files to another
+ * directory.
+ * <p>
+ * Images go through three pipeline stages connected by bounded queues:
+ * decoding and encoding are I/O bound and run on virtual threads, one per
+ * image, while fills are CPU bound and run on a fixed pool with one thread
+ * per processor by default. A full queue blocks the stage feeding it, and the
+ * number of images decoded but not yet written is capped, so memory stays
+ * bounded however many images there are. Images that cannot be read, filled
+ * or written are counted as failures without stopping the run.
+ */
+public final class BatchFill {
+
+    /**
+     * Default capacity of each queue between two stages
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    /**
+     * Usage of the command line arguments, printed when they are invalid
+     */
+    static final String USAGE = "Usage: batch <input directory> <output directory> [--strategy "
+            + Arrays.toString(FillStrategy.values()) + "] [--threads N] [--queue N] [--tolerance 0-255]";
+
+    /**
+     * File suffixes of the images read from the input directory
+     */
+    private static final Set<String> IMAGE_SUFFIXES = Set.of("png", "jpg", "jpeg", "bmp", "gif");
+
+    /**
+     * Marks the end of the images handed to a stage
+     */
+    private static final Job END = new Job(null, 0);
+
+    /**
+     * The directory holding the images to fill
+     */
+    private final Path inputDirectory;
+    /**
+     * The directory receiving the filled images
+     */
+    private final Path outputDirectory;
+    /**
+     * The strategy used to fill each image
+     */
+    private FillStrategy strategy = FillStrategy.SCANLINE;
+    /**
+     * The number of threads filling images
+     */
+    private int fillThreads = Runtime.getRuntime().availableProcessors();
+    /**
+     * The capacity of each queue between two stages
+     */
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    /**
+     * The colour tolerance of the fills
+     */
+    private int tolerance;
+
+    /**
+     * Creates a batch fill of the images of a directory.
+     *
+     * @param inputDirectory  the directory holding the images to fill
+     * @param outputDirectory the directory receiving the filled images, created if needed
+     */
+    public BatchFill(Path inputDirectory, Path outputDirectory) {
+        this.inputDirectory = Objects.requireNonNull(inputDirectory, "inputDirectory");
+        this.outputDirectory = Objects.requireNonNull(outputDirectory, "outputDirectory");
+    }
+
+    /**
+     * Runs the batch mode from the command line and prints its report.
+     *
+     * @param args the input and output directories followed by the options
+     * @throws IOException          if the directories cannot be listed or created
+     * @throws InterruptedException if the run is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        BatchFill batch;
+
+        try {
+            batch = fromArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        BatchReport report = batch.run();
+        System.out.println(report);
+
+        if (report.getFailureCount() > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates a batch fill from command line arguments: the input and output
+     * directories, optionally followed by {@code --strategy}, {@code --threads},
+     * {@code --queue} and {@code --tolerance} with their values.
+     *
+     * @param args the command line arguments
+     * @return the configured batch fill
+     * @throws IllegalArgumentException if the arguments are invalid
+     */
+    static BatchFill fromArguments(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Input and output directories are required");
+        }
+
+        BatchFill batch = new BatchFill(Path.of(args[0]), Path.of(args[1]));
+
+        for (int k = 2; k < args.length; k += 2) {
+            if (k + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[k]);
+            }
+
+            String value = args[k + 1];
+
+            switch (args[k]) {
+                case "--strategy" -> batch.setStrategy(FillStrategy.valueOf(value.toUpperCase(Locale.ROOT)));
+                case "--threads" -> batch.setFillThreads(Integer.parseInt(value));
+                case "--queue" -> batch.setQueueCapacity(Integer.parseInt(value));
+                case "--tolerance" -> batch.setTolerance(Integer.parseInt(value));
+                default -> throw new IllegalArgumentException("Unknown option " + args[k]);
+            }
+        }
+
+        return batch;
+    }
+
+    /**
+     * Sets the strategy used to fill each image.
+     *
+     * @param strategy the fill strategy
+     * @throws NullPointerException if strategy is null
+     */
+    public void setStrategy(FillStrategy strategy) {
+        this.strategy = Objects.requireNonNull(strategy, "strategy");
+    }
+
+    /**
+     * Sets the number of threads filling images, one per processor by default.
+     *
+     * @param fillThreads the size of the fill pool
+     * @throws IllegalArgumentException if fillThreads is not positive
+     */
+    public void setFillThreads(int fillThreads) {
+        if (fillThreads <= 0) {
+            throw new IllegalArgumentException("Fill threads must be positive");
+        }
+
+        this.fillThreads = fillThreads;
+    }
+
+    /**
+     * Sets the capacity of each queue between two stages.
+     *
+     * @param queueCapacity the queue capacity
+     * @throws IllegalArgumentException if queueCapacity is not positive
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Sets the colour tolerance of the fills.
+     *
+     * @param tolerance the tolerance, from 0 to 255
+     * @throws IllegalArgumentException if tolerance is outside [0, 255]
+     * @see FloodFill#setTolerance(int)
+     */
+    public void setTolerance(int tolerance) {
+        if (tolerance < 0 || tolerance > 255) {
+            throw new IllegalArgumentException("Tolerance must be between 0 and 255");
+        }
+
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Fills every image of the input directory and writes each one to the
+     * output directory as a PNG file with the same base name.
+     *
+     * @return the throughput and latency of the run
+     * @throws IOException          if the directories cannot be listed or created
+     * @throws InterruptedException if the run is interrupted
+     */
+    public BatchReport run() throws IOException, InterruptedException {
+        List<Path> inputs;
+
+        try (Stream<Path> files = Files.list(inputDirectory)) {
+            inputs = files.filter(file -> Files.isRegularFile(file) && IMAGE_SUFFIXES.contains(suffix(file)))
+                    .sorted()
+                    .toList();
+        }
+
+        Files.createDirectories(outputDirectory);
+
+        BlockingQueue<Job> decoded = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Job> filled = new ArrayBlockingQueue<>(queueCapacity);
+        // Images that are decoded but not written yet: those in both queues and in every stage
+        Semaphore inFlight = new Semaphore(2 * queueCapacity + fillThreads);
+
+        AtomicInteger failures = new AtomicInteger();
+        AtomicLong pixels = new AtomicLong();
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        long start = System.nanoTime();
+
+        ExecutorService decoders = Executors.newVirtualThreadPerTaskExecutor();
+        ExecutorService fillers = Executors.newFixedThreadPool(fillThreads);
+        ExecutorService encoders = Executors.newVirtualThreadPerTaskExecutor();
+
+        try {
+            for (int t = 0; t < fillThreads; t++) {
+                fillers.execute(() -> fillStage(decoded, filled, inFlight, failures));
+            }
+
+            // One virtual thread per image to encode, started as images come out of the fill stage
+            Thread dispatcher = Thread.ofVirtual().start(() -> {
+                try {
+                    for (int ended = 0; ended < fillThreads; ) {
+                        Job job = filled.take();
+
+                        if (job == END) {
+                            ended++;
+                        } else {
+                            encoders.execute(() -> encode(job, inFlight, failures, pixels, latencies));
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            for (Path input : inputs) {
+                inFlight.acquire();
+                decoders.execute(() -> decode(new Job(input, System.nanoTime()), decoded, inFlight, failures));
+            }
+
+            decoders.close();
+
+            for (int t = 0; t < fillThreads; t++) {
+                decoded.put(END);
+            }
+
+            fillers.shutdown();
+            fillers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            dispatcher.join();
+            encoders.close();
+        } finally {
+            decoders.shutdownNow();
+            fillers.shutdownNow();
+            encoders.shutdownNow();
+        }
+
+        long[] latencyArray = latencies.stream().mapToLong(Long::longValue).toArray();
+        return new BatchReport(failures.get(), pixels.get(), System.nanoTime() - start, latencyArray);
+    }
+
+    /**
+     * Decoding stage: reads an image, converts it to a layout that is filled
+     * in place and hands it to the fill stage.
+     */
+    private static void decode(Job job, BlockingQueue<Job> decoded, Semaphore inFlight, AtomicInteger failures) {
+        try {
+            BufferedImage image = ImageIO.read(job.source.toFile());
+
+            if (image == null) {
+                throw new IOException("No reader for " + job.source);
+            }
+
+            job.image = toIntRaster(image);
+            decoded.put(job);
+        } catch (IOException | RuntimeException e) {
+            fail(job, e, inFlight, failures);
+        } catch (InterruptedException e) {
+            inFlight.release();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Fill stage, run by each thread of the fill pool until it takes the end
+     * marker, which it then passes on to the encoding stage.
+     */
+    private void fillStage(BlockingQueue<Job> decoded, BlockingQueue<Job> filled, Semaphore inFlight,
+                           AtomicInteger failures) {
+        // One filler per thread, pointed at each image in turn, so its scratch state is reused
+        ImageFloodFill floodFill = new ImageFloodFill();
+        floodFill.setStrategy(strategy);
+        floodFill.setTolerance(tolerance);
+
+        try {
+            for (Job job = decoded.take(); job != END; job = decoded.take()) {
+                try {
+                    floodFill.reset(job.image);
+                    floodFill.execute();
+                } catch (RuntimeException e) {
+                    fail(job, e, inFlight, failures);
+                    continue;
+                }
+
+                filled.put(job);
+            }
+
+            filled.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Encoding stage: writes a filled image and records its latency.
+     */
+    private void encode(Job job, Semaphore inFlight, AtomicInteger failures, AtomicLong pixels,
+                        ConcurrentLinkedQueue<Long> latencies) {
+        String name = job.source.getFileName().toString();
+        Path output = outputDirectory.resolve(name.substring(0, name.lastIndexOf('.')) + ".png");
+
+        try {
+            if (!ImageIO.write(job.image, "png", output.toFile())) {
+                throw new IOException("No PNG writer");
+            }
+
+            pixels.addAndGet((long) job.image.getWidth() * job.image.getHeight());
+            latencies.add(System.nanoTime() - job.startNanos);
+            inFlight.release();
+        } catch (IOException | RuntimeException e) {
+            fail(job, e, inFlight, failures);
+        }
+    }
+
+    /**
+     * Records an image that could not be processed and frees its place in the pipeline.
+     */
+    private static void fail(Job job, Exception e, Semaphore inFlight, AtomicInteger failures) {
+        System.err.println("Failed to process " + job.source + ": " + e);
+        failures.incrementAndGet();
+        inFlight.release();
+    }
+
+    /**
+     * Returns the image itself if its pixels are stored one {@code int} each,
+     * which {@link ImageFloodFill} fills in place, or a copy that does.
+     *
+     * @param image the decoded image
+     * @return an image of type {@link BufferedImage#TYPE_INT_RGB} or {@link BufferedImage#TYPE_INT_ARGB}
+     */
+    static BufferedImage toIntRaster(BufferedImage image) {
+        int type = image.getType();
+
+        if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB) {
+            return image;
+        }
+
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(),
+                image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = copy.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+
+        return copy;
+    }
+
+    /**
+     * Returns the lower-case suffix of a file name, after its last dot.
+     */
+    private static String suffix(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * An image travelling through the pipeline.
+     */
+    private static final class Job {
+
+        /**
+         * The file the image was read from
+         */
+        final Path source;
+        /**
+         * {@link System#nanoTime()} when decoding started
+         */
+        final long startNanos;
+        /**
+         * The decoded image, filled in place by the fill stage
+         */
+        BufferedImage image;
+
+        Job(Path source, long startNanos) {
+            this.source = source;
+            this.startNanos = startNanos;
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Throughput and latency of one {@link BatchFill} run. Latency is measured
+ * per image, from the moment its decoding starts until its output file is
+ * written, so it includes the time spent waiting in the pipeline's queues.
+ */
+public final class BatchReport {
+
+    /**
+     * The number of images filled and written
+     */
+    private final int imageCount;
+    /**
+     * The number of images that could not be read, filled or written
+     */
+    private final int failureCount;
+    /**
+     * The number of pixels of the images filled
+     */
+    private final long pixelCount;
+    /**
+     * Nanoseconds from the start to the end of the run
+     */
+    private final long elapsedNanos;
+    /**
+     * The latency of every image filled, in nanoseconds, in ascending order
+     */
+    private final long[] latencies;
+
+    /**
+     * Creates the report of a run.
+     *
+     * @param failureCount the number of images that failed
+     * @param pixelCount   the number of pixels of the images filled
+     * @param elapsedNanos nanoseconds from the start to the end of the run
+     * @param latencies    the latency of every image filled, in nanoseconds, which the report takes ownership of
+     */
+    BatchReport(int failureCount, long pixelCount, long elapsedNanos, long[] latencies) {
+        Arrays.sort(latencies);
+        this.imageCount = latencies.length;
+        this.failureCount = failureCount;
+        this.pixelCount = pixelCount;
+        this.elapsedNanos = elapsedNanos;
+        this.latencies = latencies;
+    }
+
+    /**
+     * Returns the number of images filled and written.
+     *
+     * @return the image count
+     */
+    public int getImageCount() {
+        return imageCount;
+    }
+
+    /**
+     * Returns the number of images that could not be read, filled or written.
+     *
+     * @return the failure count
+     */
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Returns the number of pixels of the images filled.
+     *
+     * @return the pixel count
+     */
+    public long getPixelCount() {
+        return pixelCount;
+    }
+
+    /**
+     * Returns the wall-clock duration of the run.
+     *
+     * @return nanoseconds from the start to the end of the run
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the number of images filled per second of the run.
+     *
+     * @return the image throughput
+     */
+    public double getImagesPerSecond() {
+        return elapsedNanos == 0 ? 0 : imageCount * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Returns the number of megapixels filled per second of the run.
+     *
+     * @return the pixel throughput
+     */
+    public double getMegapixelsPerSecond() {
+        return elapsedNanos == 0 ? 0 : pixelCount * 1e3 / elapsedNanos;
+    }
+
+    /**
+     * Returns the latency below which the given fraction of the images were processed.
+     *
+     * @param fraction the fraction of images, between 0 and 1 (0.5 for the median)
+     * @return the latency in nanoseconds, or 0 if no image was filled
+     * @throws IllegalArgumentException if fraction is outside [0, 1]
+     */
+    public long getLatencyPercentile(double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("Fraction must be between 0 and 1");
+        }
+
+        if (imageCount == 0) {
+            return 0;
+        }
+
+        // Nearest-rank percentile
+        int rank = (int) Math.ceil(fraction * imageCount);
+        return latencies[Math.max(rank, 1) - 1];
+    }
+
+    /**
+     * Formats the report as a few lines of text for the command line.
+     *
+     * @return the formatted report
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "%d images (%d failed), %.1f MP in %.2f s%n"
+                        + "Throughput: %.1f images/s, %.1f MP/s%n"
+                        + "Latency per image: p50 %.1f ms, p99 %.1f ms",
+                imageCount, failureCount, pixelCount / 1e6, elapsedNanos / 1e9,
+                getImagesPerSecond(), getMegapixelsPerSecond(),
+                getLatencyPercentile(0.5) / 1e6, getLatencyPercentile(0.99) / 1e6);
+    }
+
+}
@@ -0,0 +1,78 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.util.Arrays;
+
+/**
+ * Growable set of cell indices packed into a {@code long[]}, one bit per
+ * cell. The backing array is kept by {@link #reset(int)}, so a mask can be
+ * reused across executions without allocating.
+ */
+final class BitMask {
+
+    /**
+     * The bits of the mask, 64 cells per word
+     */
+    private long[] words = new long[0];
+
+    /**
+     * Clears the mask and makes sure it can hold the given number of cells.
+     *
+     * @param size the number of cells the mask must hold
+     */
+    void reset(int size) {
+        int wordCount = (size + 63) >>> 6;
+
+        if (words.length < wordCount) {
+            words = new long[wordCount];
+        } else {
+            Arrays.fill(words, 0, wordCount, 0L);
+        }
+    }
+
+    /**
+     * Checks if the given cell is in the mask.
+     *
+     * @param index the index of the cell
+     * @return true if the cell's bit is set, false otherwise
+     */
+    boolean get(int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Adds the given cell to the mask.
+     *
+     * @param index the index of the cell
+     */
+    void set(int index) {
+        words[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Adds the cells from {@code from} (inclusive) to {@code to} (exclusive)
+     * to the mask, a whole word at a time where possible.
+     *
+     * @param from the index of the first cell
+     * @param to   the index after the last cell
+     */
+    void set(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+
+        if (firstWord == lastWord) {
+            words[firstWord] |= firstMask & lastMask;
+            return;
+        }
+
+        words[firstWord] |= firstMask;
+        Arrays.fill(words, firstWord + 1, lastWord, -1L);
+        words[lastWord] |= lastMask;
+    }
+
+}
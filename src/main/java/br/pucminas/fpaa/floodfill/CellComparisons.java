@@ -0,0 +1,130 @@
+package br.pucminas.fpaa.floodfill;
+
+/**
+ * Comparisons of whole runs of cells used by {@link FloodFill}: the search
+ * for the next empty cell while scanning for seeds, and the colour
+ * comparisons of the tolerance mode. Two ARGB values are within a tolerance
+ * of each other if none of their four 8-bit channels differs by more than
+ * the tolerance.
+ * <p>
+ * Runs are compared with the incubating Vector API when the
+ * {@code jdk.incubator.vector} module is available (see
+ * {@link VectorComparisons}), and with a scalar loop otherwise, so the module
+ * is never required at run time.
+ */
+final class CellComparisons {
+
+    /**
+     * True if rows are compared with the Vector API
+     */
+    private static final boolean VECTORIZED = loadVectorSupport();
+
+    private CellComparisons() {
+    }
+
+    /**
+     * Checks if the Vector API can be used, which requires the
+     * {@code jdk.incubator.vector} module to be resolved at startup (for
+     * example with {@code --add-modules jdk.incubator.vector}).
+     *
+     * @return true if {@link VectorComparisons} loaded, false otherwise
+     */
+    private static boolean loadVectorSupport() {
+        try {
+            return VectorComparisons.isSupported();
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks if row comparisons are vectorised.
+     *
+     * @return true if the Vector API is in use, false if the scalar fallback is
+     */
+    static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * Finds the first cell from {@code from} (inclusive) to {@code to}
+     * (exclusive) holding the given value.
+     *
+     * @param cells the array holding the values
+     * @param from  the index of the first cell
+     * @param to    the index after the last cell
+     * @param value the value to look for
+     * @return the index of the first cell holding the value, or {@code to} if there is none
+     */
+    static int indexOf(int[] cells, int from, int to, int value) {
+        if (VECTORIZED) {
+            return VectorComparisons.indexOf(cells, from, to, value);
+        }
+
+        return indexOfScalar(cells, from, to, value);
+    }
+
+    /**
+     * Scalar implementation of {@link #indexOf(int[], int, int, int)}.
+     */
+    static int indexOfScalar(int[] cells, int from, int to, int value) {
+        int i = from;
+
+        while (i < to && cells[i] != value) {
+            i++;
+        }
+
+        return i;
+    }
+
+    /**
+     * Checks if two ARGB values are within the given tolerance of each other.
+     *
+     * @param value     the first value
+     * @param reference the second value
+     * @param tolerance the largest difference allowed in each channel
+     * @return true if no channel differs by more than the tolerance
+     */
+    static boolean within(int value, int reference, int tolerance) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            if (Math.abs((value >>> shift & 0xFF) - (reference >>> shift & 0xFF)) > tolerance) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Replaces every value from {@code from} (inclusive) to {@code to}
+     * (exclusive) that is within the tolerance of the reference with the
+     * reference itself, except the kept value, such as the border value,
+     * which is never replaced.
+     *
+     * @param cells     the array holding the values
+     * @param from      the index of the first value
+     * @param to        the index after the last value
+     * @param reference the value to compare with and to write
+     * @param tolerance the largest difference allowed in each channel
+     * @param kept      the value left as it is even within the tolerance
+     */
+    static void snap(int[] cells, int from, int to, int reference, int tolerance, int kept) {
+        if (VECTORIZED) {
+            VectorComparisons.snap(cells, from, to, reference, tolerance, kept);
+        } else {
+            snapScalar(cells, from, to, reference, tolerance, kept);
+        }
+    }
+
+    /**
+     * Scalar implementation of {@link #snap(int[], int, int, int, int, int)}.
+     */
+    static void snapScalar(int[] cells, int from, int to, int reference, int tolerance, int kept) {
+        for (int i = from; i < to; i++) {
+            if (cells[i] != kept && within(cells[i], reference, tolerance)) {
+                cells[i] = reference;
+            }
+        }
+    }
+
+}
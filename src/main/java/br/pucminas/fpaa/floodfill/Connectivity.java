@@ -0,0 +1,152 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The neighborhood that connects cells into regions: the set of offsets
+ * {@code (dx, dy)} from a cell to the cells it is adjacent to. The fill
+ * engines turn these offsets into flat index offsets once per matrix, so
+ * that the neighbors of a cell far enough from the edges are reached with
+ * additions alone and no bounds checks.
+ * <p>
+ * A neighborhood must be symmetric (if {@code (dx, dy)} is a neighbor, so is
+ * {@code (-dx, -dy)}), so that connectivity does not depend on which cell of
+ * a region a traversal starts from.
+ *
+ * @see FloodFill#setConnectivity(Connectivity)
+ */
+public final class Connectivity {
+
+    /**
+     * The four orthogonal neighbors: right, left, down and up
+     */
+    public static final Connectivity FOUR = new Connectivity(new int[] { 1, -1, 0, 0 }, new int[] { 0, 0, 1, -1 });
+
+    /**
+     * The four orthogonal neighbors plus the four diagonal ones
+     */
+    public static final Connectivity EIGHT = new Connectivity(new int[] { 1, -1, 0, 0, 1, -1, 1, -1 },
+            new int[] { 0, 0, 1, -1, 1, -1, -1, 1 });
+
+    /**
+     * The column offset of each neighbor
+     */
+    final int[] dx;
+    /**
+     * The row offset of each neighbor
+     */
+    final int[] dy;
+    /**
+     * The largest column or row offset, the distance from the edges beyond
+     * which every neighbor of a cell is inside the matrix
+     */
+    final int radius;
+
+    /**
+     * Creates a neighborhood from its column and row offsets.
+     *
+     * @param dx the column offset of each neighbor
+     * @param dy the row offset of each neighbor
+     */
+    private Connectivity(int[] dx, int[] dy) {
+        this.dx = dx;
+        this.dy = dy;
+
+        int radius = 0;
+        for (int k = 0; k < dx.length; k++) {
+            radius = Math.max(radius, Math.max(Math.abs(dx[k]), Math.abs(dy[k])));
+        }
+
+        this.radius = radius;
+    }
+
+    /**
+     * Creates a custom neighborhood from pairs of column and row offsets, for
+     * example {@code of(2, 0, -2, 0, 0, 2, 0, -2)} for cells two steps apart.
+     *
+     * @param offsets the offsets of the neighbors, as consecutive {@code dx, dy} pairs
+     * @return the neighborhood
+     * @throws IllegalArgumentException if there are no pairs, a pair is incomplete,
+     *                                  repeated or {@code (0, 0)}, or the
+     *                                  neighborhood is not symmetric
+     */
+    public static Connectivity of(int... offsets) {
+        if (offsets.length == 0 || offsets.length % 2 != 0) {
+            throw new IllegalArgumentException("Offsets must be a non-empty list of dx, dy pairs");
+        }
+
+        int count = offsets.length / 2;
+        int[] dx = new int[count];
+        int[] dy = new int[count];
+        Set<Long> neighbors = new HashSet<>();
+
+        for (int k = 0; k < count; k++) {
+            dx[k] = offsets[2 * k];
+            dy[k] = offsets[2 * k + 1];
+
+            if (dx[k] == 0 && dy[k] == 0) {
+                throw new IllegalArgumentException("A cell cannot be its own neighbor");
+            }
+
+            if (!neighbors.add(LongWorklist.pack(dx[k], dy[k]))) {
+                throw new IllegalArgumentException("Neighbor (" + dx[k] + ", " + dy[k] + ") is repeated");
+            }
+        }
+
+        for (int k = 0; k < count; k++) {
+            if (!neighbors.contains(LongWorklist.pack(-dx[k], -dy[k]))) {
+                throw new IllegalArgumentException("Neighborhood must contain (" + -dx[k] + ", " + -dy[k] + ")");
+            }
+        }
+
+        return new Connectivity(dx, dy);
+    }
+
+    /**
+     * Returns the number of neighbors of a cell.
+     *
+     * @return the size of the neighborhood
+     */
+    public int getNeighborCount() {
+        return dx.length;
+    }
+
+    /**
+     * Checks if this is the orthogonal neighborhood, which every fill
+     * strategy supports natively, in whatever order its offsets were given.
+     *
+     * @return true if the neighbors are exactly the four orthogonal cells
+     */
+    boolean isFour() {
+        return this == FOUR || radius == 1 && dx.length == 4 && isOrthogonal();
+    }
+
+    private boolean isOrthogonal() {
+        for (int k = 0; k < dx.length; k++) {
+            if (Math.abs(dx[k]) + Math.abs(dy[k]) != 1) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Computes the flat index offset of each neighbor in an array of rows
+     * with the given stride.
+     *
+     * @param stride the distance between two vertically adjacent cells
+     * @return the index offset of each neighbor, in the order of the neighborhood
+     */
+    int[] offsets(int stride) {
+        int[] offsets = new int[dx.length];
+
+        for (int k = 0; k < dx.length; k++) {
+            offsets[k] = dy[k] * stride + dx[k];
+        }
+
+        return offsets;
+    }
+
+}
@@ -0,0 +1,82 @@
+package br.pucminas.fpaa.floodfill;
+
+/**
+ * {@link LongWorklist} that also counts pushes and pops and tracks its peak
+ * size. It is only instantiated while statistics are enabled, so as long as
+ * it is never loaded the plain worklist's calls stay monomorphic.
+ */
+final class CountingWorklist extends LongWorklist {
+
+    /**
+     * The number of entries pushed since the counters were reset
+     */
+    private long pushes;
+    /**
+     * The number of entries popped since the counters were reset
+     */
+    private long pops;
+    /**
+     * The largest size reached since the counters were reset
+     */
+    private int peakSize;
+
+    /**
+     * Creates an empty counting worklist that takes over the backing array of
+     * the worklist used so far.
+     *
+     * @param previous the worklist whose backing array is taken over
+     */
+    CountingWorklist(LongWorklist previous) {
+        super(previous);
+    }
+
+    @Override
+    void push(int x, int y) {
+        super.push(x, y);
+        pushes++;
+        peakSize = Math.max(peakSize, size());
+    }
+
+    @Override
+    long pop() {
+        pops++;
+        return super.pop();
+    }
+
+    /**
+     * Returns the number of entries pushed since the counters were reset.
+     *
+     * @return the push count
+     */
+    long pushes() {
+        return pushes;
+    }
+
+    /**
+     * Returns the number of entries popped since the counters were reset.
+     *
+     * @return the pop count
+     */
+    long pops() {
+        return pops;
+    }
+
+    /**
+     * Returns the largest size reached since the counters were reset.
+     *
+     * @return the peak size
+     */
+    int peakSize() {
+        return peakSize;
+    }
+
+    /**
+     * Resets the counters without touching the entries.
+     */
+    void resetCounters() {
+        pushes = 0;
+        pops = 0;
+        peakSize = size();
+    }
+
+}
@@ -7,21 +7,39 @@ import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.JButton;
+import javax.swing.JComponent;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JToggleButton;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 
 public class DrawingFrame extends JFrame {
 
+    // Minimum time between two repaints while a fill is running (about 60 frames per second)
+    private static final int REPAINT_INTERVAL_MS = 16;
+    // Width of the drawing stroke, also used to pad the repainted area of each segment
+    private static final int STROKE_WIDTH = 2;
+
     private BufferedImage canvas;
     private Graphics2D g2d;
     private int currentX, currentY, oldX, oldY;
+    // Filler kept between Paint and bucket clicks, with the region map of the last Paint
+    private CancellableFill canvasFill;
+    // Union of the strokes drawn since canvasFill last saw the canvas, or null
+    private Rectangle pendingEdit;
+    // Fill running in the background, or null; the canvas must not be drawn on meanwhile
+    private CancellableFill runningFill;
 
     public DrawingFrame(int width, int height) {
         setTitle("Flood Fill Drawing Application");
@@ -39,7 +57,7 @@ public class DrawingFrame extends JFrame {
 
         // Set drawing color and stroke
         g2d.setColor(Color.BLACK);
-        g2d.setStroke(new BasicStroke(2));
+        g2d.setStroke(new BasicStroke(STROKE_WIDTH));
 
         // Create drawing panel
         JPanel drawingPanel = new JPanel() {
@@ -53,12 +71,27 @@ public class DrawingFrame extends JFrame {
         drawingPanel.setPreferredSize(new Dimension(width, height));
         drawingPanel.setBackground(Color.WHITE);
 
+        // In bucket mode a click fills only the clicked region instead of drawing
+        JToggleButton bucketButton = new JToggleButton("Bucket");
+
         // Add mouse listeners for drawing
         drawingPanel.addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
                 oldX = e.getX();
                 oldY = e.getY();
+
+                if (runningFill == null && bucketButton.isSelected() && oldX < width && oldY < height) {
+                    // Strokes drawn since the last fill are not in the region map, so start over
+                    if (canvasFill == null || pendingEdit != null) {
+                        canvasFill = newCanvasFill();
+                        pendingEdit = null;
+                    }
+
+                    // Only the bounding box of the filled region needs to be repainted
+                    FilledRegion region = canvasFill.fill(oldX, oldY, canvasFill.generateValue());
+                    drawingPanel.repaint(region.getX(), region.getY(), region.getWidth(), region.getHeight());
+                }
             }
         });
 
@@ -68,9 +101,17 @@ public class DrawingFrame extends JFrame {
                 currentX = e.getX();
                 currentY = e.getY();
 
-                if (g2d != null) {
+                if (g2d != null && runningFill == null && !bucketButton.isSelected()) {
                     g2d.drawLine(oldX, oldY, currentX, currentY);
-                    drawingPanel.repaint();
+
+                    // Only the segment's bounds, widened by the stroke, need to be repainted
+                    // and re-filled by the next Paint
+                    Rectangle segment = new Rectangle(Math.min(oldX, currentX) - STROKE_WIDTH,
+                            Math.min(oldY, currentY) - STROKE_WIDTH,
+                            Math.abs(currentX - oldX) + 2 * STROKE_WIDTH + 1,
+                            Math.abs(currentY - oldY) + 2 * STROKE_WIDTH + 1);
+                    pendingEdit = pendingEdit == null ? segment : pendingEdit.union(segment);
+                    drawingPanel.repaint(segment);
                     oldX = currentX;
                     oldY = currentY;
                 }
@@ -80,13 +121,17 @@ public class DrawingFrame extends JFrame {
         // Create button panel
         JPanel buttonPanel = new JPanel(new FlowLayout());
         JButton paintButton = new JButton("Paint");
-
-        paintButton.addActionListener(_ -> {
-            new ImageFloodFill(canvas).execute();
-            drawingPanel.repaint();
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(_ -> {
+            if (runningFill != null) {
+                runningFill.setCancelled(true);
+            }
         });
 
         buttonPanel.add(paintButton);
+        buttonPanel.add(cancelButton);
+        buttonPanel.add(bucketButton);
 
         // Create reset button
         JButton resetButton = new JButton("Reset");
@@ -95,10 +140,12 @@ public class DrawingFrame extends JFrame {
             // Clear the canvas and paint it white again
             g2d.setColor(Color.WHITE);
             g2d.fillRect(0, 0, width, height);
+            canvasFill = null;
+            pendingEdit = null;
 
             // Reset drawing color to black
             g2d.setColor(Color.BLACK);
-            g2d.setStroke(new BasicStroke(2));
+            g2d.setStroke(new BasicStroke(STROKE_WIDTH));
 
             // Repaint the drawing panel
             drawingPanel.repaint();
@@ -120,10 +167,12 @@ public class DrawingFrame extends JFrame {
 
             // Draw the mandala image onto the canvas
             g2d.drawImage(mandalaImage, 0, 0, null);
+            canvasFill = null;
+            pendingEdit = null;
 
             // Reset drawing color to black
             g2d.setColor(Color.BLACK);
-            g2d.setStroke(new BasicStroke(2));
+            g2d.setStroke(new BasicStroke(STROKE_WIDTH));
 
             // Repaint the drawing panel
             drawingPanel.repaint();
@@ -131,6 +180,73 @@ public class DrawingFrame extends JFrame {
 
         buttonPanel.add(mandalaButton);
 
+        // Paint the canvas on a background worker, repainting it at most every
+        // REPAINT_INTERVAL_MS while the fill progresses. The other controls stay
+        // disabled until the fill finishes or is cancelled. After the first Paint,
+        // only the regions touched by the strokes drawn since are re-filled
+        JComponent[] lockedControls = { paintButton, bucketButton, resetButton, mandalaButton };
+
+        paintButton.addActionListener(_ -> {
+            if (canvasFill == null) {
+                canvasFill = newCanvasFill();
+                pendingEdit = null;
+            }
+
+            CancellableFill fill = canvasFill;
+            Rectangle edit = pendingEdit;
+            pendingEdit = null;
+
+            if (fill.hasRegionMap() && edit == null) {
+                return;
+            }
+
+            Timer repaintTimer = new Timer(REPAINT_INTERVAL_MS, _ -> {
+                // Repaint only the regions filled since the previous tick
+                Rectangle dirty = fill.takeDirtyArea();
+                if (dirty != null) {
+                    drawingPanel.repaint(dirty);
+                }
+            });
+
+            SwingWorker<FillStats, Void> worker = new SwingWorker<>() {
+                @Override
+                protected FillStats doInBackground() {
+                    if (edit != null && fill.hasRegionMap()) {
+                        fill.refill(edit.x, edit.y, edit.width, edit.height);
+                        return FillStats.DISABLED;
+                    }
+
+                    return fill.execute();
+                }
+
+                @Override
+                protected void done() {
+                    repaintTimer.stop();
+                    setRunningFill(null, lockedControls, cancelButton);
+                    // The filler is kept for the bucket and the next Paint, which must not see the cancellation
+                    fill.setCancelled(false);
+
+                    try {
+                        get();
+                    } catch (InterruptedException | CancellationException e) {
+                        // Nothing to report
+                    } catch (ExecutionException e) {
+                        if (!(e.getCause() instanceof CancellationException)) {
+                            e.printStackTrace();
+                        }
+                    }
+
+                    // Whatever the last tick missed, including after a cancellation
+                    FilledRegion dirty = fill.getDirtyBounds();
+                    drawingPanel.repaint(dirty.getX(), dirty.getY(), dirty.getWidth(), dirty.getHeight());
+                }
+            };
+
+            setRunningFill(fill, lockedControls, cancelButton);
+            repaintTimer.start();
+            worker.execute();
+        });
+
         // Add components to frame
         add(new JScrollPane(drawingPanel), BorderLayout.CENTER);
         add(buttonPanel, BorderLayout.SOUTH);
@@ -139,4 +255,66 @@ public class DrawingFrame extends JFrame {
         setLocationRelativeTo(null);
         setVisible(true);
     }
+
+    private CancellableFill newCanvasFill() {
+        CancellableFill fill = new CancellableFill(canvas);
+        fill.setIncremental(true);
+        return fill;
+    }
+
+    private void setRunningFill(CancellableFill fill, JComponent[] lockedControls, JButton cancelButton) {
+        this.runningFill = fill;
+        boolean filling = fill != null;
+
+        for (JComponent control : lockedControls) {
+            control.setEnabled(!filling);
+        }
+
+        cancelButton.setEnabled(filling);
+    }
+
+    /**
+     * Image fill that can be cancelled from another thread. Cancellation is
+     * checked whenever a new region is about to be filled, so every region of
+     * the canvas ends up either completely filled or untouched. The area of
+     * the regions filled is accumulated until the EDT takes it for a repaint.
+     */
+    private static final class CancellableFill extends ImageFloodFill {
+
+        private volatile boolean cancelled;
+        // Union of the regions filled since the last call to takeDirtyArea, guarded by this
+        private Rectangle dirtyArea;
+
+        CancellableFill(BufferedImage image) {
+            super(image);
+        }
+
+        void setCancelled(boolean cancelled) {
+            this.cancelled = cancelled;
+        }
+
+        synchronized Rectangle takeDirtyArea() {
+            Rectangle area = dirtyArea;
+            dirtyArea = null;
+            return area;
+        }
+
+        @Override
+        public void onRegionFilled(int x, int y, int width, int height, int cellCount) {
+            Rectangle region = new Rectangle(x, y, width, height);
+
+            synchronized (this) {
+                dirtyArea = dirtyArea == null ? region : dirtyArea.union(region);
+            }
+        }
+
+        @Override
+        public int generateValue() {
+            if (cancelled) {
+                throw new CancellationException("Fill cancelled");
+            }
+
+            return super.generateValue();
+        }
+    }
 }
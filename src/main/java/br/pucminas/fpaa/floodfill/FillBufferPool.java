@@ -0,0 +1,102 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thread-safe pool of cell buffers holding the pixels or labels of an
+ * image. A server filling one image per request takes its buffers from the
+ * pool and gives them back once the response is written, so that steady
+ * traffic reuses the same arrays instead of allocating new ones.
+ * <p>
+ * Released buffers are kept up to a total number of cells, beyond which the
+ * oldest ones are dropped.
+ *
+ * @see FloodFillPool
+ */
+final class FillBufferPool {
+
+    /**
+     * The largest total number of cells kept in released buffers
+     */
+    private final long maxRetainedCells;
+    /**
+     * Released cell buffers, oldest first
+     */
+    private final List<int[]> buffers = new ArrayList<>();
+    /**
+     * The total number of cells in {@link #buffers}
+     */
+    private long retainedCells;
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param maxRetainedCells the largest total number of cells kept in released buffers
+     * @throws IllegalArgumentException if maxRetainedCells is negative
+     */
+    FillBufferPool(long maxRetainedCells) {
+        if (maxRetainedCells < 0) {
+            throw new IllegalArgumentException("Retained cells must not be negative");
+        }
+
+        this.maxRetainedCells = maxRetainedCells;
+    }
+
+    /**
+     * Takes the smallest released buffer holding at least the given number
+     * of cells, or allocates one of exactly that size if there is none. The
+     * contents of a reused buffer are left as they were.
+     *
+     * @param cells the number of cells needed
+     * @return a buffer with at least {@code cells} elements
+     */
+    synchronized int[] acquireCells(int cells) {
+        int best = -1;
+
+        for (int k = 0; k < buffers.size(); k++) {
+            int length = buffers.get(k).length;
+
+            if (length >= cells && (best < 0 || length < buffers.get(best).length)) {
+                best = k;
+            }
+        }
+
+        if (best < 0) {
+            return new int[cells];
+        }
+
+        int[] buffer = buffers.remove(best);
+        retainedCells -= buffer.length;
+        return buffer;
+    }
+
+    /**
+     * Gives a buffer back to the pool, dropping the oldest buffers if it
+     * would otherwise retain more than its limit.
+     *
+     * @param buffer the buffer taken from {@link #acquireCells(int)}, no longer used by the caller
+     */
+    synchronized void releaseCells(int[] buffer) {
+        if (buffer.length > maxRetainedCells) {
+            return;
+        }
+
+        while (retainedCells + buffer.length > maxRetainedCells) {
+            retainedCells -= buffers.remove(0).length;
+        }
+
+        buffers.add(buffer);
+        retainedCells += buffer.length;
+    }
+
+    /**
+     * Returns the total number of cells in the released buffers.
+     *
+     * @return the number of cells retained
+     */
+    synchronized long getRetainedCells() {
+        return retainedCells;
+    }
+
+}
@@ -0,0 +1,34 @@
+package br.pucminas.fpaa.floodfill;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering one {@link FloodFill#execute()} call.
+ */
+@Name("br.pucminas.fpaa.floodfill.FillExecution")
+@Label("Flood Fill Execution")
+@Category("Flood Fill")
+@Description("One execution of a flood fill over a whole matrix")
+final class FillExecutionEvent extends Event {
+
+    @Label("Width")
+    @Description("Number of columns of the matrix")
+    int width;
+
+    @Label("Height")
+    @Description("Number of rows of the matrix")
+    int height;
+
+    @Label("Strategy")
+    @Description("Fill strategy used")
+    String strategy;
+
+    @Label("Regions")
+    @Description("Number of regions filled")
+    int regions;
+
+}
@@ -0,0 +1,35 @@
+package br.pucminas.fpaa.floodfill;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering the fill of one region whose area reaches
+ * the threshold set with {@link FloodFill#setRegionEventThreshold(int)}.
+ */
+@Name("br.pucminas.fpaa.floodfill.FillRegion")
+@Label("Flood Fill Region")
+@Category("Flood Fill")
+@Description("Fill of a single large region")
+final class FillRegionEvent extends Event {
+
+    @Label("Seed X")
+    @Description("Column of the cell the region was filled from")
+    int seedX;
+
+    @Label("Seed Y")
+    @Description("Row of the cell the region was filled from")
+    int seedY;
+
+    @Label("Area")
+    @Description("Number of cells in the region")
+    int area;
+
+    @Label("Strategy")
+    @Description("Fill strategy used")
+    String strategy;
+
+}
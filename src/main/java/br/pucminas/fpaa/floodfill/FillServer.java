@@ -0,0 +1,591 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Small HTTP service that fills uploaded images with {@link ImageFloodFill},
+ * built on the JDK's {@link HttpServer} with one virtual thread per request.
+ * <p>
+ * {@code POST /fill} takes the image as the request body, either encoded in
+ * any format {@link ImageIO} reads (PNG in particular) or, with content type
+ * {@code application/octet-stream}, as raw pixels: {@code width * height}
+ * big-endian ARGB integers, row by row. The query string holds the options:
+ * <ul>
+ *     <li>{@code width} and {@code height}: the dimensions of a raw upload, required for it;</li>
+ *     <li>{@code strategy}: a {@link FillStrategy} name, {@code scanline} by default;</li>
+ *     <li>{@code connectivity}: {@code 4} (the default) or {@code 8};</li>
+ *     <li>{@code tolerance}: the colour tolerance, from 0 (the default) to 255;</li>
+ *     <li>{@code output}: {@code image} (the default) for the filled image,
+ *     as raw pixels for a raw upload and as a PNG for an encoded one, or
+ *     {@code labels} for the label map of its white regions as raw
+ *     big-endian integers.</li>
+ * </ul>
+ * Raw responses carry the dimensions in the {@code X-Image-Width} and
+ * {@code X-Image-Height} headers, and label maps their number of regions in
+ * {@code X-Region-Count}.
+ * <p>
+ * The pixels and labels of every request are held in buffers taken from a
+ * {@link FillBufferPool}, and filled by an {@link ImageFloodFill} taken from
+ * a {@link FloodFillPool}, which keeps its grown scratch state. Memory is
+ * bounded by a cap counted in megapixels of one {@code int} each. A quarter
+ * of the cap is set aside for the buffers the pool keeps, and another for
+ * the scratch state of the idle fillers. The rest is shared by the requests
+ * in flight, each counting its pixel and label buffers, its decoded image
+ * and its filler's scratch state. A request waits until it fits, is refused
+ * with 503 if it has not fit within the admission timeout, and with 413 if
+ * it could never fit. The dimensions of an encoded upload are read from its
+ * header, before its pixels are decoded.
+ */
+public final class FillServer implements AutoCloseable {
+
+    /**
+     * Port the server listens on when none is given on the command line
+     */
+    public static final int DEFAULT_PORT = 8080;
+
+    /**
+     * Default cap on the megapixels of the images being processed at once
+     */
+    public static final int DEFAULT_MAX_MEGAPIXELS = 256;
+
+    /**
+     * Default time a request waits for its megapixels before being refused
+     */
+    public static final Duration DEFAULT_ADMISSION_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Usage of the command line arguments, printed when they are invalid
+     */
+    static final String USAGE = "Usage: serve [--port N] [--max-megapixels N]";
+
+    /**
+     * Content type of raw pixel and label uploads and responses
+     */
+    private static final String RAW_TYPE = "application/octet-stream";
+
+    /**
+     * Size of the chunks raw pixels and labels are converted in
+     */
+    private static final int CHUNK_BYTES = 1 << 16;
+
+    /**
+     * The number of pixels in one megapixel, the unit of the cap
+     */
+    private static final int MEGAPIXEL = 1_000_000;
+
+    /**
+     * The number of {@code int} cells one permit of the memory budget stands for
+     */
+    private static final int PERMIT_CELLS = 1 << 10;
+
+    /**
+     * Cells of scratch state a filler holds per pixel at most: the labels of
+     * the labeling strategies, and the union-find or worklist entries behind them
+     */
+    static final int SCRATCH_CELLS_PER_PIXEL = 2;
+
+    /**
+     * Cells a decoded upload takes per pixel at most, for 16-bit RGBA images
+     */
+    static final int DECODED_CELLS_PER_PIXEL = 2;
+
+    /**
+     * The share of the cap, as a divisor, that each pool may retain when idle
+     */
+    private static final int RETAINED_SHARE = 4;
+
+    /**
+     * The underlying HTTP server
+     */
+    private final HttpServer server;
+    /**
+     * Runs every request on its own virtual thread
+     */
+    private final ExecutorService executor;
+    /**
+     * The cap on memory, in megapixels of one {@code int} each
+     */
+    private final int maxMegapixels;
+    /**
+     * The permits shared by the requests in flight, once the pools' shares are set aside
+     */
+    final int maxPermits;
+    /**
+     * One permit per {@link #PERMIT_CELLS} cells that requests may still take
+     */
+    final Semaphore memory;
+    /**
+     * The pixel and label buffers shared by the requests
+     */
+    private final FillBufferPool buffers;
+    /**
+     * The fillers shared by the requests
+     */
+    private final FloodFillPool<ImageFloodFill> fillers;
+    /**
+     * Nanoseconds a request waits for its megapixels before being refused
+     */
+    private volatile long admissionTimeoutNanos = DEFAULT_ADMISSION_TIMEOUT.toNanos();
+
+    /**
+     * Creates a server bound to the given address. It does not accept
+     * requests until {@link #start()} is called.
+     *
+     * @param address       the address to listen on, with port 0 for any free port
+     * @param maxMegapixels the cap on memory, in megapixels of one {@code int} each
+     * @throws IOException              if the address cannot be bound
+     * @throws IllegalArgumentException if maxMegapixels is not positive
+     */
+    public FillServer(InetSocketAddress address, int maxMegapixels) throws IOException {
+        if (maxMegapixels <= 0) {
+            throw new IllegalArgumentException("Max megapixels must be positive");
+        }
+
+        long capCells = (long) maxMegapixels * MEGAPIXEL;
+        long retainedCells = capCells / RETAINED_SHARE;
+        this.maxMegapixels = maxMegapixels;
+        this.maxPermits = (int) ((capCells - 2 * retainedCells) / PERMIT_CELLS);
+        // Fair, so that a large image is not kept waiting forever by a stream of small ones
+        this.memory = new Semaphore(maxPermits, true);
+        this.buffers = new FillBufferPool(retainedCells);
+        // Fills are CPU bound, so there are rarely more of them at once than processors,
+        // and the scratch state of that many idle fillers must fit in their share
+        int processors = Runtime.getRuntime().availableProcessors();
+        long fillerPixels = retainedCells / ((long) processors * SCRATCH_CELLS_PER_PIXEL);
+        this.fillers = new FloodFillPool<>(ImageFloodFill::new, Math.clamp(fillerPixels, 1, Integer.MAX_VALUE),
+                processors);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(address, 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/fill", this::handle);
+    }
+
+    /**
+     * Runs the server from the command line until the process is stopped.
+     *
+     * @param args the options {@code --port} and {@code --max-megapixels} with their values
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        int maxMegapixels = DEFAULT_MAX_MEGAPIXELS;
+        FillServer server;
+
+        try {
+            for (int k = 0; k < args.length; k += 2) {
+                if (k + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[k]);
+                }
+
+                switch (args[k]) {
+                    case "--port" -> port = Integer.parseInt(args[k + 1]);
+                    case "--max-megapixels" -> maxMegapixels = Integer.parseInt(args[k + 1]);
+                    default -> throw new IllegalArgumentException("Unknown option " + args[k]);
+                }
+            }
+
+            server = new FillServer(new InetSocketAddress(port), maxMegapixels);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        server.start();
+        System.out.println("Listening on http://localhost:" + server.getAddress().getPort() + "/fill");
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits for the ones in progress to finish.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    /**
+     * Returns the address the server is bound to, with the actual port if
+     * it was created with port 0.
+     *
+     * @return the bound address
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Returns the cap on memory, in megapixels of one {@code int} each.
+     *
+     * @return the cap in megapixels
+     */
+    public int getMaxMegapixels() {
+        return maxMegapixels;
+    }
+
+    /**
+     * Sets how long a request waits for its memory to fit under the cap
+     * before being refused with 503, {@link #DEFAULT_ADMISSION_TIMEOUT} by default.
+     *
+     * @param timeout the admission timeout, zero to refuse requests at once
+     * @throws IllegalArgumentException if timeout is negative
+     */
+    public void setAdmissionTimeout(Duration timeout) {
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException("Admission timeout must not be negative");
+        }
+
+        this.admissionTimeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * Handles a request to {@code /fill}, answering it with the result or an error.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                sendError(exchange, 405, "Only POST is supported");
+                return;
+            }
+
+            try {
+                fill(exchange);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+            } catch (IIOException e) {
+                // A corrupt upload fails while decoding, before any response is sent
+                if (exchange.getResponseCode() != -1) {
+                    throw e;
+                }
+
+                sendError(exchange, 400, "Unreadable image: " + e.getMessage());
+            } catch (RuntimeException e) {
+                // Headers already sent cannot be replaced by an error; closing the exchange aborts the response
+                if (exchange.getResponseCode() == -1) {
+                    sendError(exchange, 500, e.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the image of a request, fills or labels it and writes the response.
+     *
+     * @throws IllegalArgumentException if an option or the upload is invalid
+     */
+    private void fill(HttpExchange exchange) throws IOException {
+        Map<String, String> options = parseQuery(exchange.getRequestURI().getRawQuery());
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        boolean raw = contentType != null && contentType.startsWith(RAW_TYPE);
+
+        FillStrategy strategy = FillStrategy.valueOf(option(options, "strategy", "scanline").toUpperCase(Locale.ROOT));
+        int tolerance = Integer.parseInt(option(options, "tolerance", "0"));
+        Connectivity connectivity = switch (option(options, "connectivity", "4")) {
+            case "4" -> Connectivity.FOUR;
+            case "8" -> Connectivity.EIGHT;
+            default -> throw new IllegalArgumentException("Connectivity must be 4 or 8");
+        };
+        boolean labels = switch (option(options, "output", "image")) {
+            case "image" -> false;
+            case "labels" -> true;
+            default -> throw new IllegalArgumentException("Output must be image or labels");
+        };
+
+        String widthOption = options.remove("width");
+        String heightOption = options.remove("height");
+
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + options.keySet());
+        }
+
+        ImageReader reader = null;
+        int width;
+        int height;
+
+        if (raw) {
+            if (widthOption == null || heightOption == null) {
+                throw new IllegalArgumentException("Raw uploads need the width and height options");
+            }
+
+            width = Integer.parseInt(widthOption);
+            height = Integer.parseInt(heightOption);
+        } else {
+            ImageInputStream stream = new MemoryCacheImageInputStream(exchange.getRequestBody());
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+
+            if (!readers.hasNext()) {
+                sendError(exchange, 415, "Unsupported image format");
+                return;
+            }
+
+            reader = readers.next();
+            reader.setInput(stream, true, true);
+            width = reader.getWidth(0);
+            height = reader.getHeight(0);
+        }
+
+        try {
+            if (width <= 0 || height <= 0) {
+                throw new IllegalArgumentException("Width and height must be positive");
+            }
+
+            long pixels = (long) width * height;
+            long cells = pixels * cellsPerPixel(raw, labels);
+            long permits = (cells + PERMIT_CELLS - 1) / PERMIT_CELLS;
+
+            if (permits > maxPermits || pixels > Integer.MAX_VALUE) {
+                sendError(exchange, 413, "Image of " + width + "x" + height + " needs more memory than the cap of "
+                        + maxMegapixels + " megapixels allows");
+                return;
+            }
+
+            if (!admit((int) permits)) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendError(exchange, 503, "Too many images in flight");
+                return;
+            }
+
+            try {
+                fillAdmitted(exchange, reader, raw, width, height, strategy, tolerance, connectivity, labels);
+            } finally {
+                memory.release((int) permits);
+            }
+        } finally {
+            if (reader != null) {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Returns the cells a request holds per pixel of its image: the pixel
+     * buffer, the label buffer of a label map, the decoded image of an
+     * encoded upload, and the scratch state of its filler.
+     *
+     * @param raw    true if the upload is raw pixels, false if it is encoded
+     * @param labels true if the response is the label map
+     * @return the number of cells per pixel
+     */
+    static int cellsPerPixel(boolean raw, boolean labels) {
+        return 1 + (labels ? 1 : 0) + (raw ? 0 : DECODED_CELLS_PER_PIXEL) + SCRATCH_CELLS_PER_PIXEL;
+    }
+
+    /**
+     * Waits until the given permits fit under the cap or the admission timeout elapses.
+     *
+     * @return true if the permits were acquired
+     */
+    private boolean admit(int permits) {
+        try {
+            return memory.tryAcquire(permits, admissionTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Fills or labels an admitted image with pooled buffers and writes the response.
+     */
+    private void fillAdmitted(HttpExchange exchange, ImageReader reader, boolean raw, int width, int height,
+                              FillStrategy strategy, int tolerance, Connectivity connectivity, boolean labels)
+            throws IOException {
+        int cellCount = width * height;
+        int[] cells = buffers.acquireCells(cellCount);
+        int[] labelCells = labels ? buffers.acquireCells(cellCount) : null;
+
+        try {
+            if (raw) {
+                readRaw(exchange.getRequestBody(), cells, cellCount);
+            } else {
+                BufferedImage decoded = reader.read(0);
+                decoded.getRGB(0, 0, width, height, cells, 0, width);
+            }
+
+            BufferedImage image = wrap(cells, width, height);
+            int regionCount = 0;
+            // The filler is only held while it runs, not while the response is written
+            ImageFloodFill floodFill = fillers.acquire();
+
+            try {
+                floodFill.reset(image);
+                floodFill.setStrategy(strategy);
+                floodFill.setConnectivity(connectivity);
+                floodFill.setTolerance(tolerance);
+
+                if (labels) {
+                    regionCount = floodFill.label(labelCells);
+                } else {
+                    floodFill.execute();
+                }
+            } finally {
+                fillers.release(floodFill);
+            }
+
+            if (labels) {
+                exchange.getResponseHeaders().set("X-Region-Count", Integer.toString(regionCount));
+                sendRaw(exchange, labelCells, width, height);
+            } else if (raw) {
+                sendRaw(exchange, cells, width, height);
+            } else {
+                exchange.getResponseHeaders().set("Content-Type", "image/png");
+                exchange.sendResponseHeaders(200, 0);
+
+                try (ImageOutputStream output = new MemoryCacheImageOutputStream(exchange.getResponseBody())) {
+                    ImageIO.write(image, "png", output);
+                }
+            }
+        } finally {
+            buffers.releaseCells(cells);
+
+            if (labelCells != null) {
+                buffers.releaseCells(labelCells);
+            }
+        }
+    }
+
+    /**
+     * Reads raw big-endian pixels into the start of a buffer.
+     *
+     * @throws IllegalArgumentException if the body holds fewer pixels than the given count
+     */
+    private static void readRaw(InputStream body, int[] cells, int cellCount) throws IOException {
+        byte[] chunk = new byte[CHUNK_BYTES];
+        IntBuffer ints = ByteBuffer.wrap(chunk).asIntBuffer();
+
+        for (int done = 0; done < cellCount; ) {
+            int count = Math.min(CHUNK_BYTES / Integer.BYTES, cellCount - done);
+
+            if (body.readNBytes(chunk, 0, count * Integer.BYTES) < count * Integer.BYTES) {
+                throw new IllegalArgumentException("Body holds fewer than " + cellCount + " pixels");
+            }
+
+            ints.get(0, cells, done, count);
+            done += count;
+        }
+    }
+
+    /**
+     * Writes the start of a buffer as the raw big-endian body of a successful response.
+     */
+    private static void sendRaw(HttpExchange exchange, int[] cells, int width, int height) throws IOException {
+        int cellCount = width * height;
+        exchange.getResponseHeaders().set("Content-Type", RAW_TYPE);
+        exchange.getResponseHeaders().set("X-Image-Width", Integer.toString(width));
+        exchange.getResponseHeaders().set("X-Image-Height", Integer.toString(height));
+        exchange.sendResponseHeaders(200, (long) cellCount * Integer.BYTES);
+
+        byte[] chunk = new byte[CHUNK_BYTES];
+        IntBuffer ints = ByteBuffer.wrap(chunk).asIntBuffer();
+        OutputStream body = exchange.getResponseBody();
+
+        for (int done = 0; done < cellCount; ) {
+            int count = Math.min(CHUNK_BYTES / Integer.BYTES, cellCount - done);
+            ints.put(0, cells, done, count);
+            body.write(chunk, 0, count * Integer.BYTES);
+            done += count;
+        }
+    }
+
+    /**
+     * Writes a plain text error response.
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * Wraps the start of a buffer as a {@link BufferedImage#TYPE_INT_ARGB}
+     * image, which {@link ImageFloodFill} fills in place.
+     *
+     * @param cells  the pixels, row by row
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @return an image backed by the buffer
+     */
+    static BufferedImage wrap(int[] cells, int width, int height) {
+        DirectColorModel model = (DirectColorModel) ColorModel.getRGBdefault();
+        WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(cells, width * height), width, height,
+                width, model.getMasks(), null);
+        return new BufferedImage(model, raster, false, null);
+    }
+
+    /**
+     * Decodes a query string into its parameters.
+     *
+     * @throws IllegalArgumentException if a parameter is repeated
+     */
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> options = new HashMap<>();
+
+        if (query == null || query.isEmpty()) {
+            return options;
+        }
+
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+
+            if (options.put(name, value) != null) {
+                throw new IllegalArgumentException("Option " + name + " is repeated");
+            }
+        }
+
+        return options;
+    }
+
+    /**
+     * Removes an option from the parsed query, returning its value or the default.
+     */
+    private static String option(Map<String, String> options, String name, String defaultValue) {
+        String value = options.remove(name);
+        return value != null ? value : defaultValue;
+    }
+
+}
@@ -0,0 +1,162 @@
+package br.pucminas.fpaa.floodfill;
+
+/**
+ * Statistics of one {@link FloodFill#execute()} run. They are only collected
+ * while {@link FloodFill#setStatsEnabled(boolean)} is on; otherwise
+ * {@code execute()} returns {@link #DISABLED}, whose counters are all zero.
+ * <p>
+ * Worklist counters only apply to the traversal strategies
+ * ({@link FillStrategy#SCANLINE} and {@link FillStrategy#STACK}); the
+ * labeling strategies do not use a worklist and report zero for them.
+ */
+public final class FillStats {
+
+    /**
+     * Statistics returned while collection is disabled
+     */
+    public static final FillStats DISABLED = new FillStats(0, 0, 0, 0, 0, 0, 0, 0);
+
+    /**
+     * The number of regions found
+     */
+    private final int regionCount;
+    /**
+     * The number of cells in all regions found
+     */
+    private final long filledCells;
+    /**
+     * The number of cells in the largest region
+     */
+    private final long largestRegion;
+    /**
+     * The number of entries pushed onto the worklist
+     */
+    private final long worklistPushes;
+    /**
+     * The number of entries popped from the worklist
+     */
+    private final long worklistPops;
+    /**
+     * The largest number of entries held by the worklist at once
+     */
+    private final int peakWorklistDepth;
+    /**
+     * Nanoseconds spent finding regions (scanning or labeling the matrix)
+     */
+    private final long scanNanos;
+    /**
+     * Nanoseconds spent filling regions
+     */
+    private final long fillNanos;
+
+    /**
+     * Creates the statistics of a run.
+     *
+     * @param regionCount       the number of regions found
+     * @param filledCells       the number of cells in all regions found
+     * @param largestRegion     the number of cells in the largest region
+     * @param worklistPushes    the number of entries pushed onto the worklist
+     * @param worklistPops      the number of entries popped from the worklist
+     * @param peakWorklistDepth the largest number of entries held by the worklist at once
+     * @param scanNanos         nanoseconds spent finding regions
+     * @param fillNanos         nanoseconds spent filling regions
+     */
+    FillStats(int regionCount, long filledCells, long largestRegion, long worklistPushes, long worklistPops,
+              int peakWorklistDepth, long scanNanos, long fillNanos) {
+        this.regionCount = regionCount;
+        this.filledCells = filledCells;
+        this.largestRegion = largestRegion;
+        this.worklistPushes = worklistPushes;
+        this.worklistPops = worklistPops;
+        this.peakWorklistDepth = peakWorklistDepth;
+        this.scanNanos = scanNanos;
+        this.fillNanos = fillNanos;
+    }
+
+    /**
+     * Returns the number of regions found.
+     *
+     * @return the region count
+     */
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    /**
+     * Returns the number of cells in all regions found. Regions filled with
+     * the empty value are counted even though their cells do not change.
+     *
+     * @return the filled cell count
+     */
+    public long getFilledCells() {
+        return filledCells;
+    }
+
+    /**
+     * Returns the number of cells in the largest region.
+     *
+     * @return the size of the largest region, or 0 if there are no regions
+     */
+    public long getLargestRegion() {
+        return largestRegion;
+    }
+
+    /**
+     * Returns the number of entries pushed onto the worklist.
+     *
+     * @return the worklist push count
+     */
+    public long getWorklistPushes() {
+        return worklistPushes;
+    }
+
+    /**
+     * Returns the number of entries popped from the worklist.
+     *
+     * @return the worklist pop count
+     */
+    public long getWorklistPops() {
+        return worklistPops;
+    }
+
+    /**
+     * Returns the largest number of entries held by the worklist at once.
+     *
+     * @return the peak worklist depth
+     */
+    public int getPeakWorklistDepth() {
+        return peakWorklistDepth;
+    }
+
+    /**
+     * Returns the time spent finding regions, that is, scanning the matrix
+     * for seeds or labeling it, including anything else that is not filling.
+     *
+     * @return the scan time in nanoseconds
+     */
+    public long getScanNanos() {
+        return scanNanos;
+    }
+
+    /**
+     * Returns the time spent filling regions and reporting the changes.
+     *
+     * @return the fill time in nanoseconds
+     */
+    public long getFillNanos() {
+        return fillNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "FillStats[regions=" + regionCount
+                + ", filledCells=" + filledCells
+                + ", largestRegion=" + largestRegion
+                + ", worklistPushes=" + worklistPushes
+                + ", worklistPops=" + worklistPops
+                + ", peakWorklistDepth=" + peakWorklistDepth
+                + ", scanNanos=" + scanNanos
+                + ", fillNanos=" + fillNanos + "]";
+    }
+
+}
@@ -0,0 +1,133 @@
+package br.pucminas.fpaa.floodfill;
+
+/**
+ * Collects the {@link FillStats} of the executions of one {@link FloodFill}.
+ * An instance only exists while statistics are enabled, so a disabled fill
+ * pays nothing more than a null check per region.
+ */
+final class FillStatsRecorder {
+
+    /**
+     * The worklist whose operations are counted
+     */
+    private final CountingWorklist worklist;
+    /**
+     * {@link System#nanoTime()} when the current execution started
+     */
+    private long startNanos;
+    /**
+     * The number of regions filled so far
+     */
+    private int regionCount;
+    /**
+     * The number of cells in the regions filled so far
+     */
+    private long filledCells;
+    /**
+     * The number of cells in the largest region filled so far
+     */
+    private long largestRegion;
+    /**
+     * Nanoseconds spent filling regions so far
+     */
+    private long fillNanos;
+    /**
+     * Region labels whose sizes are counted when the execution finishes, if any
+     */
+    private int[] labels;
+    /**
+     * The number of cells covered by {@link #labels}
+     */
+    private int labelCount;
+
+    /**
+     * Creates a recorder counting the operations of the given worklist.
+     *
+     * @param worklist the worklist used by the fill engines
+     */
+    FillStatsRecorder(CountingWorklist worklist) {
+        this.worklist = worklist;
+    }
+
+    /**
+     * Resets all counters at the start of an execution.
+     */
+    void start() {
+        worklist.resetCounters();
+        regionCount = 0;
+        filledCells = 0;
+        largestRegion = 0;
+        fillNanos = 0;
+        labels = null;
+        labelCount = 0;
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Records one region filled by a traversal strategy.
+     *
+     * @param cells the number of cells in the region
+     * @param nanos the time spent filling it
+     */
+    void regionFilled(int cells, long nanos) {
+        regionCount++;
+        filledCells += cells;
+        largestRegion = Math.max(largestRegion, cells);
+        fillNanos += nanos;
+    }
+
+    /**
+     * Records the time spent writing the values of regions already recorded
+     * with {@link #regionFilled(int, long)}, as the packed strategy does after
+     * claiming them all.
+     *
+     * @param nanos the time spent writing the values
+     */
+    void spansWritten(long nanos) {
+        fillNanos += nanos;
+    }
+
+    /**
+     * Records all regions painted by a labeling strategy. Their sizes are
+     * counted from the labels in {@link #finish()}, after the clock stops.
+     *
+     * @param labels      the region number of every cell, or 0 for cells outside any region
+     * @param cellCount   the number of cells covered by the labels
+     * @param regionCount the number of regions
+     * @param nanos       the time spent painting them
+     */
+    void regionsPainted(int[] labels, int cellCount, int regionCount, long nanos) {
+        this.labels = labels;
+        this.labelCount = cellCount;
+        this.regionCount = regionCount;
+        this.fillNanos += nanos;
+    }
+
+    /**
+     * Ends the current execution. Any time not spent filling is accounted as scanning.
+     *
+     * @return the statistics of the execution
+     */
+    FillStats finish() {
+        long totalNanos = System.nanoTime() - startNanos;
+
+        if (labels != null) {
+            long[] sizes = new long[regionCount + 1];
+
+            for (int j = 0; j < labelCount; j++) {
+                sizes[labels[j]]++;
+            }
+
+            for (int region = 1; region <= regionCount; region++) {
+                filledCells += sizes[region];
+                largestRegion = Math.max(largestRegion, sizes[region]);
+            }
+
+            labels = null;
+        }
+
+        return new FillStats(regionCount, filledCells, largestRegion, worklist.pushes(), worklist.pops(),
+                worklist.peakSize(), totalNanos - fillNanos, fillNanos);
+    }
+
+}
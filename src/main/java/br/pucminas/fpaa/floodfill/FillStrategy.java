@@ -0,0 +1,56 @@
+package br.pucminas.fpaa.floodfill;
+
+/**
+ * Strategies available to {@link FloodFill} for filling the regions of a
+ * matrix. Regions are always made of connected empty cells, so all
+ * strategies produce the same final matrix; they differ only in how regions
+ * are found and traversed and, therefore, in speed and in the order in which
+ * value changes are reported. The strategies are described for the default
+ * {@link Connectivity#FOUR}; with any other neighborhood they fall back to a
+ * cell-by-cell traversal (see {@link FloodFill#setConnectivity(Connectivity)}).
+ */
+public enum FillStrategy {
+
+    /**
+     * Classic iterative fill that pushes the fillable neighbors of every
+     * filled cell onto a stack, claiming them as they are pushed so each cell
+     * is pushed and popped once.
+     */
+    STACK,
+
+    /**
+     * Scanline (span) fill that fills whole horizontal runs of cells at once
+     * and only seeds one cell per run found in the rows above and below.
+     */
+    SCANLINE,
+
+    /**
+     * Parallel connected-component labeling. The matrix is split into tiles
+     * that are labeled on the common {@link java.util.concurrent.ForkJoinPool},
+     * regions crossing tile seams are merged with a concurrent union-find, and
+     * each region is then filled with one generated value, in the same order
+     * a sequential scan would find them.
+     */
+    PARALLEL,
+
+    /**
+     * Sequential two-pass connected-component labeling (Hoshen-Kopelman).
+     * A first raster-order pass assigns provisional labels and records their
+     * equivalences in a union-find, and a second pass resolves them, so every
+     * cell is touched a fixed number of times in a sequential access pattern.
+     * Each region is then filled with one generated value, in the same order
+     * a sequential scan would find them.
+     */
+    TWO_PASS,
+
+    /**
+     * Scanline fill over a bitmask of the empty cells, 64 cells per
+     * {@code long}, so the traversal works on a working set 32 times smaller
+     * than the matrix and finds span ends a whole word at a time. Filled
+     * spans are only recorded during the traversal, and all values are
+     * written at the end in one pass over the matrix, row by row. Suited to
+     * large line art with few, large regions.
+     */
+    PACKED
+
+}
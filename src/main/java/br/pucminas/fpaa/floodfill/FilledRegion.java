@@ -0,0 +1,110 @@
+package br.pucminas.fpaa.floodfill;
+
+/**
+ * A number of cells and the bounding box enclosing them. It describes the
+ * cells changed by {@link FloodFill#fill(int, int, int)} and
+ * {@link FloodFill#refill(int, int, int, int)}, the cells changed by the last
+ * execution or fill in {@link FloodFill#getDirtyBounds()}, and the cells of a
+ * region in {@link RegionIndex#getBounds(int)}.
+ */
+public final class FilledRegion {
+
+    /**
+     * The column of the leftmost cell
+     */
+    private final int x;
+    /**
+     * The row of the topmost cell
+     */
+    private final int y;
+    /**
+     * The number of columns of the bounding box
+     */
+    private final int width;
+    /**
+     * The number of rows of the bounding box
+     */
+    private final int height;
+    /**
+     * The number of cells
+     */
+    private final int cellCount;
+
+    /**
+     * Creates a description of a set of cells.
+     *
+     * @param x         the column of the leftmost cell
+     * @param y         the row of the topmost cell
+     * @param width     the number of columns of the bounding box
+     * @param height    the number of rows of the bounding box
+     * @param cellCount the number of cells
+     */
+    FilledRegion(int x, int y, int width, int height, int cellCount) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.cellCount = cellCount;
+    }
+
+    /**
+     * Returns the column of the leftmost cell.
+     *
+     * @return the x-coordinate of the bounding box
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Returns the row of the topmost cell.
+     *
+     * @return the y-coordinate of the bounding box
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Returns the number of columns of the bounding box.
+     *
+     * @return the width of the bounding box, or 0 if there are no cells
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the number of rows of the bounding box.
+     *
+     * @return the height of the bounding box, or 0 if there are no cells
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of cells, changed or in the region.
+     *
+     * @return the cell count
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Checks if there are no cells, that is, if the fill changed nothing.
+     *
+     * @return true if there are no cells, false otherwise
+     */
+    public boolean isEmpty() {
+        return cellCount == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "FilledRegion[x=" + x + ", y=" + y + ", width=" + width + ", height=" + height
+                + ", cells=" + cellCount + "]";
+    }
+
+}
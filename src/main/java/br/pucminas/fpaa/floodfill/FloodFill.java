@@ -1,6 +1,9 @@
 package br.pucminas.fpaa.floodfill;
 
-import java.util.Stack;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Abstract base class for implementing flood fill algorithms on a 2D matrix.
@@ -9,14 +12,28 @@ import java.util.Stack;
  */
 public abstract class FloodFill {
 
+    /**
+     * Default side of the tiles labeled independently by the parallel strategy
+     */
+    public static final int DEFAULT_TILE_SIZE = 256;
+    /**
+     * Default area, in cells, from which a region fill is recorded as a Flight Recorder event
+     */
+    public static final int DEFAULT_REGION_EVENT_THRESHOLD = 1 << 16;
+
+    /**
+     * The empty array detached instances point at
+     */
+    private static final int[] NO_CELLS = new int[0];
+
     /**
      * The width of the matrix (number of columns)
      */
-    private final int width;
+    private int width;
     /**
      * The height of the matrix (number of rows)
      */
-    private final int height;
+    private int height;
     /**
      * The value that represents border cells (obstacles)
      */
@@ -26,13 +43,121 @@ public abstract class FloodFill {
      */
     private final int emptyValue;
     /**
-     * The 2D matrix on which flood fill operations are performed
+     * The cells on which flood fill operations are performed, stored row by row
+     */
+    private int[] matrix;
+    /**
+     * The index in {@link #matrix} of the cell at column 0, row 0
+     */
+    private int offset;
+    /**
+     * The distance in {@link #matrix} between two vertically adjacent cells
+     */
+    private int stride;
+    /**
+     * The caller's 2D matrix or pixel source when constructed from or reset
+     * to one that is not backed by an accessible array, read into
+     * {@link #matrix} before each execution or single fill and updated after it
+     */
+    private PixelSource source;
+    /**
+     * The row-major array 2D matrices and pixel sources are copied into, kept
+     * across resets to other matrices and while detached so the next copy can reuse it
+     */
+    private int[] rowBuffer;
+    /**
+     * The largest number of cells this instance has been pointed at, which
+     * its scratch state may have grown to hold
+     */
+    private int capacity;
+    /**
+     * The strategy used to fill each connected region
+     */
+    private FillStrategy strategy = FillStrategy.SCANLINE;
+    /**
+     * The neighborhood connecting cells into regions
+     */
+    private Connectivity connectivity = Connectivity.FOUR;
+    /**
+     * The offset in {@link #matrix} of each neighbor of a cell
+     */
+    private int[] neighborOffsets;
+    /**
+     * The offset in the claimed mask ({@code y * width + x}) of each neighbor of a cell
+     */
+    private int[] maskNeighborOffsets;
+    /**
+     * The largest per-channel difference from the reference colour of a fillable cell, 0 for exact matches
+     */
+    private int tolerance;
+    /**
+     * Worklist of packed coordinates, reused across regions and executions
+     */
+    private LongWorklist worklist = new LongWorklist();
+    /**
+     * The side of the tiles labeled independently by the parallel strategy
      */
-    private final int[][] matrix;
+    private int tileSize = DEFAULT_TILE_SIZE;
+    /**
+     * Region labels of every cell, reused across executions of label-based strategies
+     */
+    private int[] labels = new int[0];
+    /**
+     * Region values, reused across executions of label-based strategies
+     */
+    private int[] values = new int[0];
+    /**
+     * Cells already claimed by a region, reused across executions of traversal strategies
+     */
+    private final BitMask claimed = new BitMask();
+    /**
+     * Bitmask of the empty cells used by the packed strategy, created on its first execution
+     */
+    private PackedRegions packedRegions;
+    /**
+     * Sequential labeler of the two-pass strategy, created on its first execution
+     */
+    private TwoPassLabeler twoPassLabeler;
+    /**
+     * Collects the statistics of each execution, or null while they are disabled
+     */
+    private FillStatsRecorder recorder;
+    /**
+     * True if the region map is kept between executions
+     */
+    private boolean incremental;
+    /**
+     * The region map of the last execution, kept for {@link #refill(int, int, int, int)}, or null
+     */
+    private RegionMap regionMap;
+    /**
+     * True if every execution builds a region index
+     */
+    private boolean indexing;
+    /**
+     * The region index of the last execution, or null
+     */
+    private RegionIndex regionIndex;
+    /**
+     * The area, in cells, from which a region fill is recorded as a Flight Recorder event
+     */
+    private int regionEventThreshold = DEFAULT_REGION_EVENT_THRESHOLD;
+    /**
+     * Bounding box of the cells changed by the last execution or single fill,
+     * empty ({@code dirtyMaxX < dirtyMinX}) if nothing changed
+     */
+    private int dirtyMinX, dirtyMinY, dirtyMaxX = -1, dirtyMaxY = -1;
+    /**
+     * The number of cells changed by the last execution or single fill
+     */
+    private int dirtyCells;
 
     /**
      * Constructs a FloodFill instance with the specified matrix and value
-     * definitions.
+     * definitions. The matrix is copied into a row-major array at the start
+     * of every {@link #execute()} and {@link #fill(int, int, int)}, so edits
+     * made to it in between are filled, and the changed cells are copied
+     * back into it at the end.
      *
      * @param matrix      the 2D integer matrix to perform flood fill on
      * @param borderValue the value that represents border/obstacle cells
@@ -40,11 +165,276 @@ public abstract class FloodFill {
      * @throws IllegalArgumentException if matrix is null or empty
      */
     public FloodFill(int[][] matrix, int borderValue, int emptyValue) {
-        this.matrix = matrix;
-        this.height = matrix.length;
-        this.width = matrix[0].length;
+        this(flatten(matrix, null), 0, matrix[0].length, matrix[0].length, matrix.length, borderValue, emptyValue,
+                PixelSource.of(matrix));
+    }
+
+    /**
+     * Constructs a FloodFill instance over a {@link PixelSource}, such as a
+     * raster held in an {@link IntBuffer} or in native memory. A source over
+     * an accessible array is filled in place, like
+     * {@link #FloodFill(int[], int, int, int, int, int, int)}. Any other
+     * source is read into a row-major array at the start of every
+     * {@link #execute()} and {@link #fill(int, int, int)}, so edits made to
+     * it in between are filled, and the changed rectangle is written back
+     * into it at the end.
+     *
+     * @param source      the source holding the cells to perform flood fill on
+     * @param borderValue the value that represents border/obstacle cells
+     * @param emptyValue  the value that represents empty cells to be filled
+     * @throws IllegalArgumentException if the source has more cells than a Java array can hold
+     */
+    public FloodFill(PixelSource source, int borderValue, int emptyValue) {
+        this(borderValue, emptyValue);
+        reset(source);
+    }
+
+    /**
+     * Constructs a FloodFill instance that works directly on a row-major
+     * array of cells, where cell (x, y) is stored at index {@code y * width + x}.
+     * No copy of the array is made, so changes are visible in it immediately.
+     *
+     * @param matrix      the array holding the cells to perform flood fill on
+     * @param width       the number of columns
+     * @param height      the number of rows
+     * @param borderValue the value that represents border/obstacle cells
+     * @param emptyValue  the value that represents empty cells to be filled
+     * @throws IllegalArgumentException if the dimensions are not positive or
+     *                                  do not match the array length
+     */
+    public FloodFill(int[] matrix, int width, int height, int borderValue, int emptyValue) {
+        this(matrix, 0, width, width, height, borderValue, emptyValue);
+
+        if ((long) width * height != matrix.length) {
+            throw new IllegalArgumentException("Matrix length must be width * height");
+        }
+    }
+
+    /**
+     * Constructs a FloodFill instance that works directly on an existing
+     * row-major array of cells, such as the backing array of an image raster.
+     * Cell (x, y) is stored at index {@code offset + y * stride + x}, and no
+     * copy of the array is made, so changes are visible in it immediately.
+     *
+     * @param matrix      the array holding the cells to perform flood fill on
+     * @param offset      the index of the cell at column 0, row 0
+     * @param stride      the distance between two vertically adjacent cells
+     * @param width       the number of columns
+     * @param height      the number of rows
+     * @param borderValue the value that represents border/obstacle cells
+     * @param emptyValue  the value that represents empty cells to be filled
+     * @throws IllegalArgumentException if the dimensions are not positive or
+     *                                  do not fit in the array
+     */
+    public FloodFill(int[] matrix, int offset, int stride, int width, int height, int borderValue,
+                     int emptyValue) {
+        this(matrix, offset, stride, width, height, borderValue, emptyValue, null);
+    }
+
+    /**
+     * Constructs a FloodFill instance that is not pointed at any matrix yet,
+     * for example to be kept in a {@link FloodFillPool}. One of the
+     * {@code reset} methods must be called before filling.
+     *
+     * @param borderValue the value that represents border/obstacle cells
+     * @param emptyValue  the value that represents empty cells to be filled
+     */
+    protected FloodFill(int borderValue, int emptyValue) {
+        this.borderValue = borderValue;
+        this.emptyValue = emptyValue;
+        target(NO_CELLS, 0, 0, 0, 0, null);
+    }
+
+    /**
+     * Constructs a FloodFill instance over a row-major array, optionally
+     * remembering the source the array was copied from.
+     */
+    private FloodFill(int[] matrix, int offset, int stride, int width, int height, int borderValue,
+                      int emptyValue, PixelSource source) {
+        checkDimensions(matrix, offset, stride, width, height);
         this.borderValue = borderValue;
         this.emptyValue = emptyValue;
+        target(matrix, offset, stride, width, height, source);
+        rowBuffer = source != null ? matrix : null;
+    }
+
+    /**
+     * Points this instance at a 2D matrix, like
+     * {@link #FloodFill(int[][], int, int)}. The row-major copy made by a
+     * previous reset or by that constructor is reused when it is large enough.
+     *
+     * @param matrix the 2D integer matrix to perform flood fill on
+     * @throws IllegalArgumentException if matrix is null, empty or not rectangular
+     */
+    public void reset(int[][] matrix) {
+        int[] cells = flatten(matrix, rowBuffer);
+        target(cells, 0, matrix[0].length, matrix[0].length, matrix.length, PixelSource.of(matrix));
+        rowBuffer = cells;
+    }
+
+    /**
+     * Points this instance at a pixel source, like
+     * {@link #FloodFill(PixelSource, int, int)}. The row-major copy made by a
+     * previous reset is reused when it is large enough.
+     *
+     * @param source the source holding the cells to perform flood fill on
+     * @throws IllegalArgumentException if the source has more cells than a Java array can hold
+     */
+    public void reset(PixelSource source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+
+        if (source instanceof PixelSources.ArraySource array) {
+            reset(array.cells(), 0, width, width, height);
+            return;
+        }
+
+        if (source instanceof PixelSources.BufferSource buffer && buffer.cells().hasArray()) {
+            IntBuffer cells = buffer.cells();
+            reset(cells.array(), cells.arrayOffset(), width, width, height);
+            return;
+        }
+
+        if ((long) width * height > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Pixel source of " + width + "x" + height
+                    + " does not fit in an array; fill it with StreamingFloodFill");
+        }
+
+        int[] cells = rowBuffer != null && rowBuffer.length >= width * height ? rowBuffer : new int[width * height];
+        target(cells, 0, width, width, height, source);
+        rowBuffer = cells;
+    }
+
+    /**
+     * Points this instance at a row-major array of cells, like
+     * {@link #FloodFill(int[], int, int, int, int)}.
+     *
+     * @param matrix the array holding the cells to perform flood fill on
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @throws IllegalArgumentException if the dimensions are not positive or
+     *                                  do not match the array length
+     */
+    public void reset(int[] matrix, int width, int height) {
+        if ((long) width * height != matrix.length) {
+            throw new IllegalArgumentException("Matrix length must be width * height");
+        }
+
+        reset(matrix, 0, width, width, height);
+    }
+
+    /**
+     * Points this instance at an existing row-major array of cells, like
+     * {@link #FloodFill(int[], int, int, int, int, int, int)}.
+     * <p>
+     * Whatever matrix it was pointed at before, the instance keeps its
+     * options and the scratch state it has grown: its worklist, visited
+     * mask, label and value buffers, and the bitmask of the packed strategy.
+     * Filling a matrix no larger than the ones filled before allocates
+     * nothing in proportion to its size, except for the region maps and
+     * indexes kept by incremental and indexing executions.
+     *
+     * @param matrix the array holding the cells to perform flood fill on
+     * @param offset the index of the cell at column 0, row 0
+     * @param stride the distance between two vertically adjacent cells
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @throws IllegalArgumentException if the dimensions are not positive or
+     *                                  do not fit in the array
+     */
+    public void reset(int[] matrix, int offset, int stride, int width, int height) {
+        checkDimensions(matrix, offset, stride, width, height);
+        target(matrix, offset, stride, width, height, null);
+    }
+
+    /**
+     * Points this instance at no matrix, so that it no longer keeps the last
+     * one reachable while it sits idle. Its scratch state is kept, and so is
+     * the array the last 2D matrix or pixel source was copied into.
+     */
+    void detach() {
+        target(NO_CELLS, 0, 0, 0, 0, null);
+    }
+
+    /**
+     * Returns the largest number of cells this instance has been pointed at.
+     *
+     * @return the number of cells its scratch state may have grown to hold
+     */
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Checks that a matrix of the given dimensions fits in an array.
+     *
+     * @throws IllegalArgumentException if it does not
+     */
+    private static void checkDimensions(int[] matrix, int offset, int stride, int width, int height) {
+        if (width <= 0 || height <= 0 || stride < width || offset < 0
+                || offset + (long) (height - 1) * stride + width > matrix.length) {
+            throw new IllegalArgumentException("Matrix dimensions do not fit in the given array");
+        }
+    }
+
+    /**
+     * Points this instance at a matrix, dropping everything that describes
+     * the previous one and keeping the scratch state.
+     */
+    private void target(int[] matrix, int offset, int stride, int width, int height, PixelSource source) {
+        if (neighborOffsets == null || stride != this.stride) {
+            neighborOffsets = connectivity.offsets(stride);
+        }
+
+        if (maskNeighborOffsets == null || width != this.width) {
+            maskNeighborOffsets = connectivity.offsets(width);
+        }
+
+        this.matrix = matrix;
+        this.offset = offset;
+        this.stride = stride;
+        this.width = width;
+        this.height = height;
+        this.source = source;
+        capacity = Math.max(capacity, width * height);
+        regionMap = null;
+        regionIndex = null;
+        resetDirtyBounds();
+
+        if (packedRegions != null) {
+            packedRegions.reset(matrix, offset, stride, width, height);
+        }
+
+        if (twoPassLabeler != null) {
+            twoPassLabeler.reset(matrix, offset, stride, width, height);
+        }
+    }
+
+    /**
+     * Copies a 2D matrix into a single row-major array.
+     *
+     * @param matrix the 2D matrix to copy
+     * @param reuse  an array to copy into if it is large enough, or null
+     * @return the row-major copy of the matrix
+     * @throws IllegalArgumentException if matrix is null, empty or not rectangular
+     */
+    private static int[] flatten(int[][] matrix, int[] reuse) {
+        if (matrix == null || matrix.length == 0 || matrix[0] == null || matrix[0].length == 0) {
+            throw new IllegalArgumentException("Matrix must not be null or empty");
+        }
+
+        int width = matrix[0].length;
+        int[] cells = reuse != null && reuse.length >= matrix.length * width ? reuse : new int[matrix.length * width];
+
+        for (int y = 0; y < matrix.length; y++) {
+            if (matrix[y] == null || matrix[y].length != width) {
+                throw new IllegalArgumentException("Matrix must be rectangular");
+            }
+
+            System.arraycopy(matrix[y], 0, cells, y * width, width);
+        }
+
+        return cells;
     }
 
     /**
@@ -58,6 +448,49 @@ public abstract class FloodFill {
      */
     public abstract void onValueChange(int x, int y, int newValue);
 
+    /**
+     * Callback method invoked whenever a horizontal run of cells in the same
+     * row has been filled with a value. This is how the fill engines report
+     * every change: the scanline strategy reports one run per filled span,
+     * while the stack strategy reports runs of a single cell.
+     * <p>
+     * The default implementation calls {@link #onValueChange(int, int, int)}
+     * once for each cell of the run. Subclasses that can process a whole run
+     * at once (e.g. with a bulk copy or a single log entry) should override
+     * this method to avoid the per-cell dispatch.
+     *
+     * @param y             the y-coordinate (row) of the changed cells
+     * @param xStart        the x-coordinate (column) of the first changed cell
+     * @param xEndExclusive the x-coordinate (column) after the last changed cell
+     * @param newValue      the new value assigned to the cells
+     */
+    public void onSpanFilled(int y, int xStart, int xEndExclusive, int newValue) {
+        for (int x = xStart; x < xEndExclusive; x++) {
+            onValueChange(x, y, newValue);
+        }
+    }
+
+    /**
+     * Callback method invoked once a connected region has been completely
+     * filled, with the bounding box of its cells. Only regions whose cells
+     * actually changed are reported, by {@link #fill(int, int, int)},
+     * {@link #refill(int, int, int, int)} (with only the cells it changed) and
+     * the {@link FillStrategy#SCANLINE} and {@link FillStrategy#STACK}
+     * strategies; the labeling and packed strategies paint all regions in a
+     * single pass and only report the union through {@link #getDirtyBounds()}.
+     * <p>
+     * The default implementation does nothing. Subclasses can override it,
+     * for instance, to repaint only the changed area of a display.
+     *
+     * @param x         the column of the leftmost cell of the region
+     * @param y         the row of the topmost cell of the region
+     * @param width     the number of columns of the bounding box
+     * @param height    the number of rows of the bounding box
+     * @param cellCount the number of cells in the region
+     */
+    public void onRegionFilled(int x, int y, int width, int height, int cellCount) {
+    }
+
     /**
      * Generates a new value to be used for filling a connected region.
      * This method is called once per connected region and allows subclasses
@@ -69,115 +502,1402 @@ public abstract class FloodFill {
     public abstract int generateValue();
 
     /**
-     * Executes the flood fill algorithm on the entire matrix.
-     * Scans the matrix row by row, column by column, and fills each
-     * connected region of empty cells with a generated value.
+     * Returns the strategy used to fill each connected region.
+     *
+     * @return the current fill strategy
      */
-    public void execute() {
-        // Scan the entire matrix to find all empty regions
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                // Only process cells that are not borders and are empty
-                if (!isBorder(x, y) && isEmpty(x, y)) {
-                    // Fill the entire connected region starting from this cell
-                    floodFillRegion(x, y, generateValue());
-                }
-            }
-        }
+    public FillStrategy getStrategy() {
+        return strategy;
     }
 
     /**
-     * Performs flood fill on a connected region starting from the given
-     * coordinates. Uses an iterative stack-based approach to avoid stack
-     * overflow issues that can occur with recursive implementations on large regions.
-     * <p>
-     * The algorithm uses a 4-connected neighborhood (up, down, left, right)
-     * and stops when it encounters borders or already-filled cells.
+     * Sets the strategy used to fill each connected region. All strategies
+     * produce the same final matrix, but may report value changes in a
+     * different order.
      *
-     * @param startX   the starting x-coordinate (column)
-     * @param startY   the starting y-coordinate (row)
-     * @param newValue the value to fill the region with
+     * @param strategy the fill strategy to use
+     * @throws NullPointerException if strategy is null
      */
-    private void floodFillRegion(int startX, int startY, int newValue) {
-        // Use a stack to implement iterative flood fill (avoids recursion depth issues)
-        Stack<Point> stack = new Stack<>();
+    public void setStrategy(FillStrategy strategy) {
+        this.strategy = Objects.requireNonNull(strategy, "strategy");
+    }
 
-        // Start with the initial point
-        stack.push(new Point(startX, startY));
+    /**
+     * Returns the neighborhood connecting cells into regions.
+     *
+     * @return the current connectivity
+     */
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
 
-        while (!stack.isEmpty()) {
-            Point current = stack.pop();
-            int x = current.x();
-            int y = current.y();
+    /**
+     * Sets the neighborhood connecting cells into regions, applied by
+     * {@link #execute()}, {@link #fill(int, int, int)} and {@link #label()}.
+     * With {@link Connectivity#FOUR}, the default, every strategy works as
+     * described in {@link FillStrategy}. With any other neighborhood, regions
+     * are traversed cell by cell through a precomputed table of neighbor
+     * offsets: the traversal strategies all fill like
+     * {@link FillStrategy#STACK}, and the labeling strategies label by
+     * traversal instead of with a union-find. Incremental re-fills only
+     * support {@link Connectivity#FOUR}, so no region map is kept otherwise.
+     *
+     * @param connectivity the neighborhood to use
+     * @throws NullPointerException if connectivity is null
+     */
+    public void setConnectivity(Connectivity connectivity) {
+        this.connectivity = Objects.requireNonNull(connectivity, "connectivity");
+        this.neighborOffsets = connectivity.offsets(stride);
+        this.maskNeighborOffsets = connectivity.offsets(width);
+        regionMap = null;
+    }
 
-            // Skip points that are outside the matrix boundaries
-            if (!isWithinBounds(x, y)) {
-                continue;
-            }
+    /**
+     * Returns the largest difference, in any ARGB channel, between a fillable
+     * cell and the reference colour.
+     *
+     * @return the tolerance, 0 if only exact matches are filled
+     */
+    public int getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Sets the largest difference, in any of the four 8-bit ARGB channels,
+     * between a fillable cell and the reference colour, so that fills do not
+     * stop at the speckles of scanned or compressed images. The reference is
+     * the empty value for {@link #execute()} and {@link #refill(int, int, int, int)},
+     * and the seed's value for {@link #fill(int, int, int)}.
+     * <p>
+     * With a tolerance, {@link #execute()} first writes the empty value into
+     * every cell within the tolerance of it, except border cells, comparing
+     * whole rows at a time with the Vector API when the
+     * {@code jdk.incubator.vector} module is available and with a scalar
+     * loop otherwise. Every strategy then fills
+     * exactly as it does without a tolerance. Those cells are not reported as
+     * changed unless their region is filled with a value other than the empty
+     * value.
+     *
+     * @param tolerance the tolerance, from 0 (exact matches, the default) to 255
+     * @throws IllegalArgumentException if tolerance is outside [0, 255]
+     */
+    public void setTolerance(int tolerance) {
+        if (tolerance < 0 || tolerance > 255) {
+            throw new IllegalArgumentException("Tolerance must be between 0 and 255");
+        }
 
-            // Check if this cell has already been processed or is a border
-            boolean alreadyChanged = matrix[y][x] == newValue;
+        this.tolerance = tolerance;
+    }
 
-            if (alreadyChanged || isBorder(x, y)) {
-                continue;
-            }
+    /**
+     * Returns the side of the square tiles labeled independently by the
+     * {@link FillStrategy#PARALLEL} strategy.
+     *
+     * @return the tile size in cells
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
 
-            // Fill this cell with the new value
-            matrix[y][x] = newValue;
+    /**
+     * Sets the side of the square tiles labeled independently by the
+     * {@link FillStrategy#PARALLEL} strategy. Smaller tiles expose more
+     * parallelism but create more seams to merge.
+     *
+     * @param tileSize the tile size in cells
+     * @throws IllegalArgumentException if tileSize is not positive
+     */
+    public void setTileSize(int tileSize) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("Tile size must be positive");
+        }
 
-            // Notify subclass about the value change
-            onValueChange(x, y, newValue);
+        this.tileSize = tileSize;
+    }
 
-            // Add all 4-connected neighbors to the stack for processing
-            // The order doesn't matter as we're using a stack (LIFO)
-            stack.push(new Point(x + 1, y)); // Right
-            stack.push(new Point(x - 1, y)); // Left
-            stack.push(new Point(x, y + 1)); // Down
-            stack.push(new Point(x, y - 1)); // Up
+    /**
+     * Returns the area from which the fill of a single region is recorded as
+     * a {@code br.pucminas.fpaa.floodfill.FillRegion} Flight Recorder event.
+     *
+     * @return the region event threshold in cells
+     */
+    public int getRegionEventThreshold() {
+        return regionEventThreshold;
+    }
+
+    /**
+     * Sets the area from which the fill of a single region is recorded as a
+     * {@code br.pucminas.fpaa.floodfill.FillRegion} Flight Recorder event.
+     * Region events are only emitted by the {@link FillStrategy#SCANLINE} and
+     * {@link FillStrategy#STACK} strategies, which fill one region at a time,
+     * and only while the event is enabled in a recording.
+     *
+     * @param regionEventThreshold the region event threshold in cells
+     * @throws IllegalArgumentException if regionEventThreshold is negative
+     */
+    public void setRegionEventThreshold(int regionEventThreshold) {
+        if (regionEventThreshold < 0) {
+            throw new IllegalArgumentException("Region event threshold must not be negative");
         }
+
+        this.regionEventThreshold = regionEventThreshold;
     }
 
     /**
-     * Checks if the given coordinates are within the matrix boundaries.
+     * Checks if {@link #execute()} collects statistics.
      *
-     * @param x the x-coordinate (column) to check
-     * @param y the y-coordinate (row) to check
-     * @return true if the coordinates are within bounds, false otherwise
+     * @return true if statistics are collected, false otherwise
      */
-    private boolean isWithinBounds(int x, int y) {
-        return x >= 0 && x < width && y >= 0 && y < height;
+    public boolean isStatsEnabled() {
+        return recorder != null;
     }
 
     /**
-     * Checks if the cell at the given coordinates is a border cell.
+     * Turns the collection of statistics by {@link #execute()} on or off.
+     * Collection is off by default, and while it is off the fill engines run
+     * without any counting or timing.
      *
-     * @param x the x-coordinate (column) of the cell
-     * @param y the y-coordinate (row) of the cell
-     * @return true if the cell contains the border value, false otherwise
+     * @param enabled true to collect statistics, false to stop collecting them
      */
-    private boolean isBorder(int x, int y) {
-        return matrix[y][x] == borderValue;
+    public void setStatsEnabled(boolean enabled) {
+        if (enabled == isStatsEnabled()) {
+            return;
+        }
+
+        // The new worklist takes over the array the current one has grown
+        if (enabled) {
+            CountingWorklist counting = new CountingWorklist(worklist);
+            worklist = counting;
+            recorder = new FillStatsRecorder(counting);
+        } else {
+            worklist = new LongWorklist(worklist);
+            recorder = null;
+        }
     }
 
     /**
-     * Checks if the cell at the given coordinates is empty (available for filling).
+     * Checks if the region map is kept between executions.
      *
-     * @param x the x-coordinate (column) of the cell
-     * @param y the y-coordinate (row) of the cell
-     * @return true if the cell contains the empty value, false otherwise
+     * @return true if incremental re-fills are enabled, false otherwise
      */
-    private boolean isEmpty(int x, int y) {
-        return matrix[y][x] == emptyValue;
+    public boolean isIncremental() {
+        return incremental;
     }
 
     /**
-     * Simple record to represent a 2D point with x and y coordinates.
-     * Used internally by the flood fill algorithm to track positions in the stack.
+     * Turns incremental re-fills on or off. While on, every {@link #execute()}
+     * keeps the label map of the regions (one {@code int} per cell), so that
+     * {@link #refill(int, int, int, int)} can later update only the regions
+     * touched by an edit. The {@link FillStrategy#SCANLINE} and
+     * {@link FillStrategy#STACK} strategies record the label of every cell as
+     * they fill it, still one region at a time; the other strategies label the
+     * regions with the labeling algorithm matching the strategy before painting
+     * them. Turning it off discards the map.
      *
-     * @param x the x-coordinate (column)
-     * @param y the y-coordinate (row)
+     * @param incremental true to keep the region map, false to discard it
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+
+        if (!incremental) {
+            regionMap = null;
+        }
+    }
+
+    /**
+     * Checks if executions build a region index.
+     *
+     * @return true if a region index is built, false otherwise
+     */
+    public boolean isIndexing() {
+        return indexing;
+    }
+
+    /**
+     * Turns the region index on or off. While on, every {@link #execute()}
+     * labels the regions, as described in {@link #setIncremental(boolean)},
+     * and builds a {@link RegionIndex} of the result, available through
+     * {@link #getRegionIndex()}. The index costs one {@code int} per cell plus
+     * a small entry per region.
+     *
+     * @param indexing true to build a region index, false to stop building it
+     */
+    public void setIndexing(boolean indexing) {
+        this.indexing = indexing;
+    }
+
+    /**
+     * Returns the region index built by the last execution. It describes the
+     * matrix as that execution left it and is not updated afterwards.
+     *
+     * @return the region index, or null if the last execution did not build one
+     */
+    public RegionIndex getRegionIndex() {
+        return regionIndex;
+    }
+
+    /**
+     * Checks if there is a region map that {@link #refill(int, int, int, int)} can update.
+     *
+     * @return true if incremental re-fills are enabled and the matrix has been executed since
+     *         with {@link Connectivity#FOUR}
+     */
+    public boolean hasRegionMap() {
+        return regionMap != null;
+    }
+
+    /**
+     * Executes the flood fill algorithm on the entire matrix.
+     * Scans the matrix row by row, column by column, and fills each
+     * connected region of empty cells with a generated value.
+     * <p>
+     * Every execution is recorded as a {@code br.pucminas.fpaa.floodfill.FillExecution}
+     * Flight Recorder event while that event is enabled in a recording.
+     *
+     * @return the statistics of this execution, or {@link FillStats#DISABLED}
+     *         if statistics are not enabled
+     */
+    public FillStats execute() {
+        FillExecutionEvent event = new FillExecutionEvent();
+        event.begin();
+
+        FillStatsRecorder recorder = this.recorder;
+
+        if (recorder != null) {
+            recorder.start();
+        }
+
+        resetDirtyBounds();
+        regionMap = null;
+        regionIndex = null;
+        copyRowsToMatrix();
+        snapToEmpty(0, 0, width - 1, height - 1);
+        int regionCount;
+
+        // The cells filled before a callback throws must still reach the caller's 2D matrix or source
+        try {
+            regionCount = fillRegions(recorder);
+        } finally {
+            copyDirtyBoundsToRows();
+        }
+
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.width = width;
+            event.height = height;
+            event.strategy = strategy.name();
+            event.regions = regionCount;
+            event.commit();
+        }
+
+        return recorder != null ? recorder.finish() : FillStats.DISABLED;
+    }
+
+    /**
+     * Fills every region of empty cells with the configured strategy, and
+     * builds the region map and the region index when they are enabled.
+     *
+     * @param recorder the recorder of the filled regions, or null if statistics are disabled
+     * @return the number of regions filled
+     */
+    private int fillRegions(FillStatsRecorder recorder) {
+        int regionCount;
+        // The region map and the region index take ownership of their labels and values
+        boolean mapped = incremental || indexing;
+        int[] labels = mapped ? new int[width * height] : null;
+        int[] values = null;
+
+        if (strategy == FillStrategy.PARALLEL || strategy == FillStrategy.TWO_PASS
+                || (mapped && strategy == FillStrategy.PACKED)) {
+            labels = mapped ? labels : labelBuffer();
+            regionCount = labelRegions(labels);
+            values = mapped ? new int[regionCount + 1] : valueBuffer(regionCount + 1);
+
+            if (recorder == null) {
+                paintRegions(labels, regionCount, values);
+            } else {
+                long start = System.nanoTime();
+                paintRegions(labels, regionCount, values);
+                recorder.regionsPainted(labels, width * height, regionCount, System.nanoTime() - start);
+            }
+        } else if (strategy == FillStrategy.PACKED && connectivity.isFour()) {
+            regionCount = packedFill(recorder);
+        } else {
+            // The traversal strategies still fill, and report, one region at a time
+            // while they record the label of every cell for the map and the index
+            regionCount = scanAndFill(recorder, labels);
+
+            if (mapped) {
+                values = Arrays.copyOf(this.values, regionCount + 1);
+            }
+        }
+
+        if (indexing) {
+            regionIndex = new RegionIndex(width, height, incremental ? labels.clone() : labels, regionCount, values);
+        }
+
+        if (incremental && connectivity.isFour()) {
+            regionMap = new RegionMap(matrix, offset, stride, width, height, emptyValue, labels, regionCount, values);
+        }
+
+        return regionCount;
+    }
+
+    /**
+     * Returns the bounding box of the cells changed by the last call to
+     * {@link #execute()}, {@link #fill(int, int, int)} or
+     * {@link #refill(int, int, int, int)}, so a display only
+     * needs to repaint that rectangle.
+     *
+     * @return the number of cells changed and their bounding box, which is
+     *         empty if nothing changed
+     */
+    public FilledRegion getDirtyBounds() {
+        if (dirtyMaxX < dirtyMinX) {
+            return new FilledRegion(0, 0, 0, 0, 0);
+        }
+
+        return new FilledRegion(dirtyMinX, dirtyMinY, dirtyMaxX - dirtyMinX + 1, dirtyMaxY - dirtyMinY + 1,
+                dirtyCells);
+    }
+
+    /**
+     * Fills the single region under the given seed, like a paint bucket. The
+     * region is made of the cells connected to the seed (see
+     * {@link #setConnectivity(Connectivity)}) holding the same value as the
+     * seed, whether they are empty or were already filled, so only that region
+     * is visited and the cost is proportional to its size. Changes are
+     * reported through {@link #onSpanFilled(int, int, int, int)} and
+     * {@link #onRegionFilled(int, int, int, int, int)}.
+     * <p>
+     * Nothing changes if the seed is a border cell or already holds the value.
+     *
+     * @param x     the x-coordinate (column) of the seed
+     * @param y     the y-coordinate (row) of the seed
+     * @param value the value to fill the region with
+     * @return the number of cells changed and their bounding box
+     * @throws IllegalArgumentException if the seed is outside the matrix
+     */
+    public FilledRegion fill(int x, int y, int value) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IllegalArgumentException("Seed must be inside the matrix");
+        }
+
+        copyRowsToMatrix();
+        int target = matrix[index(x, y)];
+        resetDirtyBounds();
+
+        if (target == borderValue || target == value) {
+            return new FilledRegion(x, y, 0, 0, 0);
+        }
+
+        if (tolerance > 0) {
+            fillWithinTolerance(x, y, target, value);
+        } else if (connectivity.isFour()) {
+            fillSpans(x, y, target, value);
+        } else {
+            fillNeighbors(x, y, target, value);
+        }
+
+        if (regionMap != null) {
+            updateRegionValues(value);
+        }
+
+        copyDirtyBoundsToRows();
+
+        return getDirtyBounds();
+    }
+
+    /**
+     * Gives the new value to every label of the region map whose cells
+     * {@link #fill(int, int, int)} changed. A fill within a tolerance, or
+     * through cells outside any region, can reach other labels than the
+     * seed's, but a filled label keeps all its cells, so it only needs its
+     * new value. A labeled cell that holds the value while its label does not
+     * was changed by the fill.
+     *
+     * @param value the value the cells were filled with
+     */
+    private void updateRegionValues(int value) {
+        for (int y = dirtyMinY; y <= dirtyMaxY; y++) {
+            int row = index(0, y);
+
+            for (int x = dirtyMinX; x <= dirtyMaxX; x++) {
+                int label = regionMap.label(y * width + x);
+
+                if (label != 0 && matrix[row + x] == value && regionMap.value(label) != value) {
+                    regionMap.setValue(label, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills the 4-connected region of cells holding the target value around
+     * a seed, one horizontal span at a time, for {@link #fill(int, int, int)}.
+     *
+     * @param x      the x-coordinate (column) of the seed
+     * @param y      the y-coordinate (row) of the seed
+     * @param target the value of the cells being filled
+     * @param value  the value to fill the region with, different from the target
+     */
+    private void fillSpans(int x, int y, int target, int value) {
+        // Filled cells no longer hold the target, so they need no claimed mask
+        LongWorklist stack = worklist;
+        stack.clear();
+        stack.push(x, y);
+
+        int minX = x, maxX = x, minY = y, maxY = y;
+        int cells = 0;
+
+        while (!stack.isEmpty()) {
+            long current = stack.pop();
+            int spanY = LongWorklist.y(current);
+            int row = index(0, spanY);
+            int spanX = LongWorklist.x(current);
+
+            if (matrix[row + spanX] != target) {
+                continue;
+            }
+
+            int left = spanX;
+            while (left > 0 && matrix[row + left - 1] == target) {
+                left--;
+            }
+
+            int right = spanX + 1;
+            while (right < width && matrix[row + right] == target) {
+                right++;
+            }
+
+            Arrays.fill(matrix, row + left, row + right, value);
+            onSpanFilled(spanY, left, right, value);
+
+            cells += right - left;
+            minX = Math.min(minX, left);
+            maxX = Math.max(maxX, right - 1);
+            minY = Math.min(minY, spanY);
+            maxY = Math.max(maxY, spanY);
+
+            if (spanY > 0) {
+                pushTargetSeeds(stack, left, right, spanY - 1, target);
+            }
+
+            if (spanY + 1 < height) {
+                pushTargetSeeds(stack, left, right, spanY + 1, target);
+            }
+        }
+
+        regionChanged(minX, minY, maxX, maxY, cells);
+    }
+
+    /**
+     * Fills the region of cells within the tolerance of the target value
+     * around a seed under the configured {@link Connectivity}, for
+     * {@link #fill(int, int, int)}. A filled cell may still be within the
+     * tolerance, so cells are claimed in the claimed mask as they are pushed.
+     *
+     * @param x      the x-coordinate (column) of the seed
+     * @param y      the y-coordinate (row) of the seed
+     * @param target the value of the seed
+     * @param value  the value to fill the region with, different from the target
+     */
+    private void fillWithinTolerance(int x, int y, int target, int value) {
+        int[] dx = connectivity.dx;
+        int[] dy = connectivity.dy;
+        int radius = connectivity.radius;
+        int[] offsets = neighborOffsets;
+        int[] maskOffsets = maskNeighborOffsets;
+
+        claimed.reset(width * height);
+        LongWorklist stack = worklist;
+        stack.clear();
+        claimed.set(y * width + x);
+        stack.push(x, y);
+
+        int minX = x, maxX = x, minY = y, maxY = y;
+        int cells = 0;
+
+        while (!stack.isEmpty()) {
+            long current = stack.pop();
+            int cx = LongWorklist.x(current);
+            int cy = LongWorklist.y(current);
+            int i = index(cx, cy);
+            int j = cy * width + cx;
+
+            // Cells already holding the value are part of the region but do not change
+            if (matrix[i] != value) {
+                matrix[i] = value;
+                onSpanFilled(cy, cx, cx + 1, value);
+                cells++;
+                minX = Math.min(minX, cx);
+                maxX = Math.max(maxX, cx);
+                minY = Math.min(minY, cy);
+                maxY = Math.max(maxY, cy);
+            }
+
+            boolean interior = cx >= radius && cx < width - radius && cy >= radius && cy < height - radius;
+
+            for (int k = 0; k < offsets.length; k++) {
+                int nx = cx + dx[k];
+                int ny = cy + dy[k];
+
+                if (!interior && (nx < 0 || nx >= width || ny < 0 || ny >= height)) {
+                    continue;
+                }
+
+                int nj = j + maskOffsets[k];
+
+                int neighbor = matrix[i + offsets[k]];
+
+                // A border stops the fill even within the tolerance of the target
+                if (!claimed.get(nj) && neighbor != borderValue
+                        && CellComparisons.within(neighbor, target, tolerance)) {
+                    claimed.set(nj);
+                    stack.push(nx, ny);
+                }
+            }
+        }
+
+        regionChanged(minX, minY, maxX, maxY, cells);
+    }
+
+    /**
+     * Fills the region of cells holding the target value around a seed under
+     * the configured {@link Connectivity}, one cell at a time, for
+     * {@link #fill(int, int, int)}. Cells are filled as they are pushed, so
+     * they no longer hold the target and need no claimed mask.
+     *
+     * @param x      the x-coordinate (column) of the seed
+     * @param y      the y-coordinate (row) of the seed
+     * @param target the value of the cells being filled
+     * @param value  the value to fill the region with, different from the target
+     */
+    private void fillNeighbors(int x, int y, int target, int value) {
+        int[] dx = connectivity.dx;
+        int[] dy = connectivity.dy;
+        int radius = connectivity.radius;
+        int[] offsets = neighborOffsets;
+
+        LongWorklist stack = worklist;
+        stack.clear();
+        matrix[index(x, y)] = value;
+        stack.push(x, y);
+
+        int minX = x, maxX = x, minY = y, maxY = y;
+        int cells = 0;
+
+        while (!stack.isEmpty()) {
+            long current = stack.pop();
+            int cx = LongWorklist.x(current);
+            int cy = LongWorklist.y(current);
+            int i = index(cx, cy);
+            onSpanFilled(cy, cx, cx + 1, value);
+
+            cells++;
+            minX = Math.min(minX, cx);
+            maxX = Math.max(maxX, cx);
+            minY = Math.min(minY, cy);
+            maxY = Math.max(maxY, cy);
+
+            boolean interior = cx >= radius && cx < width - radius && cy >= radius && cy < height - radius;
+
+            for (int k = 0; k < offsets.length; k++) {
+                int nx = cx + dx[k];
+                int ny = cy + dy[k];
+
+                if (!interior && (nx < 0 || nx >= width || ny < 0 || ny >= height)) {
+                    continue;
+                }
+
+                if (matrix[i + offsets[k]] == target) {
+                    matrix[i + offsets[k]] = value;
+                    stack.push(nx, ny);
+                }
+            }
+        }
+
+        regionChanged(minX, minY, maxX, maxY, cells);
+    }
+
+    /**
+     * Re-fills the matrix after an edit confined to the given rectangle,
+     * updating only the regions that touch it instead of executing again.
+     * Regions cut by the edit are split, and the pieces that lose their
+     * region's label are filled with generated values; regions joined by the
+     * edit are merged into the one they share the most cells with, and empty
+     * cells uncovered by the edit join the region around them. Every region
+     * that does not touch the edit keeps its value, and the cost is
+     * proportional to the size of the regions touched.
+     * <p>
+     * Requires a region map, kept by {@link #execute()} while incremental
+     * re-fills are enabled. The edit must not have changed any cell outside
+     * the rectangle. If a callback throws, the region map is discarded.
+     *
+     * @param x      the column of the edited rectangle
+     * @param y      the row of the edited rectangle
+     * @param width  the number of columns of the edited rectangle
+     * @param height the number of rows of the edited rectangle
+     * @return the number of cells changed and their bounding box
+     * @throws IllegalStateException if there is no region map
+     * @see #setIncremental(boolean)
+     */
+    public FilledRegion refill(int x, int y, int width, int height) {
+        if (regionMap == null) {
+            throw new IllegalStateException("Refill requires an execution with incremental re-fills enabled");
+        }
+
+        resetDirtyBounds();
+
+        // Clip the edited rectangle to the matrix
+        int minX = Math.max(x, 0);
+        int minY = Math.max(y, 0);
+        int maxX = Math.min(x + width, this.width) - 1;
+        int maxY = Math.min(y + height, this.height) - 1;
+
+        if (maxX < minX || maxY < minY) {
+            return getDirtyBounds();
+        }
+
+        // Nothing can be filled, so the region map, which is empty, stays as it is
+        if (borderValue == emptyValue) {
+            return getDirtyBounds();
+        }
+
+        RegionMap map = regionMap;
+        regionMap = null;
+
+        // Bring the edit into the matrix when it was made on a copy
+        if (source != null) {
+            source.readRect(minX, minY, maxX - minX + 1, maxY - minY + 1, matrix, index(minX, minY), stride);
+        }
+
+        refresh(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        snapToEmpty(minX, minY, maxX, maxY);
+
+        for (RegionMap.Component component : map.relabel(minX, minY, maxX, maxY)) {
+            if (component.isNew) {
+                map.setValue(component.label, generateValue());
+            }
+
+            repaintComponent(component.cells, map.value(component.label));
+        }
+
+        copyDirtyBoundsToRows();
+        regionMap = map;
+
+        return getDirtyBounds();
+    }
+
+    /**
+     * Writes the empty value into every cell of the rectangle from
+     * {@code (minX, minY)} to {@code (maxX, maxY)} (inclusive) that is within
+     * the tolerance of it, one row at a time, leaving border cells as they
+     * are. Does nothing without a tolerance.
+     */
+    private void snapToEmpty(int minX, int minY, int maxX, int maxY) {
+        if (tolerance == 0) {
+            return;
+        }
+
+        for (int y = minY; y <= maxY; y++) {
+            CellComparisons.snap(matrix, index(minX, y), index(maxX + 1, y), emptyValue, tolerance, borderValue);
+        }
+
+        // Snapped cells are not part of the dirty bounds unless their region is filled
+        if (source != null) {
+            source.writeRect(minX, minY, maxX - minX + 1, maxY - minY + 1, matrix, index(minX, minY), stride);
+        }
+    }
+
+    /**
+     * Hook invoked by {@link #refill(int, int, int, int)} before reading the
+     * edited rectangle, for subclasses whose cells mirror another source
+     * (such as an image) to bring that rectangle up to date. The default
+     * implementation does nothing.
+     *
+     * @param x      the column of the edited rectangle
+     * @param y      the row of the edited rectangle
+     * @param width  the number of columns of the edited rectangle
+     * @param height the number of rows of the edited rectangle
+     */
+    protected void refresh(int x, int y, int width, int height) {
+    }
+
+    /**
+     * Writes a value into the cells of a relabeled component that do not
+     * hold it yet, reporting each horizontal run of changed cells.
+     *
+     * @param cells the cells of the component ({@code y * width + x}), in ascending order
+     * @param value the value of the component's region
+     */
+    private void repaintComponent(int[] cells, int value) {
+        int changed = 0;
+        int minX = Integer.MAX_VALUE, maxX = -1, minY = Integer.MAX_VALUE, maxY = -1;
+        int k = 0;
+
+        while (k < cells.length) {
+            int y = cells[k] / width;
+            int x = cells[k] % width;
+
+            if (matrix[index(x, y)] == value) {
+                k++;
+                continue;
+            }
+
+            // Extend the run while the next cell is adjacent in the same row and needs the value
+            int start = x;
+            do {
+                k++;
+                x++;
+            } while (k < cells.length && x < width && cells[k] == y * width + x && matrix[index(x, y)] != value);
+
+            Arrays.fill(matrix, index(start, y), index(x, y), value);
+            onSpanFilled(y, start, x, value);
+            addDirtyBounds(start, y, x - 1, y, x - start);
+
+            changed += x - start;
+            minX = Math.min(minX, start);
+            maxX = Math.max(maxX, x - 1);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+
+        if (changed > 0) {
+            onRegionFilled(minX, minY, maxX - minX + 1, maxY - minY + 1, changed);
+        }
+    }
+
+    /**
+     * Forgets the cells changed by the previous execution or single fill.
+     */
+    private void resetDirtyBounds() {
+        dirtyMinX = Integer.MAX_VALUE;
+        dirtyMinY = Integer.MAX_VALUE;
+        dirtyMaxX = -1;
+        dirtyMaxY = -1;
+        dirtyCells = 0;
+    }
+
+    /**
+     * Adds a rectangle of changed cells to the dirty bounds.
+     *
+     * @param minX  the column of the leftmost changed cell
+     * @param minY  the row of the topmost changed cell
+     * @param maxX  the column of the rightmost changed cell
+     * @param maxY  the row of the bottommost changed cell
+     * @param cells the number of cells changed inside the rectangle
+     */
+    private void addDirtyBounds(int minX, int minY, int maxX, int maxY, int cells) {
+        dirtyMinX = Math.min(dirtyMinX, minX);
+        dirtyMinY = Math.min(dirtyMinY, minY);
+        dirtyMaxX = Math.max(dirtyMaxX, maxX);
+        dirtyMaxY = Math.max(dirtyMaxY, maxY);
+        dirtyCells += cells;
+    }
+
+    /**
+     * Records a region whose cells changed and reports it through
+     * {@link #onRegionFilled(int, int, int, int, int)}.
+     *
+     * @param minX  the column of the leftmost cell of the region
+     * @param minY  the row of the topmost cell of the region
+     * @param maxX  the column of the rightmost cell of the region
+     * @param maxY  the row of the bottommost cell of the region
+     * @param cells the number of cells in the region
+     */
+    private void regionChanged(int minX, int minY, int maxX, int maxY, int cells) {
+        addDirtyBounds(minX, minY, maxX, maxY, cells);
+        onRegionFilled(minX, minY, maxX - minX + 1, maxY - minY + 1, cells);
+    }
+
+    /**
+     * Brings the row-major copy up to date with the caller's 2D matrix or
+     * pixel source, if there is one, so that edits made to it since the last
+     * fill are seen.
+     */
+    private void copyRowsToMatrix() {
+        if (source == null) {
+            return;
+        }
+
+        source.readRect(0, 0, width, height, matrix, offset, stride);
+    }
+
+    /**
+     * Propagates the changed rectangle to the caller's 2D matrix or pixel
+     * source, if there is one.
+     */
+    private void copyDirtyBoundsToRows() {
+        if (source == null || dirtyMaxY < dirtyMinY) {
+            return;
+        }
+
+        source.writeRect(dirtyMinX, dirtyMinY, dirtyMaxX - dirtyMinX + 1, dirtyMaxY - dirtyMinY + 1, matrix,
+                index(dirtyMinX, dirtyMinY), stride);
+    }
+
+    /**
+     * Labels the regions of empty cells without modifying the matrix. Regions
+     * are numbered from 1 in the order a row-by-row scan finds their first
+     * cell, which is also the order in which {@link #execute()} generates
+     * their values. The {@link FillStrategy#PARALLEL} strategy labels tiles in
+     * parallel; any other strategy uses a sequential two-pass labeling, and
+     * neighborhoods other than {@link Connectivity#FOUR} are labeled by
+     * traversing each region.
+     * <p>
+     * With a {@link #setTolerance(int) tolerance}, the cells within it are
+     * first set to the empty value, as {@link #execute()} does, so both find
+     * the same regions; without one, the matrix is not modified.
+     *
+     * @return the label map of the matrix, which is not reused by this instance
+     */
+    public RegionLabels label() {
+        int[] labels = new int[width * height];
+        return new RegionLabels(width, height, label(labels), labels);
+    }
+
+    /**
+     * Labels the regions of empty cells into the given array like
+     * {@link #label()}, for callers that keep their own label buffers.
+     *
+     * @param labels the array receiving the labels, with at least width * height elements
+     * @return the number of regions found
+     */
+    int label(int[] labels) {
+        copyRowsToMatrix();
+        snapToEmpty(0, 0, width - 1, height - 1);
+        return labelRegions(labels);
+    }
+
+    /**
+     * Labels the regions of empty cells into the given array with the
+     * labeling algorithm matching the configured strategy.
+     *
+     * @param labels the array receiving the labels, with at least width * height elements
+     * @return the number of regions found
+     */
+    int labelRegions(int[] labels) {
+        // A border cell is never empty, unless both values are the same and nothing can be filled
+        if (borderValue == emptyValue) {
+            Arrays.fill(labels, 0, width * height, 0);
+            return 0;
+        }
+
+        if (!connectivity.isFour()) {
+            return new NeighborhoodLabeler(matrix, offset, stride, width, height, emptyValue, connectivity)
+                    .label(labels);
+        }
+
+        if (strategy == FillStrategy.PARALLEL) {
+            return new ParallelLabeler(matrix, offset, stride, width, height, emptyValue, tileSize,
+                    ForkJoinPool.commonPool()).label(labels);
+        }
+
+        if (twoPassLabeler == null) {
+            twoPassLabeler = new TwoPassLabeler(matrix, offset, stride, width, height, emptyValue);
+        }
+
+        return twoPassLabeler.label(labels);
+    }
+
+    /**
+     * Scans the matrix row by row and fills every region of empty cells as
+     * soon as its first cell is found. When labels are recorded, regions are
+     * numbered from 1 in the order they are found, as {@link #label()} numbers
+     * them, and the value of each one is kept in the value buffer.
+     *
+     * @param recorder the recorder of the filled regions, or null if statistics are disabled
+     * @param labels   the array receiving the region number of every filled cell, or null
+     * @return the number of regions filled
+     */
+    private int scanAndFill(FillStatsRecorder recorder, int[] labels) {
+        claimed.reset(width * height);
+
+        // A border cell is never empty, unless both values are the same and nothing can be filled
+        if (borderValue == emptyValue) {
+            return 0;
+        }
+
+        // Regions are only measured one by one when someone is listening
+        boolean measured = recorder != null || new FillRegionEvent().isEnabled();
+        int regionCount = 0;
+
+        // Scan the entire matrix to find all empty regions, skipping ahead to the
+        // next empty cell a whole vector of cells at a time where possible
+        for (int y = 0; y < height; y++) {
+            int row = index(0, y);
+            int end = row + width;
+            int maskRow = y * width;
+            int i = row;
+
+            while ((i = CellComparisons.indexOf(matrix, i, end, emptyValue)) < end) {
+                int x = i - row;
+
+                // Only process empty cells that were not claimed by a region yet
+                if (!claimed.get(maskRow + x)) {
+                    // Fill the entire connected region starting from this cell
+                    int value = generateValue();
+                    regionCount++;
+
+                    if (labels != null) {
+                        valueBuffer(regionCount + 1)[regionCount] = value;
+                    }
+
+                    if (measured) {
+                        fillMeasuredRegion(x, y, value, labels, regionCount, recorder);
+                    } else {
+                        fillRegion(x, y, value, labels, regionCount);
+                    }
+                }
+
+                i++;
+            }
+        }
+
+        return regionCount;
+    }
+
+    /**
+     * Fills every region of empty cells with the {@link FillStrategy#PACKED}
+     * strategy: regions are claimed on a bitmask of the empty cells, in the
+     * order a row-by-row scan finds them, and their values are written
+     * afterwards in a single pass, row by row.
+     *
+     * @param recorder the recorder of the filled regions, or null if statistics are disabled
+     * @return the number of regions filled
+     */
+    private int packedFill(FillStatsRecorder recorder) {
+        // A border cell is never empty, unless both values are the same and nothing can be filled
+        if (borderValue == emptyValue) {
+            return 0;
+        }
+
+        if (packedRegions == null) {
+            packedRegions = new PackedRegions(matrix, offset, stride, width, height, emptyValue);
+        }
+
+        PackedRegions packed = packedRegions;
+        packed.pack();
+        int regionCount = 0;
+        long seed;
+
+        while ((seed = packed.nextSeed()) >= 0) {
+            int value = generateValue();
+            long start = recorder != null ? System.nanoTime() : 0;
+            int cells = packed.claimRegion(worklist, LongWorklist.x(seed), LongWorklist.y(seed), value);
+
+            if (recorder != null) {
+                recorder.regionFilled(cells, System.nanoTime() - start);
+            }
+
+            regionCount++;
+        }
+
+        long start = recorder != null ? System.nanoTime() : 0;
+        packed.sortSpans();
+
+        for (int span = 0, spanCount = packed.spanCount(); span < spanCount; span++) {
+            // Filling with the empty value changes nothing, so nothing is reported
+            int value = packed.spanValue(span);
+
+            if (value != emptyValue) {
+                int y = packed.spanY(span);
+                int left = packed.spanLeft(span);
+                int right = packed.spanRight(span);
+                Arrays.fill(matrix, index(left, y), index(right, y), value);
+                onSpanFilled(y, left, right, value);
+                addDirtyBounds(left, y, right - 1, y, right - left);
+            }
+        }
+
+        if (recorder != null) {
+            recorder.spansWritten(System.nanoTime() - start);
+        }
+
+        return regionCount;
+    }
+
+    /**
+     * Fills the connected region starting from the given coordinates like
+     * {@link #fillRegion(int, int, int, int[], int)}, timing it for the
+     * statistics and for the Flight Recorder region event.
+     *
+     * @param startX   the starting x-coordinate (column)
+     * @param startY   the starting y-coordinate (row)
+     * @param newValue the value to fill the region with
+     * @param labels   the array receiving the region number of every filled cell, or null
+     * @param label    the region number of the region
+     * @param recorder the recorder of the filled regions, or null if statistics are disabled
+     */
+    private void fillMeasuredRegion(int startX, int startY, int newValue, int[] labels, int label,
+                                    FillStatsRecorder recorder) {
+        FillRegionEvent event = new FillRegionEvent();
+        event.begin();
+        long start = System.nanoTime();
+
+        int cells = fillRegion(startX, startY, newValue, labels, label);
+
+        long nanos = System.nanoTime() - start;
+        event.end();
+
+        if (recorder != null) {
+            recorder.regionFilled(cells, nanos);
+        }
+
+        if (cells >= regionEventThreshold && event.shouldCommit()) {
+            event.seedX = startX;
+            event.seedY = startY;
+            event.area = cells;
+            event.strategy = strategy.name();
+            event.commit();
+        }
+    }
+
+    /**
+     * Fills every labeled region with a generated value. Values are generated
+     * in region order and each horizontal run of a region is written and
+     * reported at once, on the calling thread.
+     *
+     * @param labels      the region number of every cell, or 0 for cells outside any region
+     * @param regionCount the number of regions
+     * @param values      the array receiving the value of every region, indexed by region number
+     */
+    private void paintRegions(int[] labels, int regionCount, int[] values) {
+        for (int region = 1; region <= regionCount; region++) {
+            values[region] = generateValue();
+        }
+
+        for (int y = 0; y < height; y++) {
+            int row = index(0, y);
+            int labelRow = y * width;
+            int x = 0;
+
+            while (x < width) {
+                int region = labels[labelRow + x];
+
+                if (region == 0) {
+                    x++;
+                    continue;
+                }
+
+                int start = x;
+                while (x < width && labels[labelRow + x] == region) {
+                    x++;
+                }
+
+                // Filling with the empty value changes nothing, so nothing is reported
+                int value = values[region];
+                if (value != emptyValue) {
+                    Arrays.fill(matrix, row + start, row + x, value);
+                    onSpanFilled(y, start, x, value);
+                    addDirtyBounds(start, y, x - 1, y, x - start);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the label buffer, growing it to hold one label per cell if needed.
+     *
+     * @return an array with at least width * height elements
+     */
+    private int[] labelBuffer() {
+        if (labels.length < width * height) {
+            labels = new int[width * height];
+        }
+
+        return labels;
+    }
+
+    /**
+     * Returns the value buffer, growing it to hold the given number of values
+     * if needed. Growing keeps the values already stored, so the buffer can be
+     * filled one region at a time.
+     *
+     * @param length the number of values needed
+     * @return an array with at least {@code length} elements
+     */
+    private int[] valueBuffer(int length) {
+        if (values.length < length) {
+            values = Arrays.copyOf(values, Math.max(length, values.length << 1));
+        }
+
+        return values;
+    }
+
+    /**
+     * Fills the connected region starting from the given coordinates using
+     * the configured {@link FillStrategy}.
+     *
+     * @param startX   the starting x-coordinate (column)
+     * @param startY   the starting y-coordinate (row)
+     * @param newValue the value to fill the region with
+     * @param labels   the array receiving the region number of every filled cell, or null
+     * @param label    the region number of the region
+     * @return the number of cells in the region
+     */
+    private int fillRegion(int startX, int startY, int newValue, int[] labels, int label) {
+        if (!connectivity.isFour()) {
+            return floodFillRegion(startX, startY, newValue, labels, label);
+        }
+
+        return switch (strategy) {
+            case STACK -> floodFillRegion(startX, startY, newValue, labels, label);
+            case SCANLINE, PARALLEL, TWO_PASS, PACKED -> scanlineFillRegion(startX, startY, newValue, labels, label);
+        };
+    }
+
+    /**
+     * Performs flood fill on a connected region starting from the given
+     * coordinates. Uses an iterative stack-based approach to avoid stack
+     * overflow issues that can occur with recursive implementations on large regions.
+     * The stack is a primitive worklist of packed coordinates, so the loop does
+     * not allocate once the worklist has grown to the size of the region.
+     * <p>
+     * The algorithm spreads through the configured {@link Connectivity}
+     * (by default the 4-connected neighborhood: up, down, left, right) and
+     * only into empty cells that no region has claimed yet. Neighbors are
+     * reached through precomputed flat index offsets, and cells farther from
+     * the edges than the neighborhood's radius skip the bounds checks
+     * altogether. Neighbors are claimed as they are pushed, so every cell of
+     * the region is pushed exactly once.
+     *
+     * @param startX   the starting x-coordinate (column)
+     * @param startY   the starting y-coordinate (row)
+     * @param newValue the value to fill the region with
+     * @param labels   the array receiving the region number of every filled cell, or null
+     * @param label    the region number of the region
+     * @return the number of cells in the region
+     */
+    private int floodFillRegion(int startX, int startY, int newValue, int[] labels, int label) {
+        // Filling with the empty value changes nothing, but the region must still be claimed
+        boolean changes = newValue != emptyValue;
+
+        int[] dx = connectivity.dx;
+        int[] dy = connectivity.dy;
+        int radius = connectivity.radius;
+        int[] offsets = neighborOffsets;
+        int[] maskOffsets = maskNeighborOffsets;
+
+        // Use an explicit worklist to implement iterative flood fill (avoids recursion depth issues)
+        LongWorklist stack = worklist;
+        stack.clear();
+
+        // Start with the initial point
+        claimed.set(startY * width + startX);
+        stack.push(startX, startY);
+        int cells = 0;
+        int minX = startX, maxX = startX, minY = startY, maxY = startY;
+
+        while (!stack.isEmpty()) {
+            long current = stack.pop();
+            int x = LongWorklist.x(current);
+            int y = LongWorklist.y(current);
+            int i = index(x, y);
+            int j = y * width + x;
+            cells++;
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+
+            // Fill this cell with the new value and notify subclass about the change
+            if (changes) {
+                matrix[i] = newValue;
+                onSpanFilled(y, x, x + 1, newValue);
+            }
+
+            if (labels != null) {
+                labels[j] = label;
+            }
+
+            // Every neighbor of an interior cell is inside the matrix
+            boolean interior = x >= radius && x < width - radius && y >= radius && y < height - radius;
+
+            // Claim and add all fillable neighbors within the matrix to the worklist
+            // The order doesn't matter as we're using a stack (LIFO)
+            for (int k = 0; k < offsets.length; k++) {
+                int nx = x + dx[k];
+                int ny = y + dy[k];
+
+                if (!interior && (nx < 0 || nx >= width || ny < 0 || ny >= height)) {
+                    continue;
+                }
+
+                if (isFillable(i + offsets[k], j + maskOffsets[k])) {
+                    claimed.set(j + maskOffsets[k]);
+                    stack.push(nx, ny);
+                }
+            }
+        }
+
+        if (changes) {
+            regionChanged(minX, minY, maxX, maxY, cells);
+        }
+
+        return cells;
+    }
+
+    /**
+     * Performs a scanline flood fill on a connected region starting from the
+     * given coordinates. Each popped seed is extended to the left and to the
+     * right into a maximal horizontal span, the whole span is claimed and
+     * filled at once, and a single seed is pushed for every run of fillable
+     * cells found directly above and below the span.
+     * <p>
+     * A cell is fillable under the same rule used by
+     * {@link #floodFillRegion(int, int, int, int[], int)}: it is empty and not
+     * claimed by any region yet, so both strategies fill exactly the same cells.
+     *
+     * @param startX   the starting x-coordinate (column)
+     * @param startY   the starting y-coordinate (row)
+     * @param newValue the value to fill the region with
+     * @param labels   the array receiving the region number of every filled cell, or null
+     * @param label    the region number of the region
+     * @return the number of cells in the region
+     */
+    private int scanlineFillRegion(int startX, int startY, int newValue, int[] labels, int label) {
+        // Filling with the empty value changes nothing, but the region must still be claimed
+        boolean changes = newValue != emptyValue;
+
+        LongWorklist stack = worklist;
+        stack.clear();
+        stack.push(startX, startY);
+        int cells = 0;
+        int minX = startX, maxX = startX, minY = startY, maxY = startY;
+
+        while (!stack.isEmpty()) {
+            long current = stack.pop();
+            int y = LongWorklist.y(current);
+            int row = index(0, y);
+            int maskRow = y * width;
+            int x = LongWorklist.x(current);
+
+            // The seed may have been claimed by another span since it was pushed
+            if (!isFillable(row + x, maskRow + x)) {
+                continue;
+            }
+
+            // Extend the span as far as possible in both directions
+            int left = x;
+            while (left > 0 && isFillable(row + left - 1, maskRow + left - 1)) {
+                left--;
+            }
+
+            int right = x + 1;
+            while (right < width && isFillable(row + right, maskRow + right)) {
+                right++;
+            }
+
+            // Claim and fill the whole span [left, right) and report it at once
+            claimed.set(maskRow + left, maskRow + right);
+            cells += right - left;
+            minX = Math.min(minX, left);
+            maxX = Math.max(maxX, right - 1);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+
+            if (changes) {
+                Arrays.fill(matrix, row + left, row + right, newValue);
+                onSpanFilled(y, left, right, newValue);
+            }
+
+            if (labels != null) {
+                Arrays.fill(labels, maskRow + left, maskRow + right, label);
+            }
+
+            // Seed the runs touching the span in the neighboring rows
+            if (y > 0) {
+                pushSpanSeeds(stack, left, right, y - 1);
+            }
+
+            if (y + 1 < height) {
+                pushSpanSeeds(stack, left, right, y + 1);
+            }
+        }
+
+        if (changes) {
+            regionChanged(minX, minY, maxX, maxY, cells);
+        }
+
+        return cells;
+    }
+
+    /**
+     * Pushes one seed for every run of fillable cells in row {@code y}
+     * between columns {@code left} (inclusive) and {@code right} (exclusive).
+     *
+     * @param stack the worklist receiving the seeds
+     * @param left  the first column to inspect
+     * @param right the column after the last one to inspect
+     * @param y     the row to inspect
+     */
+    private void pushSpanSeeds(LongWorklist stack, int left, int right, int y) {
+        int row = index(0, y);
+        int maskRow = y * width;
+        boolean inRun = false;
+
+        for (int x = left; x < right; x++) {
+            if (isFillable(row + x, maskRow + x)) {
+                if (!inRun) {
+                    stack.push(x, y);
+                    inRun = true;
+                }
+            } else {
+                inRun = false;
+            }
+        }
+    }
+
+    /**
+     * Pushes one seed for every run of cells holding the target value in row
+     * {@code y} between columns {@code left} (inclusive) and {@code right} (exclusive).
+     *
+     * @param stack  the worklist receiving the seeds
+     * @param left   the first column to inspect
+     * @param right  the column after the last one to inspect
+     * @param y      the row to inspect
+     * @param target the value of the cells being filled
+     */
+    private void pushTargetSeeds(LongWorklist stack, int left, int right, int y, int target) {
+        int row = index(0, y);
+        boolean inRun = false;
+
+        for (int x = left; x < right; x++) {
+            if (matrix[row + x] == target) {
+                if (!inRun) {
+                    stack.push(x, y);
+                    inRun = true;
+                }
+            } else {
+                inRun = false;
+            }
+        }
+    }
+
+    /**
+     * Checks if a cell can still be filled, that is, it is empty and no
+     * region has claimed it yet.
+     *
+     * @param i the index of the cell in {@link #matrix}
+     * @param j the index of the cell in the claimed mask ({@code y * width + x})
+     * @return true if the cell should be filled, false otherwise
+     */
+    private boolean isFillable(int i, int j) {
+        return matrix[i] == emptyValue && !claimed.get(j);
+    }
+
+    /**
+     * Returns the position in {@link #matrix} of the cell at the given coordinates.
+     *
+     * @param x the x-coordinate (column) of the cell
+     * @param y the y-coordinate (row) of the cell
+     * @return the index of the cell
      */
-    private record Point(int x, int y) {
+    private int index(int x, int y) {
+        return offset + y * stride + x;
     }
 
 }
@@ -0,0 +1,110 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe pool of reusable {@link FloodFill} instances, so that a
+ * service filling one image per request keeps reusing the same fillers and
+ * their grown scratch state instead of building new ones.
+ * <p>
+ * {@link #acquire()} hands out an idle instance, or a new one from the
+ * factory, which the caller points at its matrix or image with one of the
+ * {@code reset} methods; {@link #release(FloodFill)} takes it back once the
+ * fill is done. Options such as the strategy or the tolerance are kept
+ * across uses, so callers set the ones they depend on after acquiring.
+ * <p>
+ * The pool bounds the memory it holds on to: it keeps at most a given
+ * number of idle instances, and drops the instances that have been pointed
+ * at more cells than its maximum size instead of keeping their scratch
+ * state. Released instances no longer reference the matrix or image they
+ * were last pointed at.
+ *
+ * @param <T> the type of the pooled instances
+ */
+public final class FloodFillPool<T extends FloodFill> {
+
+    /**
+     * Creates new instances when none is idle
+     */
+    private final Supplier<? extends T> factory;
+    /**
+     * The largest number of cells an instance may have been pointed at and still be kept
+     */
+    private final int maxCells;
+    /**
+     * The largest number of idle instances kept
+     */
+    private final int maxIdle;
+    /**
+     * The idle instances, most recently released last
+     */
+    private final ArrayDeque<T> idle = new ArrayDeque<>();
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param factory  creates new instances, not pointed at any matrix yet
+     *                 (e.g. {@code ImageFloodFill::new})
+     * @param maxCells the largest matrix or image, in cells, whose scratch state is kept
+     * @param maxIdle  the largest number of idle instances kept
+     * @throws IllegalArgumentException if maxCells or maxIdle is not positive
+     */
+    public FloodFillPool(Supplier<? extends T> factory, int maxCells, int maxIdle) {
+        if (maxCells <= 0 || maxIdle <= 0) {
+            throw new IllegalArgumentException("Max cells and max idle instances must be positive");
+        }
+
+        this.factory = Objects.requireNonNull(factory, "factory");
+        this.maxCells = maxCells;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Takes the most recently released idle instance, whose scratch state is
+     * the most likely to be in the caches, or creates one if none is idle.
+     *
+     * @return an instance to point at a matrix with {@code reset} before filling
+     */
+    public T acquire() {
+        T floodFill;
+
+        synchronized (this) {
+            floodFill = idle.pollLast();
+        }
+
+        return floodFill != null ? floodFill : factory.get();
+    }
+
+    /**
+     * Gives an instance back to the pool. It is kept for later use unless it
+     * has been pointed at more cells than the pool's maximum size or the pool
+     * already holds its maximum number of idle instances.
+     *
+     * @param floodFill an instance taken from {@link #acquire()}, no longer used by the caller
+     */
+    public void release(T floodFill) {
+        if (floodFill.getCapacity() > maxCells) {
+            return;
+        }
+
+        floodFill.detach();
+
+        synchronized (this) {
+            if (idle.size() < maxIdle) {
+                idle.addLast(floodFill);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of idle instances held by the pool.
+     *
+     * @return the idle count
+     */
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+}
@@ -1,11 +1,24 @@
 package br.pucminas.fpaa.floodfill;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
 import java.util.Random;
 
 /**
  * Image-specific flood fill implementation that fills white regions with random
  * colors, treating black pixels as borders. Updates the BufferedImage in real-time.
+ * <p>
+ * Images of type {@link BufferedImage#TYPE_INT_RGB} and
+ * {@link BufferedImage#TYPE_INT_ARGB} are filled in place, directly on the
+ * raster's backing {@code int[]}, without copying the pixels or converting
+ * colors. Other image types are copied into a separate matrix and every
+ * filled run of pixels is written back through {@link BufferedImage#setRGB}.
+ * <p>
+ * An instance can be pointed at another image with {@link #reset(BufferedImage)},
+ * keeping its scratch state and the array other image types are copied into.
  */
 public class ImageFloodFill extends FloodFill {
 
@@ -17,15 +30,31 @@ public class ImageFloodFill extends FloodFill {
      * RGB value for white (empty pixels to fill)
      */
     private static final int WHITE = -1;
+    /**
+     * The view of detached instances, whose callbacks have nothing to update
+     */
+    private static final PixelView DETACHED = new PixelView(new int[0], 0, 0, 0, true);
 
     /**
      * The image being processed
      */
-    private final BufferedImage image;
+    private BufferedImage image;
+    /**
+     * How the pixels of the image are accessed
+     */
+    private PixelView view;
+    /**
+     * The array the pixels of the last image that could not be filled in place were copied into, or null
+     */
+    private int[] pixelCopy;
     /**
      * Random generator for fill colors
      */
     private final Random random;
+    /**
+     * Scratch row used to write filled runs back to images that are not filled in place
+     */
+    private int[] spanBuffer = new int[0];
 
     /**
      * Creates an ImageFloodFill for the given image.
@@ -33,37 +62,153 @@ public class ImageFloodFill extends FloodFill {
      * @param image the BufferedImage to process
      */
     public ImageFloodFill(BufferedImage image) {
-        super(generatePixelMatrix(image), BLACK, WHITE);
+        this(image, PixelView.of(image, null));
+    }
+
+    /**
+     * Creates an ImageFloodFill that is not pointed at any image yet, for
+     * example to be kept in a {@link FloodFillPool}.
+     * {@link #reset(BufferedImage)} must be called before filling.
+     */
+    public ImageFloodFill() {
+        super(BLACK, WHITE);
+        this.image = null;
+        this.view = DETACHED;
+        this.random = new Random();
+    }
+
+    /**
+     * Creates an ImageFloodFill for the given image using the given pixel view.
+     *
+     * @param image the BufferedImage to process
+     * @param view  how the pixels of the image are accessed
+     */
+    private ImageFloodFill(BufferedImage image, PixelView view) {
+        super(view.pixels(), view.offset(), view.stride(), image.getWidth(), image.getHeight(), BLACK, WHITE);
         this.image = image;
+        this.view = view;
+        this.pixelCopy = view.direct() ? null : view.pixels();
         this.random = new Random();
     }
 
     /**
-     * Converts BufferedImage to a 2D matrix of RGB values.
+     * Points this instance at another image. Images that are not filled in
+     * place are copied into the array of the previous copy when it is large
+     * enough, so refilling images of the same size allocates no pixel matrix.
+     *
+     * @param image the BufferedImage to process
+     */
+    public void reset(BufferedImage image) {
+        PixelView view = PixelView.of(image, pixelCopy);
+        reset(view.pixels(), view.offset(), view.stride(), image.getWidth(), image.getHeight());
+        this.image = image;
+        this.view = view;
+
+        if (!view.direct()) {
+            pixelCopy = view.pixels();
+        }
+    }
+
+    /**
+     * Drops the image along with the matrix, keeping the array images are copied into.
+     */
+    @Override
+    void detach() {
+        super.detach();
+        image = null;
+        view = DETACHED;
+    }
+
+    /**
+     * Converts BufferedImage to a row-major array of RGB values.
      *
      * @param image the image to convert
-     * @return 2D array of RGB pixel values
+     * @param reuse an array to convert into if it is large enough, or null
+     * @return array of RGB pixel values, one row after the other
      */
-    private static int[][] generatePixelMatrix(BufferedImage image) {
-        int height = image.getHeight();
+    private static int[] generatePixelMatrix(BufferedImage image, int[] reuse) {
         int width = image.getWidth();
-        int[][] pixelMatrix = new int[height][width];
+        int height = image.getHeight();
+        int[] pixels = reuse != null && reuse.length >= width * height ? reuse : null;
+        return image.getRGB(0, 0, width, height, pixels, 0, width);
+    }
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                pixelMatrix[y][x] = image.getRGB(x, y);
-            }
+    /**
+     * Checks if the fill works directly on the image's raster instead of on a copy.
+     *
+     * @return true if the image's pixels are filled in place, false otherwise
+     */
+    boolean isDirect() {
+        return view.direct();
+    }
+
+    /**
+     * Updates the image pixel when a value changes. Nothing needs to be done
+     * when the fill works directly on the image's raster.
+     */
+    @Override
+    public void onValueChange(int x, int y, int newColor) {
+        if (!view.direct()) {
+            image.setRGB(x, y, newColor);
         }
+    }
 
-        return pixelMatrix;
+    /**
+     * Updates a whole run of image pixels at once. Nothing needs to be done
+     * when the fill works directly on the image's raster.
+     */
+    @Override
+    public void onSpanFilled(int y, int xStart, int xEndExclusive, int newColor) {
+        if (view.direct()) {
+            return;
+        }
+
+        int length = xEndExclusive - xStart;
+
+        if (spanBuffer.length < length) {
+            spanBuffer = new int[Math.max(length, spanBuffer.length << 1)];
+        }
+
+        Arrays.fill(spanBuffer, 0, length, newColor);
+        image.setRGB(xStart, y, length, 1, spanBuffer, 0, length);
     }
 
     /**
-     * Updates the image pixel when a value changes.
+     * Brings an edited rectangle of the image into the fill: pixels are read
+     * again when the fill works on a copy, and their alpha byte is set again
+     * when the image ignores it.
      */
     @Override
-    public void onValueChange(int x, int y, int newColor) {
-        image.setRGB(x, y, newColor);
+    protected void refresh(int x, int y, int width, int height) {
+        if (view.direct()) {
+            setAlpha(view.pixels(), view.offset() + y * view.stride() + x, view.stride(), width, height,
+                    view.alphaBits());
+        } else {
+            image.getRGB(x, y, width, height, view.pixels(), y * view.stride() + x, view.stride());
+        }
+    }
+
+    /**
+     * Sets the given alpha bits in every pixel of a rectangle.
+     *
+     * @param pixels    the array holding the pixels
+     * @param start     the index of the rectangle's first pixel
+     * @param stride    the distance between two vertically adjacent pixels
+     * @param width     the number of columns of the rectangle
+     * @param height    the number of rows of the rectangle
+     * @param alphaBits the alpha bits to set
+     */
+    private static void setAlpha(int[] pixels, int start, int stride, int width, int height, int alphaBits) {
+        if (alphaBits == 0) {
+            return;
+        }
+
+        for (int y = 0; y < height; y++) {
+            int row = start + y * stride;
+            for (int i = row; i < row + width; i++) {
+                pixels[i] |= alphaBits;
+            }
+        }
     }
 
     /**
@@ -75,9 +220,59 @@ public class ImageFloodFill extends FloodFill {
     public int generateValue() {
         int newValue;
         do {
-            newValue = random.nextInt();
+            newValue = random.nextInt() | view.alphaBits();
         } while (newValue == BLACK || newValue == WHITE);
         return newValue;
     }
 
+    /**
+     * Describes how the pixels of an image are laid out for the fill.
+     *
+     * @param pixels    the array holding the pixels
+     * @param offset    the index of the pixel at (0, 0)
+     * @param stride    the distance between two vertically adjacent pixels
+     * @param alphaBits the alpha bits every pixel value must carry
+     * @param direct    true if {@code pixels} is the image's own raster data
+     */
+    private record PixelView(int[] pixels, int offset, int stride, int alphaBits, boolean direct) {
+
+        /**
+         * Creates the pixel view for the given image, sharing the raster's
+         * backing array when its layout allows it and copying the pixels otherwise.
+         *
+         * @param image the image to view
+         * @param reuse an array to copy the pixels into if it is large enough, or null
+         * @return the pixel view of the image
+         */
+        static PixelView of(BufferedImage image, int[] reuse) {
+            int type = image.getType();
+            WritableRaster raster = image.getRaster();
+
+            if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+                    && raster.getDataBuffer() instanceof DataBufferInt buffer
+                    && buffer.getNumBanks() == 1
+                    && raster.getSampleModel() instanceof SinglePixelPackedSampleModel sampleModel) {
+
+                // The raster may be a child of a larger one (e.g. after getSubimage)
+                int offset = buffer.getOffset() + sampleModel.getOffset(
+                        raster.getMinX() - raster.getSampleModelTranslateX(),
+                        raster.getMinY() - raster.getSampleModelTranslateY());
+                int stride = sampleModel.getScanlineStride();
+
+                int[] pixels = buffer.getData();
+
+                // TYPE_INT_RGB ignores the alpha byte, which may hold anything. Setting it
+                // in place makes the stored values equal to the ones getRGB returns
+                if (type == BufferedImage.TYPE_INT_RGB) {
+                    setAlpha(pixels, offset, stride, image.getWidth(), image.getHeight(), BLACK);
+                    return new PixelView(pixels, offset, stride, BLACK, true);
+                }
+
+                return new PixelView(pixels, offset, stride, 0, true);
+            }
+
+            return new PixelView(generatePixelMatrix(image, reuse), 0, image.getWidth(), 0, false);
+        }
+    }
+
 }
@@ -0,0 +1,138 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.util.Arrays;
+
+/**
+ * Growable LIFO worklist of primitive {@code long} entries used by the flood
+ * fill engines. Coordinates are packed into a single {@code long} (row in the
+ * high 32 bits, column in the low 32 bits), so pushing and popping never
+ * allocates once the backing array has grown to the working size.
+ * <p>
+ * The backing array is kept between uses: {@link #clear()} only resets the
+ * size, so a worklist can be reused across regions and executions.
+ * {@link CountingWorklist} extends it to collect statistics.
+ */
+class LongWorklist {
+
+    /**
+     * Initial capacity of the backing array
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The backing array holding the entries
+     */
+    private long[] entries;
+    /**
+     * The number of entries currently in the worklist
+     */
+    private int size;
+
+    /**
+     * Creates an empty worklist with a small initial capacity.
+     */
+    LongWorklist() {
+        this.entries = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Creates an empty worklist that takes over the backing array of another
+     * one, so that the capacity it has grown to is kept. The other worklist
+     * must not be used afterwards.
+     *
+     * @param previous the worklist whose backing array is taken over
+     */
+    LongWorklist(LongWorklist previous) {
+        this.entries = previous.entries;
+    }
+
+    /**
+     * Packs the given coordinates into a single entry.
+     *
+     * @param x the x-coordinate (column)
+     * @param y the y-coordinate (row)
+     * @return the packed entry
+     */
+    static long pack(int x, int y) {
+        return ((long) y << 32) | (x & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Extracts the x-coordinate (column) from a packed entry.
+     *
+     * @param entry the packed entry
+     * @return the x-coordinate
+     */
+    static int x(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * Extracts the y-coordinate (row) from a packed entry.
+     *
+     * @param entry the packed entry
+     * @return the y-coordinate
+     */
+    static int y(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    /**
+     * Pushes the given coordinates onto the worklist.
+     *
+     * @param x the x-coordinate (column)
+     * @param y the y-coordinate (row)
+     */
+    void push(int x, int y) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size << 1);
+        }
+
+        entries[size++] = pack(x, y);
+    }
+
+    /**
+     * Removes and returns the most recently pushed entry.
+     *
+     * @return the packed entry
+     * @throws ArrayIndexOutOfBoundsException if the worklist is empty
+     */
+    long pop() {
+        return entries[--size];
+    }
+
+    /**
+     * Checks if the worklist has no entries.
+     *
+     * @return true if the worklist is empty, false otherwise
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of entries currently in the worklist.
+     *
+     * @return the worklist size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of entries the backing array can hold before growing.
+     *
+     * @return the worklist capacity
+     */
+    int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * Removes all entries while keeping the backing array for reuse.
+     */
+    void clear() {
+        size = 0;
+    }
+
+}
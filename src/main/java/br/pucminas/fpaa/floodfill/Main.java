@@ -1,10 +1,24 @@
 package br.pucminas.fpaa.floodfill;
 
+import java.util.Arrays;
+
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // "batch <input> <output> [options]" fills a directory of images without a display
+        if (args.length > 0 && args[0].equals("batch")) {
+            BatchFill.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // "serve [options]" runs the HTTP fill service
+        if (args.length > 0 && args[0].equals("serve")) {
+            FillServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         SwingUtilities.invokeLater(() -> {
             try {
                 UIManager.setLookAndFeel(UIManager.getLookAndFeel());
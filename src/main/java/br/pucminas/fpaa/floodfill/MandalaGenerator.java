@@ -25,6 +25,16 @@ public class MandalaGenerator {
         this.random = new Random();
     }
 
+    /**
+     * Creates a mandala generator that always produces the same sequence of
+     * patterns for the same seed.
+     *
+     * @param seed the seed of the pattern variations
+     */
+    public MandalaGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
     /**
      * Generates a mandala image with random patterns.
      *
@@ -0,0 +1,127 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.util.Arrays;
+
+/**
+ * Labels the regions of empty cells of a matrix under any
+ * {@link Connectivity}, by traversing each region from its first cell in
+ * raster order. Used by the labeling strategies when the neighborhood is not
+ * the orthogonal one that {@link TwoPassLabeler} and {@link ParallelLabeler}
+ * are built around.
+ */
+final class NeighborhoodLabeler {
+
+    /**
+     * The cells being labeled, stored row by row
+     */
+    private final int[] matrix;
+    /**
+     * The index in {@link #matrix} of the cell at column 0, row 0
+     */
+    private final int offset;
+    /**
+     * The distance in {@link #matrix} between two vertically adjacent cells
+     */
+    private final int stride;
+    /**
+     * The number of columns
+     */
+    private final int width;
+    /**
+     * The number of rows
+     */
+    private final int height;
+    /**
+     * The value that represents empty cells
+     */
+    private final int emptyValue;
+    /**
+     * The neighborhood connecting cells into regions
+     */
+    private final Connectivity connectivity;
+
+    /**
+     * Creates a labeler for the given matrix.
+     *
+     * @param matrix       the cells to label, stored row by row
+     * @param offset       the index of the cell at column 0, row 0
+     * @param stride       the distance between two vertically adjacent cells
+     * @param width        the number of columns
+     * @param height       the number of rows
+     * @param emptyValue   the value that represents empty cells
+     * @param connectivity the neighborhood connecting cells into regions
+     */
+    NeighborhoodLabeler(int[] matrix, int offset, int stride, int width, int height, int emptyValue,
+                        Connectivity connectivity) {
+        this.matrix = matrix;
+        this.offset = offset;
+        this.stride = stride;
+        this.width = width;
+        this.height = height;
+        this.emptyValue = emptyValue;
+        this.connectivity = connectivity;
+    }
+
+    /**
+     * Labels the regions of empty cells. On return, {@code labels[y * width + x]}
+     * holds the number (starting at 1) of the region containing cell (x, y), or
+     * 0 if the cell is not empty. Regions are numbered in raster order of their
+     * first cell.
+     *
+     * @param labels the array receiving the labels, with at least width * height elements
+     * @return the number of regions found
+     */
+    int label(int[] labels) {
+        Arrays.fill(labels, 0, width * height, 0);
+
+        int[] dx = connectivity.dx;
+        int[] dy = connectivity.dy;
+        int radius = connectivity.radius;
+        int[] cellOffsets = connectivity.offsets(stride);
+        int[] labelOffsets = connectivity.offsets(width);
+        LongWorklist stack = new LongWorklist();
+        int regionCount = 0;
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int j = y * width + x;
+
+                if (labels[j] != 0 || matrix[offset + y * stride + x] != emptyValue) {
+                    continue;
+                }
+
+                int label = ++regionCount;
+                labels[j] = label;
+                stack.push(x, y);
+
+                while (!stack.isEmpty()) {
+                    long current = stack.pop();
+                    int cx = LongWorklist.x(current);
+                    int cy = LongWorklist.y(current);
+                    int ci = offset + cy * stride + cx;
+                    int cj = cy * width + cx;
+                    boolean interior = cx >= radius && cx < width - radius && cy >= radius && cy < height - radius;
+
+                    for (int k = 0; k < dx.length; k++) {
+                        int nx = cx + dx[k];
+                        int ny = cy + dy[k];
+
+                        if (!interior && (nx < 0 || nx >= width || ny < 0 || ny >= height)) {
+                            continue;
+                        }
+
+                        int nj = cj + labelOffsets[k];
+
+                        if (labels[nj] == 0 && matrix[ci + cellOffsets[k]] == emptyValue) {
+                            labels[nj] = label;
+                            stack.push(nx, ny);
+                        }
+                    }
+                }
+            }
+        }
+
+        return regionCount;
+    }
+
+}
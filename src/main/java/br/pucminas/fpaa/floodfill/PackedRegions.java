@@ -0,0 +1,425 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.util.Arrays;
+
+/**
+ * Region finder of the {@link FillStrategy#PACKED} strategy, which traverses
+ * a bitmask of the matrix instead of the matrix itself.
+ * <p>
+ * {@link #pack()} reads the matrix once and sets one bit for every empty
+ * cell, 64 cells per {@code long}, with every row starting on a new word so
+ * that spans never cross rows. Claiming cells clears their bits, so a single
+ * bit answers whether a cell is empty and not yet visited, and spans are
+ * extended and seeded a whole word at a time with
+ * {@link Long#numberOfTrailingZeros(long)} and
+ * {@link Long#numberOfLeadingZeros(long)}. Filled spans are only recorded,
+ * and {@link #sortSpans()} then orders them by row so that the caller can
+ * write all values in one sequential pass over the matrix.
+ */
+final class PackedRegions {
+
+    /**
+     * Number of ints per recorded span: row, first column, column after the last, value
+     */
+    private static final int SPAN_SIZE = 4;
+
+    /**
+     * The cells of the matrix, stored row by row
+     */
+    private int[] matrix;
+    /**
+     * The index in {@link #matrix} of the cell at column 0, row 0
+     */
+    private int offset;
+    /**
+     * The distance in {@link #matrix} between two vertically adjacent cells
+     */
+    private int stride;
+    /**
+     * The number of columns
+     */
+    private int width;
+    /**
+     * The number of rows
+     */
+    private int height;
+    /**
+     * The value that represents empty cells
+     */
+    private final int emptyValue;
+    /**
+     * The number of words of each row of the mask
+     */
+    private int wordsPerRow;
+    /**
+     * The number of words of the mask in use, which may be fewer than
+     * {@link #open} holds after a reset to a smaller matrix
+     */
+    private int wordCount;
+    /**
+     * One bit per cell that is empty and not claimed by a region yet
+     */
+    private long[] open = new long[0];
+    /**
+     * The first word that may still hold an open cell
+     */
+    private int seedWord;
+    /**
+     * The spans recorded so far, {@link #SPAN_SIZE} ints each
+     */
+    private int[] spans = new int[64 * SPAN_SIZE];
+    /**
+     * The number of spans recorded
+     */
+    private int spanCount;
+    /**
+     * Scratch array receiving the spans ordered by {@link #sortSpans()}, swapped with {@link #spans}
+     */
+    private int[] sortedSpans = new int[0];
+    /**
+     * Scratch array holding the first sorted span of each row during {@link #sortSpans()}
+     */
+    private int[] rowStarts = new int[0];
+
+    /**
+     * Creates a region finder for the given matrix.
+     *
+     * @param matrix     the cells to fill, stored row by row
+     * @param offset     the index of the cell at column 0, row 0
+     * @param stride     the distance between two vertically adjacent cells
+     * @param width      the number of columns
+     * @param height     the number of rows
+     * @param emptyValue the value that represents empty cells
+     */
+    PackedRegions(int[] matrix, int offset, int stride, int width, int height, int emptyValue) {
+        this.emptyValue = emptyValue;
+        reset(matrix, offset, stride, width, height);
+    }
+
+    /**
+     * Points the region finder at another matrix, keeping the mask and the
+     * span arrays when they are large enough for it.
+     *
+     * @param matrix the cells to fill, stored row by row
+     * @param offset the index of the cell at column 0, row 0
+     * @param stride the distance between two vertically adjacent cells
+     * @param width  the number of columns
+     * @param height the number of rows
+     */
+    void reset(int[] matrix, int offset, int stride, int width, int height) {
+        this.matrix = matrix;
+        this.offset = offset;
+        this.stride = stride;
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.wordCount = wordsPerRow * height;
+
+        if (open.length < wordCount) {
+            open = new long[wordCount];
+        }
+
+        seedWord = wordCount;
+        spanCount = 0;
+    }
+
+    /**
+     * Packs the empty cells of the matrix into the mask and forgets the
+     * spans of the previous execution.
+     */
+    void pack() {
+        for (int y = 0; y < height; y++) {
+            int row = offset + y * stride;
+            int word = y * wordsPerRow;
+
+            for (int x = 0; x < width; x += 64) {
+                long bits = 0;
+
+                for (int bit = 0, end = Math.min(64, width - x); bit < end; bit++) {
+                    if (matrix[row + x + bit] == emptyValue) {
+                        bits |= 1L << bit;
+                    }
+                }
+
+                open[word + (x >>> 6)] = bits;
+            }
+        }
+
+        seedWord = 0;
+        spanCount = 0;
+    }
+
+    /**
+     * Finds the next open cell in raster order, which is the first cell of
+     * the next region.
+     *
+     * @return the packed coordinates of the cell (see {@link LongWorklist#pack(int, int)}),
+     *         or -1 if every region has been found
+     */
+    long nextSeed() {
+        for (; seedWord < wordCount; seedWord++) {
+            long bits = open[seedWord];
+
+            if (bits != 0) {
+                int x = ((seedWord % wordsPerRow) << 6) + Long.numberOfTrailingZeros(bits);
+                return LongWorklist.pack(x, seedWord / wordsPerRow);
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Claims the region containing the given open cell, one maximal span at
+     * a time, and records its spans with the given value.
+     *
+     * @param stack  the worklist used to traverse the region
+     * @param startX the column of the first cell of the region
+     * @param startY the row of the first cell of the region
+     * @param value  the value recorded for the spans of the region
+     * @return the number of cells in the region
+     */
+    int claimRegion(LongWorklist stack, int startX, int startY, int value) {
+        stack.clear();
+        stack.push(startX, startY);
+        int cells = 0;
+
+        while (!stack.isEmpty()) {
+            long current = stack.pop();
+            int x = LongWorklist.x(current);
+            int y = LongWorklist.y(current);
+            int word = y * wordsPerRow;
+
+            // The seed may have been claimed by another span since it was pushed
+            if ((open[word + (x >>> 6)] & (1L << x)) == 0) {
+                continue;
+            }
+
+            int left = spanStart(word, x);
+            int right = spanEnd(word, x);
+
+            clear(word, left, right);
+            addSpan(y, left, right, value);
+            cells += right - left;
+
+            if (y > 0) {
+                pushRunSeeds(stack, left, right, y - 1);
+            }
+
+            if (y + 1 < height) {
+                pushRunSeeds(stack, left, right, y + 1);
+            }
+        }
+
+        return cells;
+    }
+
+    /**
+     * Finds the first column of the run of open cells containing column x.
+     *
+     * @param word the first word of the row
+     * @param x    an open column of the row
+     * @return the first column of the run
+     */
+    private int spanStart(int word, int x) {
+        int w = x >>> 6;
+        // Closed cells at or before x in the word of x
+        long closed = ~open[word + w] & (-1L >>> (63 - (x & 63)));
+
+        while (closed == 0) {
+            if (--w < 0) {
+                return 0;
+            }
+
+            closed = ~open[word + w];
+        }
+
+        return (w << 6) + 64 - Long.numberOfLeadingZeros(closed);
+    }
+
+    /**
+     * Finds the column after the run of open cells containing column x.
+     *
+     * @param word the first word of the row
+     * @param x    an open column of the row
+     * @return the column after the last cell of the run
+     */
+    private int spanEnd(int word, int x) {
+        int w = x >>> 6;
+        // Closed cells at or after x in the word of x
+        long closed = ~open[word + w] & (-1L << x);
+
+        while (closed == 0) {
+            if (++w == wordsPerRow) {
+                return width;
+            }
+
+            closed = ~open[word + w];
+        }
+
+        return Math.min((w << 6) + Long.numberOfTrailingZeros(closed), width);
+    }
+
+    /**
+     * Claims the cells from column {@code left} (inclusive) to {@code right}
+     * (exclusive) of a row, a whole word at a time where possible.
+     *
+     * @param word  the first word of the row
+     * @param left  the first column to claim
+     * @param right the column after the last one to claim
+     */
+    private void clear(int word, int left, int right) {
+        int firstWord = word + (left >>> 6);
+        int lastWord = word + ((right - 1) >>> 6);
+        long firstMask = -1L << left;
+        long lastMask = -1L >>> -right;
+
+        if (firstWord == lastWord) {
+            open[firstWord] &= ~(firstMask & lastMask);
+            return;
+        }
+
+        open[firstWord] &= ~firstMask;
+        Arrays.fill(open, firstWord + 1, lastWord, 0L);
+        open[lastWord] &= ~lastMask;
+    }
+
+    /**
+     * Pushes one seed for every run of open cells in row {@code y} between
+     * columns {@code left} (inclusive) and {@code right} (exclusive), jumping
+     * from run to run a whole word at a time.
+     *
+     * @param stack the worklist receiving the seeds
+     * @param left  the first column to inspect
+     * @param right the column after the last one to inspect
+     * @param y     the row to inspect
+     */
+    private void pushRunSeeds(LongWorklist stack, int left, int right, int y) {
+        int word = y * wordsPerRow;
+        int x = left;
+
+        while (x < right) {
+            // Skip to the next open cell
+            int w = x >>> 6;
+            long bits = open[word + w] & (-1L << x);
+
+            while (bits == 0) {
+                if (++w << 6 >= right) {
+                    return;
+                }
+
+                bits = open[word + w];
+            }
+
+            x = (w << 6) + Long.numberOfTrailingZeros(bits);
+
+            if (x >= right) {
+                return;
+            }
+
+            stack.push(x, y);
+
+            // Skip the rest of its run
+            x = spanEnd(word, x);
+        }
+    }
+
+    /**
+     * Records a span of claimed cells.
+     */
+    private void addSpan(int y, int left, int right, int value) {
+        if ((spanCount + 1) * SPAN_SIZE > spans.length) {
+            spans = Arrays.copyOf(spans, spans.length << 1);
+        }
+
+        int s = spanCount++ * SPAN_SIZE;
+        spans[s] = y;
+        spans[s + 1] = left;
+        spans[s + 2] = right;
+        spans[s + 3] = value;
+    }
+
+    /**
+     * Orders the recorded spans by row with a counting sort, keeping the
+     * order in which the spans of each row were recorded.
+     */
+    void sortSpans() {
+        if (rowStarts.length < height + 1) {
+            rowStarts = new int[height + 1];
+        } else {
+            Arrays.fill(rowStarts, 0, height + 1, 0);
+        }
+
+        for (int k = 0; k < spanCount; k++) {
+            rowStarts[spans[k * SPAN_SIZE] + 1]++;
+        }
+
+        for (int y = 0; y < height; y++) {
+            rowStarts[y + 1] += rowStarts[y];
+        }
+
+        if (sortedSpans.length < spans.length) {
+            sortedSpans = new int[spans.length];
+        }
+
+        int[] sorted = sortedSpans;
+
+        for (int k = 0; k < spanCount; k++) {
+            int s = k * SPAN_SIZE;
+            System.arraycopy(spans, s, sorted, rowStarts[spans[s]]++ * SPAN_SIZE, SPAN_SIZE);
+        }
+
+        sortedSpans = spans;
+        spans = sorted;
+    }
+
+    /**
+     * Returns the number of spans recorded.
+     *
+     * @return the span count
+     */
+    int spanCount() {
+        return spanCount;
+    }
+
+    /**
+     * Returns the row of a recorded span.
+     *
+     * @param span the index of the span
+     * @return the row of the span
+     */
+    int spanY(int span) {
+        return spans[span * SPAN_SIZE];
+    }
+
+    /**
+     * Returns the first column of a recorded span.
+     *
+     * @param span the index of the span
+     * @return the first column of the span
+     */
+    int spanLeft(int span) {
+        return spans[span * SPAN_SIZE + 1];
+    }
+
+    /**
+     * Returns the column after the last cell of a recorded span.
+     *
+     * @param span the index of the span
+     * @return the end column (exclusive) of the span
+     */
+    int spanRight(int span) {
+        return spans[span * SPAN_SIZE + 2];
+    }
+
+    /**
+     * Returns the value recorded for a span.
+     *
+     * @param span the index of the span
+     * @return the value of the span's region
+     */
+    int spanValue(int span) {
+        return spans[span * SPAN_SIZE + 3];
+    }
+
+}
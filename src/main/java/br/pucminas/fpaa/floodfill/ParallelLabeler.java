@@ -0,0 +1,386 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Labels the 4-connected regions of empty cells of a matrix in parallel.
+ * <p>
+ * The matrix is split into square tiles that are labeled independently on a
+ * {@link ForkJoinPool}. Labels are cell indices linked in a union-find forest
+ * stored in the label array itself, where every tree is rooted at the cell of
+ * its region that comes first in raster order. Regions that cross the seams
+ * between tiles are then merged with a lock-free union-find, and finally the
+ * roots are numbered in raster order, so region {@code k} is the k-th region
+ * a sequential row-by-row scan would find.
+ */
+final class ParallelLabeler {
+
+    /**
+     * Atomic access to the elements of the label array
+     */
+    private static final VarHandle PARENT = MethodHandles.arrayElementVarHandle(int[].class);
+    /**
+     * Label of cells that do not belong to any region while labeling is in progress
+     */
+    private static final int NONE = -1;
+    /**
+     * Number of rows or seam segments below which tasks are not split further
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 4;
+
+    /**
+     * The cells being labeled, stored row by row
+     */
+    private final int[] matrix;
+    /**
+     * The index in {@link #matrix} of the cell at column 0, row 0
+     */
+    private final int offset;
+    /**
+     * The distance in {@link #matrix} between two vertically adjacent cells
+     */
+    private final int stride;
+    /**
+     * The number of columns
+     */
+    private final int width;
+    /**
+     * The number of rows
+     */
+    private final int height;
+    /**
+     * The value that represents empty cells
+     */
+    private final int emptyValue;
+    /**
+     * The side of the square tiles labeled independently
+     */
+    private final int tileSize;
+    /**
+     * The number of tile columns
+     */
+    private final int tilesX;
+    /**
+     * The number of tile rows
+     */
+    private final int tilesY;
+    /**
+     * The pool running the labeling tasks
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a labeler for the given matrix.
+     *
+     * @param matrix     the cells to label, stored row by row
+     * @param offset     the index of the cell at column 0, row 0
+     * @param stride     the distance between two vertically adjacent cells
+     * @param width      the number of columns
+     * @param height     the number of rows
+     * @param emptyValue the value that represents empty cells
+     * @param tileSize   the side of the square tiles labeled independently
+     * @param pool       the pool running the labeling tasks
+     */
+    ParallelLabeler(int[] matrix, int offset, int stride, int width, int height, int emptyValue, int tileSize,
+                    ForkJoinPool pool) {
+        this.matrix = matrix;
+        this.offset = offset;
+        this.stride = stride;
+        this.width = width;
+        this.height = height;
+        this.emptyValue = emptyValue;
+        this.tileSize = tileSize;
+        this.tilesX = (width + tileSize - 1) / tileSize;
+        this.tilesY = (height + tileSize - 1) / tileSize;
+        this.pool = pool;
+    }
+
+    /**
+     * Labels the regions of empty cells. On return, {@code labels[y * width + x]}
+     * holds the number (starting at 1) of the region containing cell (x, y), or
+     * 0 if the cell is not empty. Regions are numbered in raster order of their
+     * first cell.
+     *
+     * @param labels the array receiving the labels, with at least width * height elements
+     * @return the number of regions found
+     */
+    int label(int[] labels) {
+        // Label every tile on its own
+        forEach(tilesX * tilesY, tile -> labelTile(labels, tile % tilesX, tile / tilesX));
+
+        // Merge regions across the vertical and horizontal seams between tiles
+        int verticalSegments = (tilesX - 1) * tilesY;
+        int horizontalSegments = (tilesY - 1) * tilesX;
+
+        forEach(verticalSegments + horizontalSegments, segment -> {
+            if (segment < verticalSegments) {
+                mergeVerticalSeam(labels, segment % (tilesX - 1) + 1, segment / (tilesX - 1));
+            } else {
+                segment -= verticalSegments;
+                mergeHorizontalSeam(labels, segment % tilesX, segment / tilesX + 1);
+            }
+        });
+
+        // Point every cell directly at its root and count the roots of each row
+        int[] rowRegions = new int[height + 1];
+
+        forEach(height, y -> {
+            int count = 0;
+
+            for (int j = y * width, end = j + width; j < end; j++) {
+                if (labels[j] != NONE) {
+                    int root = find(labels, j);
+                    labels[j] = root;
+
+                    if (root == j) {
+                        count++;
+                    }
+                }
+            }
+
+            rowRegions[y + 1] = count;
+        });
+
+        for (int y = 0; y < height; y++) {
+            rowRegions[y + 1] += rowRegions[y];
+        }
+
+        // Number the roots in raster order, storing the complement of the number
+        forEach(height, y -> {
+            int number = rowRegions[y];
+
+            for (int j = y * width, end = j + width; j < end; j++) {
+                if (labels[j] == j) {
+                    labels[j] = ~++number;
+                }
+            }
+        });
+
+        // Give every other cell the number of its root and turn complements into numbers
+        forEach(height, y -> {
+            for (int j = y * width, end = j + width; j < end; j++) {
+                if (labels[j] >= 0) {
+                    labels[j] = labels[labels[j]];
+                }
+            }
+        });
+
+        forEach(height, y -> {
+            for (int j = y * width, end = j + width; j < end; j++) {
+                labels[j] = ~labels[j];
+            }
+        });
+
+        return rowRegions[height];
+    }
+
+    /**
+     * Labels the empty cells of one tile, linking each cell to the root of
+     * its region inside the tile. Only cells of this tile are touched.
+     *
+     * @param labels the label array
+     * @param tileX  the column of the tile
+     * @param tileY  the row of the tile
+     */
+    private void labelTile(int[] labels, int tileX, int tileY) {
+        int x0 = tileX * tileSize;
+        int y0 = tileY * tileSize;
+        int x1 = Math.min(x0 + tileSize, width);
+        int y1 = Math.min(y0 + tileSize, height);
+
+        for (int y = y0; y < y1; y++) {
+            int row = offset + y * stride;
+
+            for (int x = x0; x < x1; x++) {
+                int j = y * width + x;
+
+                if (matrix[row + x] != emptyValue) {
+                    labels[j] = NONE;
+                    continue;
+                }
+
+                boolean left = x > x0 && labels[j - 1] != NONE;
+                boolean up = y > y0 && labels[j - width] != NONE;
+
+                if (left) {
+                    labels[j] = labels[j - 1];
+
+                    if (up) {
+                        unionInTile(labels, j - 1, j - width);
+                    }
+                } else if (up) {
+                    labels[j] = find(labels, j - width);
+                } else {
+                    labels[j] = j;
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the regions touching across the vertical seam on the left of a tile.
+     *
+     * @param labels the label array
+     * @param tileX  the column of the tile on the right of the seam
+     * @param tileY  the row of the tiles along the seam segment
+     */
+    private void mergeVerticalSeam(int[] labels, int tileX, int tileY) {
+        int x = tileX * tileSize;
+        int y1 = Math.min((tileY + 1) * tileSize, height);
+
+        for (int y = tileY * tileSize; y < y1; y++) {
+            int j = y * width + x;
+
+            if (labels[j] != NONE && labels[j - 1] != NONE) {
+                union(labels, j, j - 1);
+            }
+        }
+    }
+
+    /**
+     * Merges the regions touching across the horizontal seam above a tile.
+     *
+     * @param labels the label array
+     * @param tileX  the column of the tiles along the seam segment
+     * @param tileY  the row of the tile below the seam
+     */
+    private void mergeHorizontalSeam(int[] labels, int tileX, int tileY) {
+        int y = tileY * tileSize;
+        int x1 = Math.min((tileX + 1) * tileSize, width);
+
+        for (int x = tileX * tileSize; x < x1; x++) {
+            int j = y * width + x;
+
+            if (labels[j] != NONE && labels[j - width] != NONE) {
+                union(labels, j, j - width);
+            }
+        }
+    }
+
+    /**
+     * Merges two trees while a single thread owns them, linking the root with
+     * the larger index under the one with the smaller index.
+     *
+     * @param labels the label array
+     * @param a      a cell of the first tree
+     * @param b      a cell of the second tree
+     */
+    private static void unionInTile(int[] labels, int a, int b) {
+        int rootA = find(labels, a);
+        int rootB = find(labels, b);
+
+        if (rootA < rootB) {
+            labels[rootB] = rootA;
+        } else if (rootB < rootA) {
+            labels[rootA] = rootB;
+        }
+    }
+
+    /**
+     * Merges two trees while other threads may be merging trees concurrently.
+     * The root with the larger index is linked under the other one with a
+     * compare-and-set that only succeeds while it is still a root.
+     *
+     * @param labels the label array
+     * @param a      a cell of the first tree
+     * @param b      a cell of the second tree
+     */
+    private static void union(int[] labels, int a, int b) {
+        while (true) {
+            a = find(labels, a);
+            b = find(labels, b);
+
+            if (a == b) {
+                return;
+            }
+
+            int child = Math.max(a, b);
+            int parent = Math.min(a, b);
+
+            if (PARENT.compareAndSet(labels, child, child, parent)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the root of the tree containing the given cell, halving the path
+     * on the way. Halving only ever moves a cell closer to its root, so it is
+     * safe while other threads are merging trees.
+     *
+     * @param labels the label array
+     * @param j      the cell whose root is wanted
+     * @return the index of the root cell
+     */
+    private static int find(int[] labels, int j) {
+        int parent = (int) PARENT.getAcquire(labels, j);
+
+        while (parent != j) {
+            int grandparent = (int) PARENT.getAcquire(labels, parent);
+
+            if (grandparent != parent) {
+                PARENT.compareAndSet(labels, j, parent, grandparent);
+            }
+
+            j = parent;
+            parent = grandparent;
+        }
+
+        return j;
+    }
+
+    /**
+     * Runs the given task for every index in {@code [0, count)} on the pool
+     * and waits for all of them to finish.
+     *
+     * @param count the number of indices
+     * @param task  the task to run for each index
+     */
+    private void forEach(int count, IntConsumer task) {
+        if (count > 0) {
+            pool.invoke(new RangeTask(0, count, task));
+        }
+    }
+
+    /**
+     * Splits a range of indices in halves until it is small enough to be run sequentially.
+     */
+    private static final class RangeTask extends RecursiveAction {
+
+        /**
+         * The first index of the range
+         */
+        private final int from;
+        /**
+         * The index after the last one of the range
+         */
+        private final int to;
+        /**
+         * The task to run for each index
+         */
+        private final IntConsumer task;
+
+        RangeTask(int from, int to, IntConsumer task) {
+            this.from = from;
+            this.to = to;
+            this.task = task;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    task.accept(i);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RangeTask(from, middle, task), new RangeTask(middle, to, task));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,206 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A matrix of cells that can be read and written where it lives: in a Java
+ * array, in an {@link IntBuffer}, or in a {@link MemorySegment} of native
+ * memory or of a memory-mapped file. {@link StreamingFloodFill} fills a pixel
+ * source in place, band by band, so rasters held off-heap, including ones of
+ * several gigabytes, are filled without being copied into a Java matrix.
+ * <p>
+ * Cells are moved with the bulk accessors {@link #readRect} and
+ * {@link #writeRect}, which copy a whole rectangle between the source and an
+ * {@code int[]} at once, and their whole-row forms
+ * {@link #readRows(int, int, int[])} and {@link #writeRows(int, int, int[])},
+ * so the fills' inner loops only ever index plain arrays.
+ * {@link #get(int, int)} and {@link #set(int, int, int)} access single
+ * cells, for callers; the fills themselves never use them.
+ * <p>
+ * {@link StreamingFloodFill} fills every region of empty cells of a source
+ * at once, under 4-connectivity and with exact matches only. {@link FloodFill}
+ * fills the sources that fit in a Java array with everything it offers: it reads the source into a row-major array before
+ * each execution or single fill and writes back the rectangle that changed,
+ * except for sources over an accessible array, which it fills in place.
+ */
+public interface PixelSource extends BandSource {
+
+    /**
+     * Returns the value of a cell.
+     *
+     * @param x the column of the cell
+     * @param y the row of the cell
+     * @return the value of the cell
+     */
+    int get(int x, int y);
+
+    /**
+     * Sets the value of a cell.
+     *
+     * @param x     the column of the cell
+     * @param y     the row of the cell
+     * @param value the new value of the cell
+     */
+    void set(int x, int y, int value);
+
+    /**
+     * Reads a band of consecutive rows into the given buffer, where cell
+     * (x, y + r) is stored at index {@code r * width + x}.
+     *
+     * @param y      the first row of the band
+     * @param rows   the number of rows of the band
+     * @param buffer the array receiving the cells, with at least rows * width elements
+     */
+    @Override
+    default void readRows(int y, int rows, int[] buffer) {
+        readRect(0, y, getWidth(), rows, buffer, 0, getWidth());
+    }
+
+    /**
+     * Writes a band of consecutive rows from the given buffer, where cell
+     * (x, y + r) is stored at index {@code r * width + x}.
+     *
+     * @param y      the first row of the band
+     * @param rows   the number of rows of the band
+     * @param buffer the array holding the cells, with at least rows * width elements
+     */
+    default void writeRows(int y, int rows, int[] buffer) {
+        writeRect(0, y, getWidth(), rows, buffer, 0, getWidth());
+    }
+
+    /**
+     * Reads a rectangle of cells into the given buffer, where cell
+     * (x + c, y + r) is stored at index {@code offset + r * stride + c}.
+     *
+     * @param x       the first column of the rectangle
+     * @param y       the first row of the rectangle
+     * @param columns the number of columns of the rectangle
+     * @param rows    the number of rows of the rectangle
+     * @param buffer  the array receiving the cells
+     * @param offset  the index in the buffer of cell (x, y)
+     * @param stride  the distance in the buffer between two vertically adjacent cells
+     */
+    void readRect(int x, int y, int columns, int rows, int[] buffer, int offset, int stride);
+
+    /**
+     * Writes a rectangle of cells from the given buffer, where cell
+     * (x + c, y + r) is stored at index {@code offset + r * stride + c}.
+     *
+     * @param x       the first column of the rectangle
+     * @param y       the first row of the rectangle
+     * @param columns the number of columns of the rectangle
+     * @param rows    the number of rows of the rectangle
+     * @param buffer  the array holding the cells
+     * @param offset  the index in the buffer of cell (x, y)
+     * @param stride  the distance in the buffer between two vertically adjacent cells
+     */
+    void writeRect(int x, int y, int columns, int rows, int[] buffer, int offset, int stride);
+
+    /**
+     * Returns a source over a rectangular 2D matrix, indexed as {@code matrix[y][x]}.
+     *
+     * @param matrix the rows of the matrix
+     * @return the pixel source of the matrix
+     * @throws IllegalArgumentException if matrix is empty or not rectangular
+     */
+    static PixelSource of(int[][] matrix) {
+        return new PixelSources.RowSource(matrix);
+    }
+
+    /**
+     * Returns a source over a row-major array, where cell (x, y) is stored at
+     * index {@code y * width + x}.
+     *
+     * @param cells  the array holding the cells
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @return the pixel source of the array
+     * @throws IllegalArgumentException if the dimensions are not positive or
+     *                                  do not match the array length
+     */
+    static PixelSource of(int[] cells, int width, int height) {
+        PixelSources.checkDimensions(width, height, cells.length);
+
+        if ((long) width * height != cells.length) {
+            throw new IllegalArgumentException("Array length must be width * height");
+        }
+
+        return new PixelSources.ArraySource(cells, width, height);
+    }
+
+    /**
+     * Returns a source over the remaining cells of a buffer, where cell
+     * (x, y) is the {@code (y * width + x)}-th cell after its position. The
+     * buffer may be direct or wrap an array; its position and limit are not
+     * changed.
+     *
+     * @param buffer the buffer holding the cells
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @return the pixel source of the buffer
+     * @throws IllegalArgumentException if the dimensions are not positive or
+     *                                  the buffer holds fewer than width * height cells
+     */
+    static PixelSource of(IntBuffer buffer, int width, int height) {
+        PixelSources.checkDimensions(width, height, buffer.remaining());
+        return new PixelSources.BufferSource(buffer.slice(), width, height);
+    }
+
+    /**
+     * Returns a source over a memory segment holding one {@code int} per
+     * cell, in the given byte order, where cell (x, y) starts at byte offset
+     * {@code 4 * (y * width + x)}. The segment may hold more than
+     * {@code Integer.MAX_VALUE} cells, and is accessed by the threads its
+     * arena allows.
+     *
+     * @param segment the segment holding the cells, native or mapped
+     * @param order   the byte order of the cells
+     * @param width   the number of columns
+     * @param height  the number of rows
+     * @return the pixel source of the segment
+     * @throws IllegalArgumentException if the dimensions are not positive or
+     *                                  the segment holds fewer than width * height cells
+     */
+    static PixelSource of(MemorySegment segment, ByteOrder order, int width, int height) {
+        PixelSources.checkDimensions(width, height, segment.byteSize() / Integer.BYTES);
+        return new PixelSources.SegmentSource(segment, order, width, height);
+    }
+
+    /**
+     * Maps a file of raw cells, in the format of
+     * {@link BandSource#ofRawFile(Path, int, int)}, as a source that reads
+     * and writes the file in place. The mapping stays valid until the arena
+     * is closed.
+     *
+     * @param file   the file holding the cells, one big-endian {@code int} per cell
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @param arena  the arena controlling the lifetime of the mapping
+     * @return the pixel source of the file
+     * @throws IOException              if the file cannot be opened or mapped, or
+     *                                  holds fewer than width * height cells
+     * @throws IllegalArgumentException if the dimensions are not positive
+     */
+    static PixelSource mapRawFile(Path file, int width, int height, Arena arena) throws IOException {
+        PixelSources.checkDimensions(width, height, Long.MAX_VALUE);
+        long size = (long) width * height * Integer.BYTES;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < size) {
+                throw new EOFException("File holds fewer than " + width + " * " + height + " cells");
+            }
+
+            return of(channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena), ByteOrder.BIG_ENDIAN,
+                    width, height);
+        }
+    }
+
+}
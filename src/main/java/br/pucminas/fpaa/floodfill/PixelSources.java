@@ -0,0 +1,404 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The implementations of {@link PixelSource} and {@link BandSource}
+ * returned by their factory methods.
+ */
+final class PixelSources {
+
+    private PixelSources() {
+    }
+
+    /**
+     * Checks the dimensions of a matrix against the number of cells available to hold it.
+     *
+     * @param width     the number of columns
+     * @param height    the number of rows
+     * @param available the number of cells available
+     * @throws IllegalArgumentException if the dimensions are not positive or need more cells than available
+     */
+    static void checkDimensions(int width, int height, long available) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Matrix dimensions must be positive");
+        }
+
+        if ((long) width * height > available) {
+            throw new IllegalArgumentException("Matrix of " + width + "x" + height + " needs more than the "
+                    + available + " cells available");
+        }
+    }
+
+    /**
+     * A source over the rows of a 2D matrix.
+     */
+    static final class RowSource implements PixelSource {
+
+        /**
+         * The rows of the matrix
+         */
+        private final int[][] matrix;
+        /**
+         * The number of columns
+         */
+        private final int width;
+
+        RowSource(int[][] matrix) {
+            if (matrix.length == 0 || matrix[0] == null || matrix[0].length == 0) {
+                throw new IllegalArgumentException("Matrix must not be empty");
+            }
+
+            for (int[] row : matrix) {
+                if (row == null || row.length != matrix[0].length) {
+                    throw new IllegalArgumentException("Matrix must be rectangular");
+                }
+            }
+
+            this.matrix = matrix;
+            this.width = matrix[0].length;
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return matrix.length;
+        }
+
+        @Override
+        public int get(int x, int y) {
+            return matrix[y][x];
+        }
+
+        @Override
+        public void set(int x, int y, int value) {
+            matrix[y][x] = value;
+        }
+
+        @Override
+        public void readRect(int x, int y, int columns, int rows, int[] buffer, int offset, int stride) {
+            for (int r = 0; r < rows; r++) {
+                System.arraycopy(matrix[y + r], x, buffer, offset + r * stride, columns);
+            }
+        }
+
+        @Override
+        public void writeRect(int x, int y, int columns, int rows, int[] buffer, int offset, int stride) {
+            for (int r = 0; r < rows; r++) {
+                System.arraycopy(buffer, offset + r * stride, matrix[y + r], x, columns);
+            }
+        }
+    }
+
+    /**
+     * A source over a row-major array.
+     */
+    static final class ArraySource implements PixelSource {
+
+        /**
+         * The cells, row by row
+         */
+        private final int[] cells;
+        /**
+         * The number of columns
+         */
+        private final int width;
+        /**
+         * The number of rows
+         */
+        private final int height;
+
+        ArraySource(int[] cells, int width, int height) {
+            this.cells = cells;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public int get(int x, int y) {
+            return cells[y * width + x];
+        }
+
+        @Override
+        public void set(int x, int y, int value) {
+            cells[y * width + x] = value;
+        }
+
+        /**
+         * Returns the cells, row by row.
+         */
+        int[] cells() {
+            return cells;
+        }
+
+        @Override
+        public void readRect(int x, int y, int columns, int rows, int[] buffer, int offset, int stride) {
+            for (int r = 0; r < rows; r++) {
+                System.arraycopy(cells, (y + r) * width + x, buffer, offset + r * stride, columns);
+            }
+        }
+
+        @Override
+        public void writeRect(int x, int y, int columns, int rows, int[] buffer, int offset, int stride) {
+            for (int r = 0; r < rows; r++) {
+                System.arraycopy(buffer, offset + r * stride, cells, (y + r) * width + x, columns);
+            }
+        }
+    }
+
+    /**
+     * A source over an {@link IntBuffer}, accessed with absolute bulk operations.
+     */
+    static final class BufferSource implements PixelSource {
+
+        /**
+         * The cells, row by row, from index 0
+         */
+        private final IntBuffer cells;
+        /**
+         * The number of columns
+         */
+        private final int width;
+        /**
+         * The number of rows
+         */
+        private final int height;
+
+        BufferSource(IntBuffer cells, int width, int height) {
+            this.cells = cells;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public int get(int x, int y) {
+            return cells.get(y * width + x);
+        }
+
+        @Override
+        public void set(int x, int y, int value) {
+            cells.put(y * width + x, value);
+        }
+
+        /**
+         * Returns the buffer holding the cells, from index 0.
+         */
+        IntBuffer cells() {
+            return cells;
+        }
+
+        @Override
+        public void readRect(int x, int y, int columns, int rows, int[] buffer, int offset, int stride) {
+            for (int r = 0; r < rows; r++) {
+                cells.get((y + r) * width + x, buffer, offset + r * stride, columns);
+            }
+        }
+
+        @Override
+        public void writeRect(int x, int y, int columns, int rows, int[] buffer, int offset, int stride) {
+            for (int r = 0; r < rows; r++) {
+                cells.put((y + r) * width + x, buffer, offset + r * stride, columns);
+            }
+        }
+    }
+
+    /**
+     * A source over a {@link MemorySegment}, addressed with {@code long}
+     * byte offsets so that it may hold more than {@code Integer.MAX_VALUE} cells.
+     */
+    static final class SegmentSource implements PixelSource {
+
+        /**
+         * The cells, row by row, from offset 0
+         */
+        private final MemorySegment cells;
+        /**
+         * The layout of one cell, with the byte order of the segment
+         */
+        private final ValueLayout.OfInt layout;
+        /**
+         * The number of columns
+         */
+        private final int width;
+        /**
+         * The number of rows
+         */
+        private final int height;
+
+        SegmentSource(MemorySegment cells, ByteOrder order, int width, int height) {
+            this.cells = cells;
+            // Mapped files and segments sliced at any byte offset are not necessarily aligned
+            this.layout = ValueLayout.JAVA_INT_UNALIGNED.withOrder(order);
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public int get(int x, int y) {
+            return cells.get(layout, offset(x, y));
+        }
+
+        @Override
+        public void set(int x, int y, int value) {
+            cells.set(layout, offset(x, y), value);
+        }
+
+        @Override
+        public void readRows(int y, int rows, int[] buffer) {
+            MemorySegment.copy(cells, layout, offset(0, y), buffer, 0, rows * width);
+        }
+
+        @Override
+        public void writeRows(int y, int rows, int[] buffer) {
+            MemorySegment.copy(buffer, 0, cells, layout, offset(0, y), rows * width);
+        }
+
+        @Override
+        public void readRect(int x, int y, int columns, int rows, int[] buffer, int offset, int stride) {
+            for (int r = 0; r < rows; r++) {
+                MemorySegment.copy(cells, layout, offset(x, y + r), buffer, offset + r * stride, columns);
+            }
+        }
+
+        @Override
+        public void writeRect(int x, int y, int columns, int rows, int[] buffer, int offset, int stride) {
+            for (int r = 0; r < rows; r++) {
+                MemorySegment.copy(buffer, offset + r * stride, cells, layout, offset(x, y + r), columns);
+            }
+        }
+
+        /**
+         * Returns the byte offset of a cell in the segment.
+         */
+        private long offset(int x, int y) {
+            return ((long) y * width + x) * Integer.BYTES;
+        }
+    }
+
+    /**
+     * A read-only source over a file of raw cells, one big-endian {@code int}
+     * per cell, row by row.
+     */
+    static final class RawFileSource implements BandSource {
+
+        /**
+         * The file holding the cells
+         */
+        private final Path file;
+        /**
+         * The number of columns
+         */
+        private final int width;
+        /**
+         * The number of rows
+         */
+        private final int height;
+        /**
+         * The open file, or null until the first read
+         */
+        private FileChannel channel;
+        /**
+         * The bytes of the last band read, grown to the largest band
+         */
+        private ByteBuffer bytes = ByteBuffer.allocate(0);
+
+        RawFileSource(Path file, int width, int height) {
+            this.file = file;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Returns the file holding the cells.
+         */
+        Path getFile() {
+            return file;
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public void readRows(int y, int rows, int[] buffer) throws IOException {
+            if (channel == null) {
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+            }
+
+            int size = rows * width * Integer.BYTES;
+
+            if (bytes.capacity() < size) {
+                bytes = ByteBuffer.allocate(size);
+            }
+
+            bytes.clear().limit(size);
+            long position = (long) y * width * Integer.BYTES;
+
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, position + bytes.position()) < 0) {
+                    throw new EOFException("File ends before row " + (y + rows));
+                }
+            }
+
+            bytes.flip().asIntBuffer().get(buffer, 0, rows * width);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,209 @@
+package br.pucminas.fpaa.floodfill;
+
+/**
+ * Read-only index of the regions filled by one {@link FloodFill#execute()},
+ * answering which region a cell belongs to and what that region looks like
+ * in constant time. Regions are numbered from 1 in the order a row-by-row
+ * scan finds their first cell, which is also the order in which their values
+ * were generated.
+ * <p>
+ * The index holds one label per cell and a table with the area, bounding
+ * box, seed and value of every region, and does not change after it is
+ * built, so it can be kept and shared after the fill.
+ *
+ * @see FloodFill#setIndexing(boolean)
+ */
+public final class RegionIndex {
+
+    /**
+     * Number of table entries per region
+     */
+    private static final int ENTRY_SIZE = 7;
+    /**
+     * Offsets of each field in a region's table entry
+     */
+    private static final int AREA = 0, MIN_X = 1, MIN_Y = 2, MAX_X = 3, MAX_Y = 4, SEED = 5, VALUE = 6;
+
+    /**
+     * The number of columns of the indexed matrix
+     */
+    private final int width;
+    /**
+     * The number of rows of the indexed matrix
+     */
+    private final int height;
+    /**
+     * The number of regions indexed
+     */
+    private final int regionCount;
+    /**
+     * The region number of every cell ({@code y * width + x}), or 0 outside any region
+     */
+    private final int[] labels;
+    /**
+     * The area, bounding box, seed and value of every region, {@link #ENTRY_SIZE} entries per region
+     */
+    private final int[] table;
+
+    /**
+     * Builds the index of a labeled matrix in a single pass over the labels.
+     *
+     * @param width       the number of columns of the matrix
+     * @param height      the number of rows of the matrix
+     * @param labels      the region number of every cell, which the index takes ownership of
+     * @param regionCount the number of regions
+     * @param values      the value of every region, indexed by region number
+     */
+    RegionIndex(int width, int height, int[] labels, int regionCount, int[] values) {
+        this.width = width;
+        this.height = height;
+        this.regionCount = regionCount;
+        this.labels = labels;
+        this.table = new int[(regionCount + 1) * ENTRY_SIZE];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0, j = y * width; x < width; x++, j++) {
+                int region = labels[j];
+
+                if (region == 0) {
+                    continue;
+                }
+
+                int entry = region * ENTRY_SIZE;
+
+                // The first cell found is the seed, at the top of the bounding box
+                if (table[entry + AREA]++ == 0) {
+                    table[entry + SEED] = j;
+                    table[entry + MIN_X] = x;
+                    table[entry + MIN_Y] = y;
+                    table[entry + MAX_X] = x;
+                    table[entry + VALUE] = values[region];
+                } else {
+                    table[entry + MIN_X] = Math.min(table[entry + MIN_X], x);
+                    table[entry + MAX_X] = Math.max(table[entry + MAX_X], x);
+                }
+
+                table[entry + MAX_Y] = y;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of columns of the indexed matrix.
+     *
+     * @return the width of the index
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the number of rows of the indexed matrix.
+     *
+     * @return the height of the index
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of regions indexed.
+     *
+     * @return the region count
+     */
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    /**
+     * Returns the region the cell at the given coordinates belongs to.
+     *
+     * @param x the x-coordinate (column) of the cell
+     * @param y the y-coordinate (row) of the cell
+     * @return the region number, or 0 if the cell is not part of any region
+     * @throws IndexOutOfBoundsException if the cell is outside the matrix
+     */
+    public int getRegion(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("Cell (" + x + ", " + y + ") is outside the matrix");
+        }
+
+        return labels[y * width + x];
+    }
+
+    /**
+     * Returns the number of cells of a region.
+     *
+     * @param region the region number
+     * @return the area of the region
+     * @throws IndexOutOfBoundsException if there is no such region
+     */
+    public int getArea(int region) {
+        return field(region, AREA);
+    }
+
+    /**
+     * Returns the value the region was filled with.
+     *
+     * @param region the region number
+     * @return the value of the region
+     * @throws IndexOutOfBoundsException if there is no such region
+     */
+    public int getValue(int region) {
+        return field(region, VALUE);
+    }
+
+    /**
+     * Returns the column of the region's first cell in raster order, from
+     * which a sequential fill would have started.
+     *
+     * @param region the region number
+     * @return the x-coordinate of the seed
+     * @throws IndexOutOfBoundsException if there is no such region
+     */
+    public int getSeedX(int region) {
+        return field(region, SEED) % width;
+    }
+
+    /**
+     * Returns the row of the region's first cell in raster order.
+     *
+     * @param region the region number
+     * @return the y-coordinate of the seed
+     * @throws IndexOutOfBoundsException if there is no such region
+     */
+    public int getSeedY(int region) {
+        return field(region, SEED) / width;
+    }
+
+    /**
+     * Returns the bounding box of a region.
+     *
+     * @param region the region number
+     * @return the area of the region and the bounding box of its cells
+     * @throws IndexOutOfBoundsException if there is no such region
+     */
+    public FilledRegion getBounds(int region) {
+        int minX = field(region, MIN_X);
+        int minY = field(region, MIN_Y);
+
+        return new FilledRegion(minX, minY, field(region, MAX_X) - minX + 1, field(region, MAX_Y) - minY + 1,
+                field(region, AREA));
+    }
+
+    /**
+     * Reads one field of a region's table entry.
+     *
+     * @param region the region number
+     * @param field  the offset of the field in the entry
+     * @return the value of the field
+     */
+    private int field(int region, int field) {
+        if (region <= 0 || region > regionCount) {
+            throw new IndexOutOfBoundsException("No region " + region);
+        }
+
+        return table[region * ENTRY_SIZE + field];
+    }
+
+}
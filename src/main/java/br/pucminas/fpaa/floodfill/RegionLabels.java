@@ -0,0 +1,91 @@
+package br.pucminas.fpaa.floodfill;
+
+/**
+ * Label map of the regions of empty cells of a matrix, as produced by
+ * {@link FloodFill#label()}. Every cell holds the number of the region it
+ * belongs to, starting at 1 and following the raster order of each region's
+ * first cell, or 0 if it is not part of any region.
+ */
+public final class RegionLabels {
+
+    /**
+     * The number of columns of the labeled matrix
+     */
+    private final int width;
+    /**
+     * The number of rows of the labeled matrix
+     */
+    private final int height;
+    /**
+     * The number of regions found
+     */
+    private final int regionCount;
+    /**
+     * The region number of every cell, stored row by row
+     */
+    private final int[] labels;
+
+    /**
+     * Creates a label map.
+     *
+     * @param width       the number of columns of the labeled matrix
+     * @param height      the number of rows of the labeled matrix
+     * @param regionCount the number of regions found
+     * @param labels      the region number of every cell, stored row by row
+     */
+    RegionLabels(int width, int height, int regionCount, int[] labels) {
+        this.width = width;
+        this.height = height;
+        this.regionCount = regionCount;
+        this.labels = labels;
+    }
+
+    /**
+     * Returns the number of columns of the labeled matrix.
+     *
+     * @return the width of the label map
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the number of rows of the labeled matrix.
+     *
+     * @return the height of the label map
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of regions found.
+     *
+     * @return the region count
+     */
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    /**
+     * Returns the region number of the cell at the given coordinates.
+     *
+     * @param x the x-coordinate (column) of the cell
+     * @param y the y-coordinate (row) of the cell
+     * @return the region number, or 0 if the cell is not part of any region
+     */
+    public int getLabel(int x, int y) {
+        return labels[y * width + x];
+    }
+
+    /**
+     * Returns the label map itself, where the label of cell (x, y) is stored
+     * at index {@code y * width + x}. The array is not copied.
+     *
+     * @return the region number of every cell, stored row by row
+     */
+    public int[] getLabels() {
+        return labels;
+    }
+
+}
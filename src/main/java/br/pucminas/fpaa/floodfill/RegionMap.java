@@ -0,0 +1,431 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Region label map kept by {@link FloodFill} between executions, so that an
+ * edit to a small area of the matrix can be re-filled without relabeling
+ * everything.
+ * <p>
+ * Every cell holds the label of the region it belongs to, or 0, and every
+ * label has the value its region was filled with. A cell that belongs to a
+ * region can still be filled as long as it holds the empty value or the value
+ * of its region; any other value means it was drawn over. After an edit,
+ * {@link #relabel(int, int, int, int)} gathers the regions touching the edited
+ * area, recomputes their connected components from the current matrix and
+ * decides which components keep an existing label, so the work is
+ * proportional to the regions involved rather than to the matrix.
+ */
+final class RegionMap {
+
+    /**
+     * Label of a pending cell that did not belong to any region before the edit
+     */
+    private static final int NEW = Integer.MIN_VALUE;
+
+    /**
+     * The cells of the matrix, stored row by row
+     */
+    private final int[] matrix;
+    /**
+     * The index in {@link #matrix} of the cell at column 0, row 0
+     */
+    private final int offset;
+    /**
+     * The distance in {@link #matrix} between two vertically adjacent cells
+     */
+    private final int stride;
+    /**
+     * The number of columns
+     */
+    private final int width;
+    /**
+     * The number of rows
+     */
+    private final int height;
+    /**
+     * The value that represents empty cells
+     */
+    private final int emptyValue;
+    /**
+     * The label of every cell ({@code y * width + x}), or 0 for cells outside any region.
+     * While relabeling, pending cells hold the negated label they had, or {@link #NEW}
+     */
+    private final int[] labels;
+    /**
+     * The value of every label's region; label 0 is unused
+     */
+    private int[] values;
+    /**
+     * The highest label in use
+     */
+    private int labelCount;
+    /**
+     * The number of cells of each old label in the component being collected,
+     * and -1 for the labels kept while handing them out; 0 otherwise, so only
+     * the labels touched by an edit are ever reset
+     */
+    private int[] shareCounts;
+    /**
+     * Worklist of packed coordinates used to traverse regions
+     */
+    private final LongWorklist worklist = new LongWorklist();
+
+    /**
+     * Creates the map of a freshly filled matrix.
+     *
+     * @param matrix      the cells of the matrix, stored row by row
+     * @param offset      the index of the cell at column 0, row 0
+     * @param stride      the distance between two vertically adjacent cells
+     * @param width       the number of columns
+     * @param height      the number of rows
+     * @param emptyValue  the value that represents empty cells
+     * @param labels      the label of every cell, which the map takes ownership of
+     * @param regionCount the number of regions, labeled from 1
+     * @param values      the value of every region, indexed by label
+     */
+    RegionMap(int[] matrix, int offset, int stride, int width, int height, int emptyValue, int[] labels,
+              int regionCount, int[] values) {
+        this.matrix = matrix;
+        this.offset = offset;
+        this.stride = stride;
+        this.width = width;
+        this.height = height;
+        this.emptyValue = emptyValue;
+        this.labels = labels;
+        this.values = values;
+        this.labelCount = regionCount;
+        this.shareCounts = new int[values.length];
+    }
+
+    /**
+     * Returns the label of the given cell.
+     *
+     * @param j the index of the cell ({@code y * width + x})
+     * @return the label of the cell's region, or 0 if it is not part of any region
+     */
+    int label(int j) {
+        return labels[j];
+    }
+
+    /**
+     * Returns the value the given region is filled with.
+     *
+     * @param label the label of the region
+     * @return the value of the region
+     */
+    int value(int label) {
+        return values[label];
+    }
+
+    /**
+     * Records the value the given region is filled with.
+     *
+     * @param label the label of the region
+     * @param value the value of the region
+     */
+    void setValue(int label, int value) {
+        values[label] = value;
+    }
+
+    /**
+     * Recomputes the regions touching the rectangle from {@code (minX, minY)}
+     * to {@code (maxX, maxY)} (inclusive), the only area of the matrix that
+     * may have changed since the map was last updated.
+     * <p>
+     * Each resulting component keeps the label of the old region it shares
+     * the most cells with, unless a larger share of that region already kept
+     * it, so a region cut in two keeps its label in the larger piece and
+     * merged regions take the label of the dominant one. Components left
+     * without a label get a new one, whose value must be set by the caller.
+     *
+     * @param minX the first column of the edited area
+     * @param minY the first row of the edited area
+     * @param maxX the last column of the edited area
+     * @param maxY the last row of the edited area
+     * @return the recomputed components, whose cells are already labeled in the map
+     */
+    List<Component> relabel(int minX, int minY, int maxX, int maxY) {
+        // Cells just outside the edited area may be joined to it by erased borders
+        int ringMinX = Math.max(minX - 1, 0);
+        int ringMinY = Math.max(minY - 1, 0);
+        int ringMaxX = Math.min(maxX + 1, width - 1);
+        int ringMaxY = Math.min(maxY + 1, height - 1);
+
+        // Mark every cell of the regions touching the area, and every empty
+        // cell without a region inside it, as pending
+        IntList pending = new IntList();
+
+        for (int y = ringMinY; y <= ringMaxY; y++) {
+            for (int x = ringMinX; x <= ringMaxX; x++) {
+                int j = y * width + x;
+                int label = labels[j];
+
+                if (label > 0) {
+                    markRegion(x, y, label, pending);
+                } else if (label == 0 && x >= minX && x <= maxX && y >= minY && y <= maxY
+                        && matrix[offset + y * stride + x] == emptyValue) {
+                    labels[j] = NEW;
+                    pending.add(j);
+                }
+            }
+        }
+
+        // Split the pending cells into the connected components of the current matrix
+        List<Component> components = new ArrayList<>();
+        List<Share> shares = new ArrayList<>();
+        IntList touched = new IntList();
+
+        for (int p = 0; p < pending.size(); p++) {
+            int j = pending.get(p);
+
+            if (labels[j] >= 0) {
+                continue;
+            }
+
+            if (!isFillable(j)) {
+                labels[j] = 0;
+                continue;
+            }
+
+            Component component = collectComponent(j, shares, touched);
+            components.add(component);
+        }
+
+        // Hand the old labels out, largest shares first
+        shares.sort(Comparator.comparingInt(Share::cells).reversed());
+
+        for (Share share : shares) {
+            if (share.component().label == 0 && shareCounts[share.label()] == 0) {
+                share.component().label = share.label();
+                shareCounts[share.label()] = -1;
+            }
+        }
+
+        for (Share share : shares) {
+            shareCounts[share.label()] = 0;
+        }
+
+        for (Component component : components) {
+            if (component.label == 0) {
+                component.label = newLabel();
+                component.isNew = true;
+            }
+
+            for (int j : component.cells) {
+                labels[j] = component.label;
+            }
+        }
+
+        return components;
+    }
+
+    /**
+     * Marks all cells of a region as pending, storing their negated label.
+     *
+     * @param startX a column of the region
+     * @param startY a row of the region
+     * @param label  the label of the region
+     * @param pending the list receiving the marked cells
+     */
+    private void markRegion(int startX, int startY, int label, IntList pending) {
+        LongWorklist stack = worklist;
+        stack.clear();
+        stack.push(startX, startY);
+        labels[startY * width + startX] = -label;
+        pending.add(startY * width + startX);
+
+        while (!stack.isEmpty()) {
+            long current = stack.pop();
+            int x = LongWorklist.x(current);
+            int y = LongWorklist.y(current);
+            int j = y * width + x;
+
+            if (x + 1 < width && labels[j + 1] == label) {
+                markPending(x + 1, y, j + 1, stack, pending);
+            }
+            if (x > 0 && labels[j - 1] == label) {
+                markPending(x - 1, y, j - 1, stack, pending);
+            }
+            if (y + 1 < height && labels[j + width] == label) {
+                markPending(x, y + 1, j + width, stack, pending);
+            }
+            if (y > 0 && labels[j - width] == label) {
+                markPending(x, y - 1, j - width, stack, pending);
+            }
+        }
+    }
+
+    private void markPending(int x, int y, int j, LongWorklist stack, IntList pending) {
+        labels[j] = -labels[j];
+        pending.add(j);
+        stack.push(x, y);
+    }
+
+    /**
+     * Collects the component of pending, fillable cells containing the given
+     * cell, counting how many of its cells came from each old region.
+     *
+     * @param start   the first cell of the component
+     * @param shares  the list receiving the component's share of each old region
+     * @param touched an empty list to collect the old labels met in, left empty on return
+     * @return the component, whose cells are set to 0 in the label map
+     */
+    private Component collectComponent(int start, List<Share> shares, IntList touched) {
+        IntList cells = new IntList();
+
+        LongWorklist stack = worklist;
+        stack.clear();
+        visit(start, cells, touched);
+        stack.push(start % width, start / width);
+
+        while (!stack.isEmpty()) {
+            long current = stack.pop();
+            int x = LongWorklist.x(current);
+            int y = LongWorklist.y(current);
+            int j = y * width + x;
+
+            if (x + 1 < width && isPendingFillable(j + 1)) {
+                visit(j + 1, cells, touched);
+                stack.push(x + 1, y);
+            }
+            if (x > 0 && isPendingFillable(j - 1)) {
+                visit(j - 1, cells, touched);
+                stack.push(x - 1, y);
+            }
+            if (y + 1 < height && isPendingFillable(j + width)) {
+                visit(j + width, cells, touched);
+                stack.push(x, y + 1);
+            }
+            if (y > 0 && isPendingFillable(j - width)) {
+                visit(j - width, cells, touched);
+                stack.push(x, y - 1);
+            }
+        }
+
+        Component component = new Component(cells.toArray());
+
+        for (int t = 0; t < touched.size(); t++) {
+            int label = touched.get(t);
+            shares.add(new Share(component, label, shareCounts[label]));
+            shareCounts[label] = 0;
+        }
+
+        touched.clear();
+
+        return component;
+    }
+
+    /**
+     * Adds a pending cell to the component being collected.
+     */
+    private void visit(int j, IntList cells, IntList touched) {
+        if (labels[j] != NEW && shareCounts[-labels[j]]++ == 0) {
+            touched.add(-labels[j]);
+        }
+
+        labels[j] = 0;
+        cells.add(j);
+    }
+
+    private boolean isPendingFillable(int j) {
+        return labels[j] < 0 && isFillable(j);
+    }
+
+    /**
+     * Checks if a pending cell can still be filled: it is empty, or it still
+     * holds the value of the region it belonged to.
+     *
+     * @param j the index of the pending cell
+     * @return true if the cell is part of a region, false if it was drawn over
+     */
+    private boolean isFillable(int j) {
+        int value = matrix[offset + (j / width) * stride + j % width];
+        return value == emptyValue || labels[j] != NEW && value == values[-labels[j]];
+    }
+
+    /**
+     * Allocates a label for a new region.
+     *
+     * @return the new label
+     */
+    private int newLabel() {
+        if (++labelCount == values.length) {
+            values = Arrays.copyOf(values, labelCount << 1);
+            shareCounts = Arrays.copyOf(shareCounts, labelCount << 1);
+        }
+
+        return labelCount;
+    }
+
+    /**
+     * A connected component found while relabeling.
+     */
+    static final class Component {
+
+        /**
+         * The cells of the component ({@code y * width + x}), in ascending order
+         */
+        final int[] cells;
+        /**
+         * The label given to the component
+         */
+        int label;
+        /**
+         * True if the label is new and has no value yet
+         */
+        boolean isNew;
+
+        Component(int[] cells) {
+            Arrays.sort(cells);
+            this.cells = cells;
+        }
+    }
+
+    /**
+     * The number of cells a component took from an old region.
+     *
+     * @param component the component
+     * @param label     the label of the old region
+     * @param cells     the number of cells of the old region in the component
+     */
+    private record Share(Component component, int label, int cells) {
+    }
+
+    /**
+     * Minimal growable list of {@code int} values.
+     */
+    private static final class IntList {
+
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+}
@@ -0,0 +1,490 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Flood fill for matrices too large to be held in memory, such as scans of
+ * tens of thousands of pixels on each side. The matrix is read from a
+ * {@link BandSource} in horizontal bands and the result is written to a
+ * {@link PixelSource}, such as a memory-mapped file of raw cells, so the
+ * memory used grows with the width of the matrix and the band height rather
+ * than with the number of cells. A matrix that is itself a pixel source, for
+ * example one held in native memory, can be filled in place.
+ * <p>
+ * The fill makes two streaming passes over the source. The first labels the
+ * empty cells of each band as {@link TwoPassLabeler} does, with a union-find
+ * of the band's provisional labels. Only the sets reaching the band's last
+ * row are carried into the next band, renumbered from 1, so the labels are
+ * recycled band after band. Every other set is a closed region, of which
+ * only the first cell is kept, and a piece carried in that is joined to an
+ * earlier one is recorded by the first cells of both. Between the passes the
+ * regions are numbered in raster order of their first cells, and one value
+ * is generated per region. The second pass labels every band again, which yields the
+ * same labels, traces each set to its region through the joined pieces, and
+ * writes each band with its regions filled to the output.
+ * <p>
+ * Apart from the bands, one value and one first cell per region are kept,
+ * plus two first cells per piece carried across a band boundary before
+ * being joined to another.
+ * <p>
+ * Regions are numbered, and their values generated, in the same order as
+ * {@link FloodFill} with the labeling strategies, so both produce the same
+ * result for the same matrix and values.
+ */
+public abstract class StreamingFloodFill {
+
+    /**
+     * Default number of rows read at a time
+     */
+    public static final int DEFAULT_BAND_HEIGHT = 256;
+
+    /**
+     * The source of the cells to fill
+     */
+    private final BandSource source;
+    /**
+     * The number of columns
+     */
+    private final int width;
+    /**
+     * The number of rows
+     */
+    private final int height;
+    /**
+     * The value that represents empty cells to be filled
+     */
+    private final int emptyValue;
+    /**
+     * The number of rows read at a time
+     */
+    private int bandHeight = DEFAULT_BAND_HEIGHT;
+    /**
+     * Union-find parent of each provisional label of the current band; label 0 is unused
+     */
+    private int[] parent;
+    /**
+     * The first cell ({@code y * width + x}) of each provisional label, and
+     * of each set at its root
+     */
+    private long[] first;
+    /**
+     * The labels of the row above the current band, as numbered in it
+     */
+    private int[] carry;
+    /**
+     * The first cell of the set of each label carried into the current band
+     */
+    private long[] carryFirst;
+    /**
+     * The number of labels carried into the current band
+     */
+    private int carried;
+    /**
+     * The first cells of the pieces joined to an earlier set in a later band, sorted
+     */
+    private long[] joinedFrom;
+    /**
+     * The first cell of the set each piece in {@link #joinedFrom} was joined to
+     */
+    private long[] joinedTo;
+
+    /**
+     * Constructs a streaming fill of the matrix read from the given source.
+     *
+     * @param source     the source of the cells to perform flood fill on
+     * @param emptyValue the value that represents empty cells to be filled
+     * @throws IllegalArgumentException if the source has no cells
+     */
+    public StreamingFloodFill(BandSource source, int emptyValue) {
+        if (source.getWidth() <= 0 || source.getHeight() <= 0) {
+            throw new IllegalArgumentException("Matrix dimensions must be positive");
+        }
+
+        this.source = source;
+        this.width = source.getWidth();
+        this.height = source.getHeight();
+        this.emptyValue = emptyValue;
+    }
+
+    /**
+     * Generates a new value to be used for filling a connected region. This
+     * method is called once per region, in the order of the regions' first
+     * cells, before any cell is written.
+     *
+     * @return the value to use for filling the current region
+     */
+    public abstract int generateValue();
+
+    /**
+     * Returns the number of rows read at a time.
+     *
+     * @return the band height
+     */
+    public int getBandHeight() {
+        return bandHeight;
+    }
+
+    /**
+     * Sets the number of rows read at a time. Each band takes about
+     * {@code 6 * width * bandHeight} ints of memory.
+     *
+     * @param bandHeight the band height
+     * @throws IllegalArgumentException if bandHeight is not positive or a band
+     *                                  has more than {@code Integer.MAX_VALUE / 4} cells
+     */
+    public void setBandHeight(int bandHeight) {
+        if (bandHeight <= 0 || (long) width * bandHeight > Integer.MAX_VALUE / Integer.BYTES) {
+            throw new IllegalArgumentException("Band height must be positive and fit a band in an array");
+        }
+
+        this.bandHeight = bandHeight;
+    }
+
+    /**
+     * Fills every region of empty cells of the source and writes the result
+     * to the given file as raw cells, one big-endian {@code int} per cell,
+     * row by row, the format read by {@link BandSource#ofRawFile(Path, int, int)}.
+     * The file is created, or truncated if it exists, so it must not be the
+     * file the source reads; {@link PixelSource#mapRawFile} fills that one in place.
+     *
+     * @param output the file receiving the filled matrix
+     * @return the number of regions filled
+     * @throws IOException              if the source cannot be read or the output cannot be written
+     * @throws IllegalArgumentException if the output is the file of a
+     *                                  {@link BandSource#ofRawFile(Path, int, int)} source
+     */
+    public int execute(Path output) throws IOException {
+        // Truncating the source's own file would lose the matrix before it is read
+        if (source instanceof PixelSources.RawFileSource raw && Files.exists(output)
+                && Files.isSameFile(raw.getFile(), output)) {
+            throw new IllegalArgumentException("Output must not be the source file; map it with "
+                    + "PixelSource.mapRawFile to fill it in place");
+        }
+
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             Arena arena = Arena.ofConfined()) {
+            // Mapping past the end of the file extends it to the size of the matrix
+            PixelSource file = PixelSource.of(channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) width * height * Integer.BYTES, arena), ByteOrder.BIG_ENDIAN, width, height);
+            return execute(file);
+        }
+    }
+
+    /**
+     * Fills every region of empty cells of the source and writes the result
+     * to the given pixel source. The output may be the source itself, which
+     * is then filled in place: the second pass reads each band before
+     * writing it, and never reads it again.
+     *
+     * @param output the pixel source receiving the filled matrix
+     * @return the number of regions filled
+     * @throws IOException              if the source cannot be read
+     * @throws IllegalArgumentException if the output does not have the dimensions of the source
+     * @throws IllegalStateException    if the matrix has more regions than an array can number
+     */
+    public int execute(PixelSource output) throws IOException {
+        if (output.getWidth() != width || output.getHeight() != height) {
+            throw new IllegalArgumentException("Output must have the dimensions of the source");
+        }
+
+        int rowsPerBand = Math.min(bandHeight, height);
+        int bandCells = width * rowsPerBand;
+        int[] cells = new int[bandCells];
+        int[] labels = new int[bandCells];
+        // Every new label takes a cell of the band, and fewer labels than columns are carried into it
+        parent = new int[bandCells + width + 1];
+        first = new long[parent.length];
+        int[] roots = new int[parent.length];
+        carry = new int[width];
+        carryFirst = new long[width + 1];
+        carried = 0;
+
+        // First pass: the first cell of every region, and of every piece joined to an earlier one
+        LongList regionList = new LongList();
+        LongList joinedList = new LongList();
+
+        for (int y = 0; y < height; y += rowsPerBand) {
+            int rows = Math.min(rowsPerBand, height - y);
+            source.readRows(y, rows, cells);
+            int provisional = labelBand(y, cells, labels, rows);
+
+            // A piece carried in is joined to an earlier one if it is no longer its set's first.
+            // Roots are the smallest labels rather than the earliest pieces, so the first cells
+            // of the pieces are read from the carried row, which union may have overwritten
+            for (int label = 1; label <= carried; label++) {
+                long root = first[find(label)];
+
+                if (root != carryFirst[label]) {
+                    joinedList.add(carryFirst[label]);
+                    joinedList.add(root);
+                }
+            }
+
+            Arrays.fill(roots, 1, provisional + 1, 0);
+
+            if (y + rows < height) {
+                carryLastRow(labels, rows, roots);
+            }
+
+            // Regions that reach no cell of the last row are closed
+            for (int label = 1; label <= provisional; label++) {
+                if (parent[label] == label && roots[label] == 0) {
+                    regionList.add(first[label]);
+                }
+            }
+        }
+
+        // Numbering the regions by their first cells numbers them in raster order
+        long[] regions = regionList.toArray();
+        Arrays.sort(regions);
+        int regionCount = regions.length;
+        sortJoined(joinedList.toArray());
+
+        int[] values = new int[regionCount + 1];
+
+        for (int region = 1; region <= regionCount; region++) {
+            values[region] = generateValue();
+        }
+
+        // Second pass: the same labels, whose sets are traced to their regions' values
+        Arrays.fill(carry, 0);
+        carried = 0;
+
+        for (int y = 0; y < height; y += rowsPerBand) {
+            int rows = Math.min(rowsPerBand, height - y);
+            source.readRows(y, rows, cells);
+            int provisional = labelBand(y, cells, labels, rows);
+
+            for (int label = 1; label <= provisional; label++) {
+                int root = find(label);
+
+                if (root == label) {
+                    roots[label] = values[Arrays.binarySearch(regions, region(first[label])) + 1];
+                }
+
+                parent[label] = root;
+            }
+
+            for (int j = 0, end = rows * width; j < end; j++) {
+                if (labels[j] != 0) {
+                    cells[j] = roots[parent[labels[j]]];
+                }
+            }
+
+            output.writeRows(y, rows, cells);
+
+            if (y + rows < height) {
+                Arrays.fill(roots, 1, provisional + 1, 0);
+                carryLastRow(labels, rows, roots);
+            }
+        }
+
+        parent = null;
+        first = null;
+        carry = null;
+        carryFirst = null;
+        joinedFrom = null;
+        joinedTo = null;
+        return regionCount;
+    }
+
+    /**
+     * Gives every empty cell of a band the provisional label of its left or
+     * upper neighbor, or a new one if neither is empty, and records in the
+     * union-find which labels belong to the same region. The labels carried
+     * from the previous band come first, and the upper neighbors of the
+     * band's first row are read from them.
+     *
+     * @param y      the first row of the band
+     * @param cells  the cells of the band
+     * @param labels the array receiving the provisional labels of the band
+     * @param rows   the number of rows of the band
+     * @return the last provisional label given
+     */
+    private int labelBand(int y, int[] cells, int[] labels, int rows) {
+        for (int label = 1; label <= carried; label++) {
+            parent[label] = label;
+            first[label] = carryFirst[label];
+        }
+
+        int provisional = carried;
+
+        for (int r = 0; r < rows; r++) {
+            int row = r * width;
+
+            for (int x = 0; x < width; x++) {
+                int j = row + x;
+
+                if (cells[j] != emptyValue) {
+                    labels[j] = 0;
+                    continue;
+                }
+
+                int left = x > 0 ? labels[j - 1] : 0;
+                int up = r > 0 ? labels[j - width] : carry[x];
+
+                if (left != 0) {
+                    labels[j] = left;
+
+                    if (up != 0 && up != left) {
+                        union(left, up);
+                    }
+                } else if (up != 0) {
+                    labels[j] = up;
+                } else {
+                    labels[j] = ++provisional;
+                    parent[provisional] = provisional;
+                    first[provisional] = (long) (y + r) * width + x;
+                }
+            }
+        }
+
+        return provisional;
+    }
+
+    /**
+     * Carries the sets reaching the last row of a band into the next band,
+     * numbered from 1 in the order the row meets them, so the labels of a
+     * band are recycled once it is done.
+     *
+     * @param labels the provisional labels of the band
+     * @param rows   the number of rows of the band
+     * @param next   zero for every label of the band; receives the label
+     *               each carried root has in the next band
+     */
+    private void carryLastRow(int[] labels, int rows, int[] next) {
+        int row = (rows - 1) * width;
+        carried = 0;
+
+        for (int x = 0; x < width; x++) {
+            int label = labels[row + x];
+
+            if (label == 0) {
+                carry[x] = 0;
+                continue;
+            }
+
+            int root = find(label);
+
+            if (next[root] == 0) {
+                next[root] = ++carried;
+                carryFirst[carried] = first[root];
+            }
+
+            carry[x] = next[root];
+        }
+    }
+
+    /**
+     * Sorts the joined pieces of the first pass by their first cells, so the
+     * second pass can look them up.
+     *
+     * @param joined pairs of the first cell of a piece and of the set it was joined to
+     */
+    private void sortJoined(long[] joined) {
+        joinedFrom = new long[joined.length / 2];
+        joinedTo = new long[joinedFrom.length];
+
+        for (int k = 0; k < joinedFrom.length; k++) {
+            joinedFrom[k] = joined[2 * k];
+        }
+
+        Arrays.sort(joinedFrom);
+
+        for (int k = 0; k < joinedFrom.length; k++) {
+            joinedTo[Arrays.binarySearch(joinedFrom, joined[2 * k])] = joined[2 * k + 1];
+        }
+    }
+
+    /**
+     * Returns the first cell of the region a piece ends up in, following the
+     * pieces it is joined to in later bands.
+     *
+     * @param cell the first cell of the piece
+     * @return the first cell of its region
+     */
+    private long region(long cell) {
+        int k;
+
+        while ((k = Arrays.binarySearch(joinedFrom, cell)) >= 0) {
+            cell = joinedTo[k];
+        }
+
+        return cell;
+    }
+
+    /**
+     * Records that two provisional labels belong to the same region, linking
+     * the root with the larger label under the one with the smaller label.
+     *
+     * @param a the first label
+     * @param b the second label
+     */
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+            first[rootA] = Math.min(first[rootA], first[rootB]);
+        } else if (rootB < rootA) {
+            parent[rootA] = rootB;
+            first[rootB] = Math.min(first[rootA], first[rootB]);
+        }
+    }
+
+    /**
+     * Finds the root of the set containing the given provisional label,
+     * halving the path on the way.
+     *
+     * @param label the provisional label
+     * @return the root label of its set
+     */
+    private int find(int label) {
+        while (parent[label] != label) {
+            parent[label] = parent[parent[label]];
+            label = parent[label];
+        }
+
+        return label;
+    }
+
+    /**
+     * Minimal growable list of {@code long} values.
+     */
+    private static final class LongList {
+
+        /**
+         * The largest array length the virtual machine allocates
+         */
+        private static final int MAX_LENGTH = Integer.MAX_VALUE - 8;
+
+        private long[] values = new long[16];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                if (size == MAX_LENGTH) {
+                    throw new IllegalStateException("Matrix has more regions than an array can hold");
+                }
+
+                values = Arrays.copyOf(values, (int) Math.min((long) size << 1, MAX_LENGTH));
+            }
+
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+}
@@ -0,0 +1,183 @@
+package br.pucminas.fpaa.floodfill;
+
+import java.util.Arrays;
+
+/**
+ * Labels the 4-connected regions of empty cells of a matrix with the classic
+ * two-pass (Hoshen-Kopelman) algorithm.
+ * <p>
+ * The first pass visits the cells in raster order and gives every empty cell
+ * the provisional label of its left or upper neighbor, or a new one if
+ * neither is empty, recording in a union-find that two labels are equivalent
+ * whenever both neighbors are empty. The second pass replaces provisional
+ * labels with the final region numbers. Each cell is touched a fixed number
+ * of times in a purely sequential access pattern.
+ */
+final class TwoPassLabeler {
+
+    /**
+     * The cells being labeled, stored row by row
+     */
+    private int[] matrix;
+    /**
+     * The index in {@link #matrix} of the cell at column 0, row 0
+     */
+    private int offset;
+    /**
+     * The distance in {@link #matrix} between two vertically adjacent cells
+     */
+    private int stride;
+    /**
+     * The number of columns
+     */
+    private int width;
+    /**
+     * The number of rows
+     */
+    private int height;
+    /**
+     * The value that represents empty cells
+     */
+    private final int emptyValue;
+    /**
+     * Union-find parent of each provisional label; label 0 is unused
+     */
+    private int[] parent = new int[64];
+
+    /**
+     * Creates a labeler for the given matrix.
+     *
+     * @param matrix     the cells to label, stored row by row
+     * @param offset     the index of the cell at column 0, row 0
+     * @param stride     the distance between two vertically adjacent cells
+     * @param width      the number of columns
+     * @param height     the number of rows
+     * @param emptyValue the value that represents empty cells
+     */
+    TwoPassLabeler(int[] matrix, int offset, int stride, int width, int height, int emptyValue) {
+        this.emptyValue = emptyValue;
+        reset(matrix, offset, stride, width, height);
+    }
+
+    /**
+     * Points the labeler at another matrix, keeping the union-find array it
+     * has grown so far.
+     *
+     * @param matrix the cells to label, stored row by row
+     * @param offset the index of the cell at column 0, row 0
+     * @param stride the distance between two vertically adjacent cells
+     * @param width  the number of columns
+     * @param height the number of rows
+     */
+    void reset(int[] matrix, int offset, int stride, int width, int height) {
+        this.matrix = matrix;
+        this.offset = offset;
+        this.stride = stride;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Labels the regions of empty cells. On return, {@code labels[y * width + x]}
+     * holds the number (starting at 1) of the region containing cell (x, y), or
+     * 0 if the cell is not empty. Regions are numbered in raster order of their
+     * first cell.
+     *
+     * @param labels the array receiving the labels, with at least width * height elements
+     * @return the number of regions found
+     */
+    int label(int[] labels) {
+        int provisional = 0;
+
+        // First pass: provisional labels and their equivalences
+        for (int y = 0; y < height; y++) {
+            int row = offset + y * stride;
+            int labelRow = y * width;
+
+            for (int x = 0; x < width; x++) {
+                int j = labelRow + x;
+
+                if (matrix[row + x] != emptyValue) {
+                    labels[j] = 0;
+                    continue;
+                }
+
+                int left = x > 0 ? labels[j - 1] : 0;
+                int up = y > 0 ? labels[j - width] : 0;
+
+                if (left != 0) {
+                    labels[j] = left;
+
+                    if (up != 0 && up != left) {
+                        union(left, up);
+                    }
+                } else if (up != 0) {
+                    labels[j] = up;
+                } else {
+                    labels[j] = ++provisional;
+
+                    if (provisional == parent.length) {
+                        parent = Arrays.copyOf(parent, provisional << 1);
+                    }
+
+                    parent[provisional] = provisional;
+                }
+            }
+        }
+
+        // Parents always have smaller labels, so the root of each set is its
+        // smallest label, created at the region's first cell. Visiting labels in
+        // increasing order numbers roots in raster order, and the parent of any
+        // other label has already been replaced by its region number
+        int regionCount = 0;
+
+        for (int label = 1; label <= provisional; label++) {
+            int up = parent[label];
+            parent[label] = up == label ? ++regionCount : parent[up];
+        }
+
+        // Second pass: final region numbers
+        for (int j = 0, end = width * height; j < end; j++) {
+            if (labels[j] != 0) {
+                labels[j] = parent[labels[j]];
+            }
+        }
+
+        return regionCount;
+    }
+
+    /**
+     * Records that two provisional labels belong to the same region, linking
+     * the root with the larger label under the one with the smaller label.
+     *
+     * @param a the first label
+     * @param b the second label
+     */
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+        } else if (rootB < rootA) {
+            parent[rootA] = rootB;
+        }
+    }
+
+    /**
+     * Finds the root of the set containing the given provisional label,
+     * halving the path on the way.
+     *
+     * @param label the provisional label
+     * @return the root label of its set
+     */
+    private int find(int label) {
+        while (parent[label] != label) {
+            parent[label] = parent[parent[label]];
+            label = parent[label];
+        }
+
+        return label;
+    }
+
+}
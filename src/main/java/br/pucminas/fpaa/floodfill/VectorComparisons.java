@@ -0,0 +1,91 @@
+package br.pucminas.fpaa.floodfill;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementation of the comparisons of {@link CellComparisons}.
+ * This is the only class that refers to the {@code jdk.incubator.vector}
+ * module, so it fails to load, and {@link CellComparisons} falls back to its
+ * scalar loop, when the module is not resolved.
+ */
+final class VectorComparisons {
+
+    /**
+     * The widest vector shape the platform supports
+     */
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private VectorComparisons() {
+    }
+
+    /**
+     * Checks if vectors wider than a single lane are available.
+     *
+     * @return true if vectorised comparisons are worthwhile
+     */
+    static boolean isSupported() {
+        return SPECIES.length() > 1;
+    }
+
+    /**
+     * Finds the first cell holding the given value, comparing a whole vector
+     * of cells at a time.
+     *
+     * @param cells the array holding the values
+     * @param from  the index of the first cell
+     * @param to    the index after the last cell
+     * @param value the value to look for
+     * @return the index of the first cell holding the value, or {@code to} if there is none
+     */
+    static int indexOf(int[] cells, int from, int to, int value) {
+        int i = from;
+
+        for (int end = from + SPECIES.loopBound(to - from); i < end; i += SPECIES.length()) {
+            VectorMask<Integer> matches = IntVector.fromArray(SPECIES, cells, i).eq(value);
+
+            if (matches.anyTrue()) {
+                return i + matches.firstTrue();
+            }
+        }
+
+        return CellComparisons.indexOfScalar(cells, i, to, value);
+    }
+
+    /**
+     * Replaces every value within the tolerance of the reference with the
+     * reference, except the kept value, comparing a whole vector of values
+     * per channel at a time.
+     *
+     * @param cells     the array holding the values
+     * @param from      the index of the first value
+     * @param to        the index after the last value
+     * @param reference the value to compare with and to write
+     * @param tolerance the largest difference allowed in each channel
+     * @param kept      the value left as it is even within the tolerance
+     */
+    static void snap(int[] cells, int from, int to, int reference, int tolerance, int kept) {
+        IntVector references = IntVector.broadcast(SPECIES, reference);
+        int i = from;
+
+        for (int end = from + SPECIES.loopBound(to - from); i < end; i += SPECIES.length()) {
+            IntVector values = IntVector.fromArray(SPECIES, cells, i);
+            VectorMask<Integer> matches = values.compare(VectorOperators.NE, kept);
+
+            for (int shift = 0; shift < 32; shift += 8) {
+                IntVector difference = values.lanewise(VectorOperators.LSHR, shift).and(0xFF)
+                        .sub(reference >>> shift & 0xFF)
+                        .abs();
+                matches = matches.and(difference.compare(VectorOperators.LE, tolerance));
+            }
+
+            values.blend(references, matches).intoArray(cells, i);
+        }
+
+        // The tail that does not fill a whole vector
+        CellComparisons.snapScalar(cells, i, to, reference, tolerance, kept);
+    }
+
+}
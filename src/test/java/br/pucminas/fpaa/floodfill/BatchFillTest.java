@@ -0,0 +1,114 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BatchFillTest {
+
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRun_FillsEveryImageThroughThePipeline() throws IOException, InterruptedException {
+        Path input = Files.createDirectory(directory.resolve("input"));
+        Path output = directory.resolve("output");
+
+        int[] types = { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_BYTE_GRAY };
+        for (int k = 0; k < 9; k++) {
+            ImageIO.write(splitImage(types[k % types.length], 30 + k, 20), "png",
+                    input.resolve("image" + k + ".png").toFile());
+        }
+
+        BatchFill batch = new BatchFill(input, output);
+        batch.setFillThreads(2);
+        batch.setQueueCapacity(1);
+        BatchReport report = batch.run();
+
+        assertEquals(9, report.getImageCount());
+        assertEquals(0, report.getFailureCount());
+        assertEquals(20L * (30 + 31 + 32 + 33 + 34 + 35 + 36 + 37 + 38), report.getPixelCount());
+        assertTrue(report.getLatencyPercentile(0.5) <= report.getLatencyPercentile(0.99));
+
+        for (int k = 0; k < 9; k++) {
+            BufferedImage image = ImageIO.read(output.resolve("image" + k + ".png").toFile());
+
+            assertEquals(BLACK, image.getRGB(10, 5), "Image " + k + ": borders should be kept");
+            assertNotEquals(WHITE, image.getRGB(0, 0), "Image " + k + ": left region should be filled");
+            assertNotEquals(WHITE, image.getRGB(29, 19), "Image " + k + ": right region should be filled");
+        }
+    }
+
+    @Test
+    public void testRun_CountsUnreadableImagesAsFailures() throws IOException, InterruptedException {
+        Path input = Files.createDirectory(directory.resolve("input"));
+        ImageIO.write(splitImage(BufferedImage.TYPE_INT_RGB, 8, 8), "png", input.resolve("good.png").toFile());
+        Files.writeString(input.resolve("broken.png"), "not an image");
+        Files.writeString(input.resolve("notes.txt"), "ignored");
+
+        BatchReport report = new BatchFill(input, directory.resolve("output")).run();
+
+        assertEquals(1, report.getImageCount());
+        assertEquals(1, report.getFailureCount());
+        assertTrue(Files.exists(directory.resolve("output/good.png")));
+    }
+
+    @Test
+    public void testFromArguments_ParsesOptions() {
+        assertThrows(IllegalArgumentException.class, () -> BatchFill.fromArguments(new String[] { "in" }));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchFill.fromArguments(new String[] { "in", "out", "--threads" }));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchFill.fromArguments(new String[] { "in", "out", "--threads", "0" }));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchFill.fromArguments(new String[] { "in", "out", "--strategy", "diagonal" }));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchFill.fromArguments(new String[] { "in", "out", "--colour", "red" }));
+
+        BatchFill.fromArguments(new String[] { "in", "out", "--strategy", "two_pass", "--threads", "3", "--queue",
+                "4", "--tolerance", "10" });
+    }
+
+    @Test
+    public void testReport_ComputesNearestRankPercentiles() {
+        BatchReport report = new BatchReport(0, 2_000_000, 2_000_000_000L, new long[] { 40, 10, 30, 20 });
+
+        assertEquals(4, report.getImageCount());
+        assertEquals(20, report.getLatencyPercentile(0.5));
+        assertEquals(40, report.getLatencyPercentile(0.99));
+        assertEquals(10, report.getLatencyPercentile(0));
+        assertEquals(2.0, report.getImagesPerSecond(), 1e-9);
+        assertEquals(1.0, report.getMegapixelsPerSecond(), 1e-9);
+    }
+
+    /**
+     * Creates a white image split in two regions by a vertical black line at column 10.
+     */
+    private static BufferedImage splitImage(int type, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(Color.BLACK);
+        graphics.fillRect(10, 0, 1, height);
+        graphics.dispose();
+
+        return image;
+    }
+}
@@ -0,0 +1,50 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class BitMaskTest {
+
+    @Test
+    public void testBitMask_RangesMatchBitSet() {
+        Random random = new Random(17);
+        int size = 300;
+        BitMask mask = new BitMask();
+
+        for (int round = 0; round < 200; round++) {
+            mask.reset(size);
+            BitSet expected = new BitSet(size);
+
+            for (int range = 0; range < 3; range++) {
+                int from = random.nextInt(size + 1);
+                int to = from + random.nextInt(size + 1 - from);
+                mask.set(from, to);
+                expected.set(from, to);
+            }
+
+            int single = random.nextInt(size);
+            mask.set(single);
+            expected.set(single);
+
+            for (int i = 0; i < size; i++) {
+                assertEquals(expected.get(i), mask.get(i), "round " + round + ", bit " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testBitMask_ResetClearsReusedWords() {
+        BitMask mask = new BitMask();
+        mask.reset(128);
+        mask.set(0, 128);
+        mask.reset(64);
+
+        for (int i = 0; i < 64; i++) {
+            assertEquals(false, mask.get(i), "bit " + i + " should be cleared");
+        }
+    }
+}
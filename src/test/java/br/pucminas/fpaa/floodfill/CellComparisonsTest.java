@@ -0,0 +1,81 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class CellComparisonsTest {
+
+    private static final int WHITE = 0xFFFFFFFF;
+    private static final int KEPT = 0xFFFFFFFC;
+
+    @Test
+    public void testIndexOf_FindsFirstMatchAtEveryPosition() {
+        for (int length : new int[] { 0, 1, 7, 8, 9, 16, 33, 100 }) {
+            int[] cells = new int[length + 4];
+
+            for (int target = 2; target <= length + 2; target++) {
+                Arrays.fill(cells, 5);
+
+                if (target < length + 2) {
+                    cells[target] = 0;
+                    cells[Math.min(target + 1, cells.length - 1)] = 0;
+                }
+
+                assertEquals(target, CellComparisons.indexOf(cells, 2, 2 + length, 0),
+                        "Length " + length + ", vectorised: " + CellComparisons.isVectorized());
+            }
+        }
+    }
+
+    @Test
+    public void testIndexOf_IgnoresCellsOutsideTheRange() {
+        int[] cells = { 0, 1, 1, 1, 0 };
+
+        assertEquals(4, CellComparisons.indexOf(cells, 1, 4, 0), "Should return the end when nothing matches");
+        assertEquals(0, CellComparisons.indexOf(cells, 0, 5, 0));
+    }
+
+    @Test
+    public void testSnap_VectorAndScalarAgree() {
+        Random random = new Random(8);
+
+        for (int length : new int[] { 0, 1, 7, 8, 15, 16, 17, 63, 100 }) {
+            int[] values = new int[length + 3];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = WHITE - random.nextInt(0x100) * (random.nextBoolean() ? 0x01 : 0x010000);
+            }
+
+            // Within the tolerance, but never replaced
+            for (int i = 0; i < values.length; i += 5) {
+                values[i] = KEPT;
+            }
+
+            int[] scalar = values.clone();
+            int[] dispatched = values.clone();
+            CellComparisons.snapScalar(scalar, 2, 2 + length, WHITE, 40, KEPT);
+            CellComparisons.snap(dispatched, 2, 2 + length, WHITE, 40, KEPT);
+
+            assertArrayEquals(scalar, dispatched, "Length " + length + ", vectorised: "
+                    + CellComparisons.isVectorized());
+
+            for (int i = 0; i < values.length; i += 5) {
+                assertEquals(KEPT, dispatched[i], "Length " + length + ": kept value at " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testWithin_ComparesEveryChannel() {
+        assertTrue(CellComparisons.within(0x10203040, 0x12213F3E, 15));
+        assertFalse(CellComparisons.within(0x10203040, 0x10203050, 15), "Blue differs by 16");
+        assertFalse(CellComparisons.within(0x00FFFFFF, 0xFFFFFFFF, 254), "Alpha differs by 255");
+    }
+
+}
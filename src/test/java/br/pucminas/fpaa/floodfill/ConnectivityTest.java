@@ -0,0 +1,163 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ConnectivityTest {
+
+    @Test
+    public void testFour_KeepsDiagonalCellsApart() {
+        int[][] matrix = {
+                { 0, 1, 1, 0 },
+                { 1, 0, 0, 1 },
+                { 1, 1, 1, 0 }
+        };
+
+        NumberingFloodFill floodFill = new NumberingFloodFill(matrix);
+        floodFill.execute();
+
+        assertArrayEquals(new int[][] {
+                { 2, 1, 1, 3 },
+                { 1, 4, 4, 1 },
+                { 1, 1, 1, 5 }
+        }, matrix, "Cells touching only by a corner should be separate regions");
+    }
+
+    @Test
+    public void testEight_JoinsDiagonalCells() {
+        int[][] matrix = {
+                { 0, 1, 1, 0 },
+                { 1, 0, 0, 1 },
+                { 1, 1, 1, 0 }
+        };
+
+        NumberingFloodFill floodFill = new NumberingFloodFill(matrix);
+        floodFill.setConnectivity(Connectivity.EIGHT);
+        floodFill.execute();
+
+        assertArrayEquals(new int[][] {
+                { 2, 1, 1, 2 },
+                { 1, 2, 2, 1 },
+                { 1, 1, 1, 2 }
+        }, matrix, "Cells touching by a corner should be one region");
+    }
+
+    @Test
+    public void testEight_DiagonalPattern() {
+        // The separated cells of the 4-connected diagonal pattern touch each other by their corners here
+        int[][] matrix = {
+                { 0, 1, 0, 1, 0 },
+                { 1, 0, 1, 0, 1 },
+                { 0, 1, 0, 1, 0 },
+                { 1, 0, 1, 0, 1 },
+                { 0, 1, 0, 1, 0 }
+        };
+
+        NumberingFloodFill four = new NumberingFloodFill(FloodFillStrategyTest.copy(matrix));
+        NumberingFloodFill eight = new NumberingFloodFill(FloodFillStrategyTest.copy(matrix));
+        eight.setConnectivity(Connectivity.EIGHT);
+
+        assertEquals(13, four.label().getRegionCount(), "Every empty cell is its own 4-connected region");
+        assertEquals(1, eight.label().getRegionCount(), "All empty cells are one 8-connected region");
+    }
+
+    @Test
+    public void testEight_AllStrategiesMatchOnRandomMatrices() {
+        Random random = new Random(5);
+
+        for (int round = 0; round < 50; round++) {
+            int[][] matrix = FloodFillStrategyTest.randomMatrix(random, 1 + random.nextInt(30),
+                    1 + random.nextInt(30), 3);
+
+            int[][] expected = FloodFillStrategyTest.copy(matrix);
+            NumberingFloodFill stack = new NumberingFloodFill(expected);
+            stack.setConnectivity(Connectivity.EIGHT);
+            stack.setStrategy(FillStrategy.STACK);
+            stack.execute();
+
+            for (FillStrategy strategy : FillStrategy.values()) {
+                int[][] actual = FloodFillStrategyTest.copy(matrix);
+                NumberingFloodFill floodFill = new NumberingFloodFill(actual);
+                floodFill.setConnectivity(Connectivity.EIGHT);
+                floodFill.setStrategy(strategy);
+                floodFill.execute();
+
+                assertArrayEquals(expected, actual, strategy + ", round " + round);
+            }
+        }
+    }
+
+    @Test
+    public void testCustom_ConnectsCellsTwoStepsApart() {
+        int[][] matrix = {
+                { 0, 1, 0, 1, 1 },
+                { 1, 1, 1, 1, 1 },
+                { 0, 1, 1, 1, 0 }
+        };
+
+        NumberingFloodFill floodFill = new NumberingFloodFill(matrix);
+        floodFill.setConnectivity(Connectivity.of(2, 0, -2, 0, 0, 2, 0, -2));
+        floodFill.execute();
+
+        assertArrayEquals(new int[][] {
+                { 2, 1, 2, 1, 1 },
+                { 1, 1, 1, 1, 1 },
+                { 2, 1, 1, 1, 3 }
+        }, matrix, "Neighbors should be exactly two cells apart");
+    }
+
+    @Test
+    public void testEight_BucketFillFollowsDiagonals() {
+        int[][] matrix = {
+                { 0, 1, 0 },
+                { 1, 0, 1 },
+                { 0, 1, 1 }
+        };
+
+        NumberingFloodFill floodFill = new NumberingFloodFill(matrix);
+        floodFill.setConnectivity(Connectivity.EIGHT);
+        FilledRegion region = floodFill.fill(1, 1, 7);
+
+        assertEquals(4, region.getCellCount());
+        assertEquals(3, region.getWidth());
+        assertEquals(3, region.getHeight());
+        assertArrayEquals(new int[][] {
+                { 7, 1, 7 },
+                { 1, 7, 1 },
+                { 7, 1, 1 }
+        }, matrix);
+    }
+
+    @Test
+    public void testOf_RecognizesOrthogonalNeighborhood() {
+        int[][] matrix = { { 0, 1 }, { 1, 0 } };
+
+        NumberingFloodFill floodFill = new NumberingFloodFill(matrix);
+        floodFill.setConnectivity(Connectivity.of(0, 1, 0, -1, 1, 0, -1, 0));
+        floodFill.setIncremental(true);
+        floodFill.execute();
+
+        assertTrue(floodFill.hasRegionMap(), "Reordered orthogonal offsets should support incremental re-fills");
+
+        floodFill.setConnectivity(Connectivity.EIGHT);
+        floodFill.execute();
+
+        assertFalse(floodFill.hasRegionMap(), "Other neighborhoods should not keep a region map");
+    }
+
+    @Test
+    public void testOf_RejectsInvalidNeighborhoods() {
+        assertThrows(IllegalArgumentException.class, () -> Connectivity.of());
+        assertThrows(IllegalArgumentException.class, () -> Connectivity.of(1, 0, -1));
+        assertThrows(IllegalArgumentException.class, () -> Connectivity.of(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> Connectivity.of(1, 0, 1, 0, -1, 0));
+        assertThrows(IllegalArgumentException.class, () -> Connectivity.of(1, 1, -1, 0), "Not symmetric");
+    }
+}
@@ -0,0 +1,103 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class DirtyBoundsTest {
+
+    @Test
+    public void testDirtyBounds_UnionOfChangedCellsWithEveryStrategy() {
+        for (FillStrategy strategy : FillStrategy.values()) {
+            int[][] matrix = {
+                    { 1, 1, 1, 1, 1, 1 },
+                    { 1, 0, 1, 1, 1, 1 },
+                    { 1, 1, 1, 1, 0, 1 },
+                    { 1, 1, 1, 1, 0, 1 },
+                    { 1, 1, 1, 1, 1, 1 }
+            };
+
+            TestFloodFill floodFill = new TestFloodFill(matrix, 1, 0, 5);
+            floodFill.setStrategy(strategy);
+            floodFill.execute();
+
+            FilledRegion dirty = floodFill.getDirtyBounds();
+            assertEquals(1, dirty.getX(), "Dirty x with " + strategy);
+            assertEquals(1, dirty.getY(), "Dirty y with " + strategy);
+            assertEquals(4, dirty.getWidth(), "Dirty width with " + strategy);
+            assertEquals(3, dirty.getHeight(), "Dirty height with " + strategy);
+            assertEquals(3, dirty.getCellCount(), "Dirty cells with " + strategy);
+        }
+    }
+
+    @Test
+    public void testDirtyBounds_RegionsReportedOneByOne() {
+        int[][] matrix = {
+                { 0, 0, 1, 0 },
+                { 1, 1, 1, 0 },
+                { 0, 1, 0, 0 }
+        };
+
+        List<int[]> regions = new ArrayList<>();
+        TestFloodFill floodFill = new TestFloodFill(matrix, 1, 0, 5) {
+            @Override
+            public void onRegionFilled(int x, int y, int width, int height, int cellCount) {
+                regions.add(new int[] { x, y, width, height, cellCount });
+            }
+        };
+
+        floodFill.execute();
+
+        assertEquals(3, regions.size(), "Every region should be reported");
+        assertEquals(List.of(0, 0, 2, 1, 2), asList(regions.get(0)));
+        assertEquals(List.of(2, 0, 2, 3, 4), asList(regions.get(1)));
+        assertEquals(List.of(0, 2, 1, 1, 1), asList(regions.get(2)));
+    }
+
+    @Test
+    public void testDirtyBounds_EmptyWhenNothingChanges() {
+        int[][] matrix = {
+                { 0, 1 },
+                { 1, 0 }
+        };
+
+        // Filling with the empty value changes nothing
+        TestFloodFill floodFill = new TestFloodFill(matrix, 1, 0, 0);
+        floodFill.execute();
+
+        assertTrue(floodFill.getDirtyBounds().isEmpty(), "No cell changed");
+        assertEquals(0, floodFill.getDirtyBounds().getWidth());
+    }
+
+    @Test
+    public void testDirtyBounds_SingleFillReplacesPreviousBounds() {
+        int[][] matrix = {
+                { 0, 0, 1, 0 },
+                { 0, 0, 1, 0 }
+        };
+
+        TestFloodFill floodFill = new TestFloodFill(matrix, 1, 0, 5);
+        floodFill.execute();
+        floodFill.fill(3, 1, 8);
+
+        FilledRegion dirty = floodFill.getDirtyBounds();
+        assertEquals(3, dirty.getX());
+        assertEquals(0, dirty.getY());
+        assertEquals(1, dirty.getWidth());
+        assertEquals(2, dirty.getHeight());
+        assertEquals(8, matrix[1][3], "The 2D matrix should receive the single fill");
+    }
+
+    private static List<Integer> asList(int[] values) {
+        List<Integer> list = new ArrayList<>();
+        for (int value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+}
@@ -0,0 +1,238 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FillServerTest {
+
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+    private static final int NEAR_WHITE = 0xFFFAFBFC;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private FillServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new FillServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testFill_PngUploadReturnsFilledPng() throws Exception {
+        BufferedImage image = new BufferedImage(20, 10, BufferedImage.TYPE_3BYTE_BGR);
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 20; x++) {
+                image.setRGB(x, y, x == 8 ? BLACK : WHITE);
+            }
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+
+        HttpResponse<byte[]> response = post("", "image/png", png.toByteArray());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("image/png", response.headers().firstValue("Content-Type").orElse(null));
+
+        BufferedImage filled = ImageIO.read(new ByteArrayInputStream(response.body()));
+        assertEquals(BLACK, filled.getRGB(8, 4), "Borders should be kept");
+        assertNotEquals(WHITE, filled.getRGB(0, 0), "Left region should be filled");
+        assertNotEquals(WHITE, filled.getRGB(19, 9), "Right region should be filled");
+        assertEquals(filled.getRGB(0, 0), filled.getRGB(7, 9), "A region should be filled with one colour");
+    }
+
+    @Test
+    public void testFill_RawUploadReturnsRawImage() throws Exception {
+        HttpResponse<byte[]> response = post("?width=4&height=2&strategy=packed", "application/octet-stream",
+                raw(WHITE, BLACK, WHITE, WHITE,
+                        WHITE, BLACK, BLACK, WHITE));
+
+        assertEquals(200, response.statusCode());
+        assertEquals("4", response.headers().firstValue("X-Image-Width").orElse(null));
+        assertEquals("2", response.headers().firstValue("X-Image-Height").orElse(null));
+
+        int[] cells = cells(response.body());
+        assertEquals(8, cells.length);
+        assertEquals(BLACK, cells[1], "Borders should be kept");
+        assertNotEquals(WHITE, cells[0], "Left region should be filled");
+        assertNotEquals(WHITE, cells[2], "Right region should be filled");
+        assertEquals(cells[2], cells[7], "A region should be filled with one colour");
+    }
+
+    @Test
+    public void testFill_ReturnsLabelMap() throws Exception {
+        HttpResponse<byte[]> response = post("?width=3&height=2&output=labels&connectivity=8",
+                "application/octet-stream",
+                raw(WHITE, BLACK, BLACK,
+                        BLACK, WHITE, WHITE));
+
+        assertEquals(200, response.statusCode());
+        assertEquals("1", response.headers().firstValue("X-Region-Count").orElse(null),
+                "Diagonal cells should be connected under 8-connectivity");
+        assertArrayEquals(new int[] { 1, 0, 0, 0, 1, 1 }, cells(response.body()));
+    }
+
+    @Test
+    public void testFill_LabelMapHonoursTheTolerance() throws Exception {
+        HttpResponse<byte[]> response = post("?width=5&height=1&output=labels&tolerance=10",
+                "application/octet-stream", raw(WHITE, NEAR_WHITE, WHITE, BLACK, WHITE));
+
+        assertEquals(200, response.statusCode());
+        assertEquals("2", response.headers().firstValue("X-Region-Count").orElse(null),
+                "The near-white cell should join the white cells around it");
+        assertArrayEquals(new int[] { 1, 1, 1, 0, 2 }, cells(response.body()));
+    }
+
+    @Test
+    public void testFill_RejectsCorruptImages() throws Exception {
+        BufferedImage image = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+
+        // The signature and the header, but none of the pixel data
+        byte[] truncated = Arrays.copyOf(png.toByteArray(), 40);
+        HttpResponse<byte[]> response = post("", "image/png", truncated);
+
+        assertEquals(400, response.statusCode());
+        assertEquals(server.maxPermits, server.memory.availablePermits(),
+                "Rejected requests should not hold memory");
+    }
+
+    @Test
+    public void testFill_RefusesImagesThatCanNeverFit() throws Exception {
+        HttpResponse<byte[]> response = post("?width=2000&height=1000", "application/octet-stream", raw(WHITE));
+
+        assertEquals(413, response.statusCode());
+    }
+
+    @Test
+    public void testFill_CountsEveryBufferOfARequestAgainstTheCap() throws Exception {
+        // A quarter of a megapixel, but with its filler's scratch state it takes
+        // more than the half of the cap the pools leave to the requests
+        HttpResponse<byte[]> response = post("?width=500&height=500", "application/octet-stream", raw(WHITE));
+
+        assertEquals(413, response.statusCode());
+        assertEquals(5, FillServer.cellsPerPixel(false, false), "An encoded upload also holds its decoded image");
+    }
+
+    @Test
+    public void testFill_RefusesImagesWhileTheCapIsReached() throws Exception {
+        server.setAdmissionTimeout(Duration.ZERO);
+        int permits = server.memory.drainPermits();
+
+        try {
+            HttpResponse<byte[]> response = post("?width=1&height=1", "application/octet-stream", raw(WHITE));
+
+            assertEquals(503, response.statusCode());
+            assertTrue(response.headers().firstValue("Retry-After").isPresent());
+        } finally {
+            server.memory.release(permits);
+        }
+
+        assertEquals(200, post("?width=1&height=1", "application/octet-stream", raw(WHITE)).statusCode(),
+                "Requests should be admitted again once memory is released");
+    }
+
+    @Test
+    public void testFill_RejectsInvalidRequests() throws Exception {
+        assertEquals(400, post("?width=2&height=1", "application/octet-stream", raw(WHITE)).statusCode(),
+                "A raw body shorter than its dimensions should be rejected");
+        assertEquals(400, post("", "application/octet-stream", raw(WHITE)).statusCode(),
+                "A raw upload without dimensions should be rejected");
+        assertEquals(400, post("?width=1&height=1&strategy=bogus", "application/octet-stream", raw(WHITE))
+                .statusCode());
+        assertEquals(400, post("?width=1&height=1&colour=red", "application/octet-stream", raw(WHITE))
+                .statusCode());
+        assertEquals(415, post("", "image/png", new byte[] { 1, 2, 3 }).statusCode());
+
+        HttpRequest get = HttpRequest.newBuilder(uri("")).GET().build();
+        assertEquals(405, client.send(get, HttpResponse.BodyHandlers.ofByteArray()).statusCode());
+        assertEquals(server.maxPermits, server.memory.availablePermits(),
+                "Rejected requests should not hold memory");
+    }
+
+    @Test
+    public void testPool_ReusesReleasedBuffers() {
+        FillBufferPool pool = new FillBufferPool(100);
+
+        int[] large = pool.acquireCells(60);
+        int[] small = pool.acquireCells(30);
+        pool.releaseCells(large);
+        pool.releaseCells(small);
+
+        assertEquals(90, pool.getRetainedCells());
+        assertSame(small, pool.acquireCells(20), "The smallest buffer that fits should be reused");
+        assertSame(large, pool.acquireCells(40));
+        assertEquals(0, pool.getRetainedCells());
+
+        pool.releaseCells(large);
+        pool.releaseCells(new int[50]);
+        assertEquals(50, pool.getRetainedCells(), "The oldest buffer should be dropped beyond the limit");
+    }
+
+    @Test
+    public void testWrap_IsFilledInPlace() {
+        int[] cells = { WHITE, BLACK, WHITE, 0 };
+        ImageFloodFill floodFill = new ImageFloodFill(FillServer.wrap(cells, 3, 1));
+        floodFill.execute();
+
+        assertTrue(floodFill.isDirect(), "The wrapped buffer should be filled without a copy");
+        assertNotEquals(WHITE, cells[0]);
+        assertEquals(0, cells[3], "Cells past the image should not be touched");
+    }
+
+    private HttpResponse<byte[]> post(String query, String contentType, byte[] body)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri(query))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private URI uri(String query) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/fill" + query);
+    }
+
+    private static byte[] raw(int... cells) {
+        ByteBuffer buffer = ByteBuffer.allocate(cells.length * Integer.BYTES);
+        buffer.asIntBuffer().put(cells);
+        return buffer.array();
+    }
+
+    private static int[] cells(byte[] raw) {
+        int[] cells = new int[raw.length / Integer.BYTES];
+        ByteBuffer.wrap(raw).asIntBuffer().get(cells);
+        return cells;
+    }
+
+}
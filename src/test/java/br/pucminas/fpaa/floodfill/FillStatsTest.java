@@ -0,0 +1,94 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class FillStatsTest {
+
+    /**
+     * Four regions of 5, 1, 3 and 1 cells
+     */
+    private static final int[][] MATRIX = {
+            { 0, 0, 1, 0 },
+            { 0, 1, 1, 1 },
+            { 0, 0, 1, 0 },
+            { 1, 1, 1, 0 },
+            { 0, 1, 1, 0 }
+    };
+
+    @Test
+    public void testStats_DisabledByDefault() {
+        NumberingFloodFill floodFill = new NumberingFloodFill(FloodFillStrategyTest.copy(MATRIX));
+
+        assertFalse(floodFill.isStatsEnabled());
+        assertSame(FillStats.DISABLED, floodFill.execute(), "Disabled fills should return the shared empty stats");
+    }
+
+    @Test
+    public void testStats_CountRegionsAndCellsWithEveryStrategy() {
+        for (FillStrategy strategy : FillStrategy.values()) {
+            NumberingFloodFill floodFill = new NumberingFloodFill(FloodFillStrategyTest.copy(MATRIX));
+            floodFill.setStrategy(strategy);
+            floodFill.setStatsEnabled(true);
+
+            FillStats stats = floodFill.execute();
+
+            assertEquals(4, stats.getRegionCount(), "Region count with " + strategy);
+            assertEquals(10, stats.getFilledCells(), "Filled cells with " + strategy);
+            assertEquals(5, stats.getLargestRegion(), "Largest region with " + strategy);
+            assertTrue(stats.getScanNanos() >= 0 && stats.getFillNanos() >= 0, "Times with " + strategy);
+        }
+    }
+
+    @Test
+    public void testStats_WorklistCounters() {
+        NumberingFloodFill stack = new NumberingFloodFill(FloodFillStrategyTest.copy(MATRIX));
+        stack.setStrategy(FillStrategy.STACK);
+        stack.setStatsEnabled(true);
+
+        FillStats stackStats = stack.execute();
+
+        // The stack strategy pushes every cell exactly once
+        assertEquals(10, stackStats.getWorklistPushes(), "Stack pushes");
+        assertEquals(10, stackStats.getWorklistPops(), "Stack pops");
+        assertTrue(stackStats.getPeakWorklistDepth() >= 1, "Stack peak depth");
+
+        NumberingFloodFill twoPass = new NumberingFloodFill(FloodFillStrategyTest.copy(MATRIX));
+        twoPass.setStrategy(FillStrategy.TWO_PASS);
+        twoPass.setStatsEnabled(true);
+
+        assertEquals(0, twoPass.execute().getWorklistPushes(), "Labeling strategies do not use the worklist");
+    }
+
+    @Test
+    public void testStats_ResetBetweenExecutions() {
+        Random random = new Random(11);
+        int[][] matrix = new int[30][30];
+
+        for (int[] row : matrix) {
+            for (int x = 0; x < row.length; x++) {
+                row[x] = random.nextInt(3) == 0 ? 1 : 0;
+            }
+        }
+
+        NumberingFloodFill floodFill = new NumberingFloodFill(matrix);
+        floodFill.setStatsEnabled(true);
+
+        FillStats first = floodFill.execute();
+        FillStats second = floodFill.execute();
+
+        assertTrue(first.getRegionCount() > 0, "The first execution should fill regions");
+        assertEquals(0, second.getRegionCount(), "Nothing is left to fill on the second execution");
+        assertEquals(0, second.getWorklistPushes(), "Counters should be reset between executions");
+
+        floodFill.setStatsEnabled(false);
+        assertSame(FillStats.DISABLED, floodFill.execute(), "Stats should stop once disabled");
+    }
+
+}
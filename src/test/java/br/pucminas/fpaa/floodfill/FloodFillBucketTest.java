@@ -0,0 +1,111 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+public class FloodFillBucketTest {
+
+    @Test
+    public void testFill_OnlyTouchesSeedRegion() {
+        int[][] matrix = {
+                { 0, 0, 1, 0, 0 },
+                { 0, 1, 1, 0, 0 },
+                { 0, 0, 1, 1, 1 },
+                { 1, 1, 1, 0, 0 }
+        };
+
+        TestFloodFill floodFill = new TestFloodFill(matrix, 1, 0, 5);
+        FilledRegion region = floodFill.fill(4, 1, 7);
+
+        int[][] expected = {
+                { 0, 0, 1, 7, 7 },
+                { 0, 1, 1, 7, 7 },
+                { 0, 0, 1, 1, 1 },
+                { 1, 1, 1, 0, 0 }
+        };
+
+        assertArrayEquals(expected, matrix, "Only the region under the seed should be filled");
+        assertEquals(4, region.getCellCount(), "Filled cell count");
+        assertEquals(3, region.getX());
+        assertEquals(0, region.getY());
+        assertEquals(2, region.getWidth());
+        assertEquals(2, region.getHeight());
+        assertEquals(4, floodFill.getValueChanges().size(), "Every changed cell should be reported");
+    }
+
+    @Test
+    public void testFill_RecolorsAlreadyFilledRegion() {
+        int[][] matrix = {
+                { 0, 0, 1, 0 },
+                { 0, 1, 0, 0 },
+                { 0, 1, 0, 0 }
+        };
+
+        TestFloodFill floodFill = new TestFloodFill(matrix, 1, 0, 5);
+        floodFill.execute();
+        FilledRegion region = floodFill.fill(0, 2, 9);
+
+        int[][] expected = {
+                { 9, 9, 1, 5 },
+                { 9, 1, 5, 5 },
+                { 9, 1, 5, 5 }
+        };
+
+        assertArrayEquals(expected, matrix, "A filled region should be recolored as a whole");
+        assertEquals(4, region.getCellCount());
+        assertEquals(0, region.getX());
+        assertEquals(0, region.getY());
+        assertEquals(2, region.getWidth());
+        assertEquals(3, region.getHeight());
+    }
+
+    @Test
+    public void testFill_BorderOrSameValueSeedChangesNothing() {
+        int[][] matrix = {
+                { 0, 1 },
+                { 2, 0 }
+        };
+
+        TestFloodFill floodFill = new TestFloodFill(matrix, 1, 0, 5);
+
+        assertTrue(floodFill.fill(1, 0, 7).isEmpty(), "Border cells should not be filled");
+        assertTrue(floodFill.fill(0, 1, 2).isEmpty(), "Filling with the seed's own value should change nothing");
+        assertArrayEquals(new int[][] { { 0, 1 }, { 2, 0 } }, matrix);
+        assertTrue(floodFill.getValueChanges().isEmpty(), "No change should be reported");
+    }
+
+    @Test
+    public void testFill_SeedOutsideMatrixRejected() {
+        TestFloodFill floodFill = new TestFloodFill(new int[][] { { 0, 0 } }, 1, 0, 5);
+
+        assertThrows(IllegalArgumentException.class, () -> floodFill.fill(2, 0, 5));
+        assertThrows(IllegalArgumentException.class, () -> floodFill.fill(0, -1, 5));
+    }
+
+    @Test
+    public void testFill_ImageRegion() {
+        BufferedImage image = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, 20, 10);
+        g2d.setColor(Color.BLACK);
+        g2d.drawLine(8, 0, 8, 9);
+        g2d.dispose();
+
+        ImageFloodFill floodFill = new ImageFloodFill(image);
+        FilledRegion region = floodFill.fill(15, 5, 0xFF123456);
+
+        assertEquals(11 * 10, region.getCellCount(), "The right half should be filled");
+        assertEquals(0xFF123456, image.getRGB(19, 9));
+        assertEquals(0xFFFFFFFF, image.getRGB(0, 0), "The left half should stay white");
+    }
+
+}
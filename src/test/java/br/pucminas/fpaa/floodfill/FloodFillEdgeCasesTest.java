@@ -1,5 +1,6 @@
 package br.pucminas.fpaa.floodfill;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import org.junit.jupiter.api.Test;
@@ -252,4 +253,147 @@ public class FloodFillEdgeCasesTest {
 
         assertEquals(18, floodFill.getValueChanges().size(), "Should have 18 cells filled (16 outer + 2 center)");
     }
+
+    @Test
+    public void testFloodFill_DoesNotLeakIntoOtherValues() {
+
+        int[][] matrix = {
+                { 1, 1, 1, 1, 1 },
+                { 1, 0, 2, 0, 1 },
+                { 1, 1, 1, 1, 1 }
+        };
+
+        int borderValue = 1;
+        int emptyValue = 0;
+        int fillValue = 7;
+
+        for (FillStrategy strategy : FillStrategy.values()) {
+            int[][] copy = FloodFillStrategyTest.copy(matrix);
+            TestFloodFill floodFill = new TestFloodFill(copy, borderValue, emptyValue, fillValue);
+            floodFill.setStrategy(strategy);
+
+            floodFill.execute();
+
+            assertEquals(fillValue, copy[1][1], strategy + ": left empty cell should be filled");
+            assertEquals(2, copy[1][2], strategy + ": non-empty cell should not be filled");
+            assertEquals(fillValue, copy[1][3], strategy + ": right empty cell should be filled");
+            assertEquals(2, floodFill.getValueChanges().size(), strategy + ": should have 2 value changes");
+        }
+    }
+
+    @Test
+    public void testFloodFill_ResultDoesNotDependOnFillValue() {
+
+        int[][] matrix = {
+                { 0, 2, 0 },
+                { 0, 2, 0 }
+        };
+
+        int borderValue = 1;
+        int emptyValue = 0;
+
+        // Filling with the value between the regions used to stop at it, any other value leaked through it
+        for (int fillValue : new int[] { 2, 3 }) {
+            for (FillStrategy strategy : FillStrategy.values()) {
+                int[][] copy = FloodFillStrategyTest.copy(matrix);
+                TestFloodFill floodFill = new TestFloodFill(copy, borderValue, emptyValue, fillValue);
+                floodFill.setStrategy(strategy);
+
+                floodFill.execute();
+
+                String message = strategy + " with fill value " + fillValue;
+                assertEquals(fillValue, copy[0][0], message + ": left region should be filled");
+                assertEquals(fillValue, copy[1][2], message + ": right region should be filled");
+                assertEquals(2, copy[0][1], message + ": middle column should be untouched");
+                assertEquals(2, copy[1][1], message + ": middle column should be untouched");
+                assertEquals(4, floodFill.getValueChanges().size(), message + ": should have 4 value changes");
+            }
+        }
+    }
+
+    @Test
+    public void testFloodFill_SameValueGenerationClaimsRegionOnce() {
+
+        int[][] matrix = {
+                { 0, 0, 0 },
+                { 0, 1, 0 },
+                { 0, 0, 0 }
+        };
+
+        int borderValue = 1;
+        int emptyValue = 0;
+
+        for (FillStrategy strategy : FillStrategy.values()) {
+            CountingFloodFill floodFill = new CountingFloodFill(FloodFillStrategyTest.copy(matrix), borderValue,
+                    emptyValue);
+            floodFill.setStrategy(strategy);
+
+            floodFill.execute();
+
+            assertEquals(1, floodFill.generated, strategy + ": the ring should be a single region");
+            assertEquals(0, floodFill.getValueChanges().size(), strategy + ": should have no value changes");
+        }
+    }
+
+    @Test
+    public void testFloodFill_BorderValueEqualToEmptyValueFillsNothing() {
+
+        int[][] matrix = {
+                { 5, 5, 5 },
+                { 5, 0, 5 }
+        };
+
+        int borderValue = 5;
+        int emptyValue = 5;
+        int fillValue = 7;
+
+        for (Connectivity connectivity : new Connectivity[] { Connectivity.FOUR, Connectivity.EIGHT }) {
+            for (FillStrategy strategy : FillStrategy.values()) {
+                for (int mode = 0; mode < 2; mode++) {
+                    int[][] copy = FloodFillStrategyTest.copy(matrix);
+                    CountingFloodFill floodFill = new CountingFloodFill(copy, borderValue, emptyValue, fillValue);
+                    floodFill.setStrategy(strategy);
+                    floodFill.setConnectivity(connectivity);
+                    floodFill.setIncremental(mode == 1);
+                    floodFill.setIndexing(mode == 1);
+
+                    floodFill.execute();
+
+                    String message = strategy + " " + connectivity.getNeighborCount() + "-connected"
+                            + (mode == 1 ? ", incremental and indexing" : "");
+                    assertArrayEquals(matrix, copy, message + ": every empty cell is a border cell");
+                    assertEquals(0, floodFill.generated, message + ": no region should be found");
+                    assertEquals(0, floodFill.label().getRegionCount(), message + ": no region should be labeled");
+
+                    if (floodFill.hasRegionMap()) {
+                        copy[1][1] = emptyValue;
+                        assertEquals(0, floodFill.refill(1, 1, 1, 1).getCellCount(),
+                                message + ": an edit should not create a region");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Always fills with the empty value and counts how many regions were found.
+     */
+    private static class CountingFloodFill extends TestFloodFill {
+
+        private int generated;
+
+        CountingFloodFill(int[][] matrix, int borderValue, int emptyValue) {
+            this(matrix, borderValue, emptyValue, emptyValue);
+        }
+
+        CountingFloodFill(int[][] matrix, int borderValue, int emptyValue, int fillValue) {
+            super(matrix, borderValue, emptyValue, fillValue);
+        }
+
+        @Override
+        public int generateValue() {
+            generated++;
+            return super.generateValue();
+        }
+    }
 }
@@ -0,0 +1,96 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.Test;
+
+public class FloodFillEventsTest {
+
+    private static final String EXECUTION_EVENT = "br.pucminas.fpaa.floodfill.FillExecution";
+    private static final String REGION_EVENT = "br.pucminas.fpaa.floodfill.FillRegion";
+
+    /**
+     * Regions of 6, 1 and 2 cells
+     */
+    private static final int[][] MATRIX = {
+            { 0, 0, 0, 1, 0 },
+            { 0, 0, 0, 1, 1 },
+            { 1, 1, 1, 0, 0 }
+    };
+
+    @Test
+    public void testEvents_ExecutionRecorded() throws IOException {
+        List<RecordedEvent> events = record(FillStrategy.TWO_PASS, FloodFill.DEFAULT_REGION_EVENT_THRESHOLD);
+
+        List<RecordedEvent> executions = events.stream()
+                .filter(e -> e.getEventType().getName().equals(EXECUTION_EVENT))
+                .toList();
+
+        assertEquals(1, executions.size(), "One execution event should be recorded");
+        assertEquals(5, executions.get(0).getInt("width"));
+        assertEquals(3, executions.get(0).getInt("height"));
+        assertEquals("TWO_PASS", executions.get(0).getString("strategy"));
+        assertEquals(3, executions.get(0).getInt("regions"));
+    }
+
+    @Test
+    public void testEvents_OnlyRegionsAboveThresholdRecorded() throws IOException {
+        for (FillStrategy strategy : new FillStrategy[] { FillStrategy.SCANLINE, FillStrategy.STACK }) {
+            List<RecordedEvent> regions = record(strategy, 2).stream()
+                    .filter(e -> e.getEventType().getName().equals(REGION_EVENT))
+                    .toList();
+
+            assertEquals(2, regions.size(), "Regions of at least 2 cells with " + strategy);
+            assertEquals(0, regions.get(0).getInt("seedX"));
+            assertEquals(0, regions.get(0).getInt("seedY"));
+            assertEquals(6, regions.get(0).getInt("area"));
+            assertEquals(3, regions.get(1).getInt("seedX"));
+            assertEquals(2, regions.get(1).getInt("seedY"));
+            assertEquals(2, regions.get(1).getInt("area"));
+        }
+    }
+
+    @Test
+    public void testEvents_NegativeThresholdRejected() {
+        NumberingFloodFill floodFill = new NumberingFloodFill(new int[][] { { 0 } });
+
+        assertThrows(IllegalArgumentException.class, () -> floodFill.setRegionEventThreshold(-1));
+    }
+
+    private static List<RecordedEvent> record(FillStrategy strategy, int threshold) throws IOException {
+        int[][] matrix = new int[MATRIX.length][];
+        for (int y = 0; y < MATRIX.length; y++) {
+            matrix[y] = MATRIX[y].clone();
+        }
+
+        NumberingFloodFill floodFill = new NumberingFloodFill(matrix);
+        floodFill.setStrategy(strategy);
+        floodFill.setRegionEventThreshold(threshold);
+
+        Path file = Files.createTempFile("floodfill", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(EXECUTION_EVENT);
+            recording.enable(REGION_EVENT);
+            recording.start();
+            floodFill.execute();
+            recording.stop();
+            recording.dump(file);
+
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+}
@@ -0,0 +1,332 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+public class FloodFillPoolTest {
+
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    @Test
+    public void testReset_MatchesFreshInstancesForEveryStrategy() {
+        Random random = new Random(11);
+        SequenceFloodFill reused = new SequenceFloodFill();
+
+        for (Connectivity connectivity : new Connectivity[] { Connectivity.FOUR, Connectivity.EIGHT }) {
+            for (FillStrategy strategy : FillStrategy.values()) {
+                reused.setStrategy(strategy);
+                reused.setConnectivity(connectivity);
+
+                // Sizes go up and down so scratch state is reused for smaller and larger matrices
+                for (int round = 0; round < 30; round++) {
+                    int width = 1 + random.nextInt(50);
+                    int height = 1 + random.nextInt(50);
+                    int[][] expected = FloodFillStrategyTest.randomMatrix(random, width, height, 2);
+                    int[][] actual = FloodFillStrategyTest.copy(expected);
+
+                    SequenceFloodFill fresh = new SequenceFloodFill(expected);
+                    fresh.setStrategy(strategy);
+                    fresh.setConnectivity(connectivity);
+                    fresh.execute();
+
+                    String message = strategy + " " + connectivity.getNeighborCount() + "-connected, round " + round;
+
+                    if (round % 2 == 0) {
+                        reused.reset(actual);
+                        reused.execute();
+                    } else {
+                        // A padded flat array, filled in place
+                        int stride = width + 3;
+                        int[] cells = new int[5 + height * stride];
+                        for (int y = 0; y < height; y++) {
+                            System.arraycopy(actual[y], 0, cells, 5 + y * stride, width);
+                        }
+
+                        reused.reset(cells, 5, stride, width, height);
+                        reused.execute();
+
+                        for (int y = 0; y < height; y++) {
+                            System.arraycopy(cells, 5 + y * stride, actual[y], 0, width);
+                        }
+                    }
+
+                    assertArrayEquals(expected, actual, message);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReset_CopiesSmaller2DMatricesIntoTheSameArray() {
+        int[][] large = new int[4][5];
+        SequenceFloodFill floodFill = new SequenceFloodFill(large);
+        floodFill.execute();
+
+        int[][] small = { { 0, 1, 0 } };
+        floodFill.reset(small);
+        floodFill.execute();
+
+        assertArrayEquals(new int[] { 2, 1, 3 }, small[0], "The new matrix should receive the result");
+        assertEquals(2, large[0][0], "The previous matrix should not be touched again");
+        assertEquals(20, floodFill.getCapacity());
+    }
+
+    @Test
+    public void testReset_ForgetsThePreviousMatrix() {
+        int[][] matrix = new int[3][3];
+        SequenceFloodFill floodFill = new SequenceFloodFill(matrix);
+        floodFill.setIncremental(true);
+        floodFill.execute();
+
+        assertTrue(floodFill.hasRegionMap());
+        assertFalse(floodFill.getDirtyBounds().isEmpty());
+
+        floodFill.reset(new int[2][2]);
+
+        assertFalse(floodFill.hasRegionMap(), "The region map describes the previous matrix");
+        assertTrue(floodFill.getDirtyBounds().isEmpty(), "Nothing has changed in the new matrix yet");
+        assertTrue(floodFill.isIncremental(), "Options should be kept");
+    }
+
+    @Test
+    public void testReset_RejectsInvalidMatrices() {
+        SequenceFloodFill floodFill = new SequenceFloodFill();
+
+        assertThrows(IllegalArgumentException.class, () -> floodFill.reset(new int[0][0]));
+        assertThrows(IllegalArgumentException.class, () -> floodFill.reset(new int[6], 2, 2));
+        assertThrows(IllegalArgumentException.class, () -> floodFill.reset(new int[6], 1, 3, 3, 2));
+    }
+
+    @Test
+    public void testImageReset_FillsImagesOfEveryTypeInTurn() {
+        ImageFloodFill floodFill = new ImageFloodFill();
+        int[] types = { BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_BYTE_GRAY,
+                BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR };
+
+        for (int k = 0; k < types.length; k++) {
+            int width = 30 - 4 * k;
+            BufferedImage image = new BufferedImage(width, 10, types[k]);
+            for (int y = 0; y < 10; y++) {
+                for (int x = 0; x < width; x++) {
+                    image.setRGB(x, y, x == 5 ? BLACK : WHITE);
+                }
+            }
+
+            floodFill.reset(image);
+            floodFill.execute();
+
+            assertEquals(BLACK, image.getRGB(5, 3), "Image " + k + ": borders should be kept");
+            assertNotEquals(WHITE, image.getRGB(0, 0), "Image " + k + ": left region should be filled");
+            assertNotEquals(WHITE, image.getRGB(width - 1, 9), "Image " + k + ": right region should be filled");
+        }
+    }
+
+    @Test
+    public void testReset_AllocatesNothingProportionalToTheMatrix() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        int size = 512;
+        int[] template = flat(size);
+        int[] cells = new int[size * size];
+        SequenceFloodFill floodFill = new SequenceFloodFill();
+
+        for (FillStrategy strategy : new FillStrategy[] { FillStrategy.STACK, FillStrategy.SCANLINE,
+                FillStrategy.TWO_PASS, FillStrategy.PACKED }) {
+            floodFill.setStrategy(strategy);
+
+            for (int warmup = 0; warmup < 3; warmup++) {
+                System.arraycopy(template, 0, cells, 0, cells.length);
+                floodFill.reset(cells, size, size);
+                floodFill.execute();
+            }
+
+            long before = threads.getThreadAllocatedBytes(Thread.currentThread().threadId());
+
+            for (int run = 0; run < 5; run++) {
+                System.arraycopy(template, 0, cells, 0, cells.length);
+                floodFill.reset(cells, size, size);
+                floodFill.execute();
+            }
+
+            long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().threadId()) - before;
+
+            // One matrix is 1 MiB; five executions should allocate a small fraction of it
+            assertTrue(allocated < 64 * 1024, strategy + " allocated " + allocated + " bytes");
+        }
+
+        // A pooled instance keeps the array 2D matrices are copied into while it sits idle
+        int[][] rows = FloodFillStrategyTest.randomMatrix(new Random(5), size, size, 2);
+        int[][] matrix = FloodFillStrategyTest.copy(rows);
+        FloodFillPool<SequenceFloodFill> pool = new FloodFillPool<>(SequenceFloodFill::new, size * size, 1);
+
+        for (FillStrategy strategy : new FillStrategy[] { FillStrategy.STACK, FillStrategy.SCANLINE,
+                FillStrategy.TWO_PASS, FillStrategy.PACKED }) {
+            long before = 0;
+
+            for (int run = 0; run < 8; run++) {
+                // The first three runs warm up
+                if (run == 3) {
+                    before = threads.getThreadAllocatedBytes(Thread.currentThread().threadId());
+                }
+
+                for (int y = 0; y < size; y++) {
+                    System.arraycopy(rows[y], 0, matrix[y], 0, size);
+                }
+
+                SequenceFloodFill pooled = pool.acquire();
+                pooled.setStrategy(strategy);
+                pooled.reset(matrix);
+                pooled.execute();
+                pool.release(pooled);
+            }
+
+            long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().threadId()) - before;
+
+            assertTrue(allocated < 64 * 1024, "Pooled 2D matrix, " + strategy + " allocated " + allocated
+                    + " bytes");
+        }
+    }
+
+    @Test
+    public void testPool_ReusesReleasedInstances() {
+        FloodFillPool<ImageFloodFill> pool = new FloodFillPool<>(ImageFloodFill::new, 100, 2);
+
+        ImageFloodFill first = pool.acquire();
+        ImageFloodFill second = pool.acquire();
+        ImageFloodFill third = pool.acquire();
+        assertNotSame(first, second);
+
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+        assertEquals(2, pool.getIdleCount(), "Idle instances beyond the limit should be dropped");
+
+        assertSame(second, pool.acquire(), "The most recently released instance should be reused first");
+        assertSame(first, pool.acquire());
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    public void testPool_DropsInstancesPointedAtLargerMatrices() {
+        FloodFillPool<ImageFloodFill> pool = new FloodFillPool<>(ImageFloodFill::new, 100, 4);
+
+        ImageFloodFill small = pool.acquire();
+        small.reset(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB));
+        pool.release(small);
+
+        ImageFloodFill large = pool.acquire();
+        assertSame(small, large);
+        large.reset(new BufferedImage(11, 10, BufferedImage.TYPE_INT_RGB));
+        pool.release(large);
+
+        assertEquals(0, pool.getIdleCount(), "An instance grown beyond the maximum size should not be kept");
+        assertThrows(IllegalArgumentException.class, () -> new FloodFillPool<>(ImageFloodFill::new, 0, 1));
+    }
+
+    @Test
+    public void testPool_SharedByConcurrentFills() throws Exception {
+        FloodFillPool<SequenceFloodFill> pool = new FloodFillPool<>(SequenceFloodFill::new, 1 << 16, 4);
+        Random random = new Random(17);
+        List<int[][]> matrices = new ArrayList<>();
+        List<int[][]> expected = new ArrayList<>();
+
+        for (int k = 0; k < 64; k++) {
+            int[][] matrix = FloodFillStrategyTest.randomMatrix(random, 1 + random.nextInt(60), 1 + random.nextInt(60),
+                    2);
+            matrices.add(matrix);
+
+            int[][] result = FloodFillStrategyTest.copy(matrix);
+            new SequenceFloodFill(result).execute();
+            expected.add(result);
+        }
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> fills = new ArrayList<>();
+
+            for (int[][] matrix : matrices) {
+                fills.add(executor.submit(() -> {
+                    SequenceFloodFill floodFill = pool.acquire();
+                    floodFill.reset(matrix);
+                    floodFill.execute();
+                    pool.release(floodFill);
+                }));
+            }
+
+            for (Future<?> fill : fills) {
+                fill.get();
+            }
+        }
+
+        for (int k = 0; k < matrices.size(); k++) {
+            assertArrayEquals(expected.get(k), matrices.get(k), "Matrix " + k);
+        }
+
+        assertTrue(pool.getIdleCount() <= 4);
+    }
+
+    private static int[] flat(int size) {
+        int[][] matrix = FloodFillStrategyTest.randomMatrix(new Random(5), size, size, 2);
+        int[] cells = new int[size * size];
+
+        for (int y = 0; y < size; y++) {
+            System.arraycopy(matrix[y], 0, cells, y * size, size);
+        }
+
+        return cells;
+    }
+
+    /**
+     * Fills the regions of each execution with 2, 3, 4 and so on, with a
+     * border value of 1, so that fresh and reused instances fill alike.
+     */
+    static class SequenceFloodFill extends FloodFill {
+
+        private int nextValue;
+
+        SequenceFloodFill() {
+            super(1, 0);
+        }
+
+        SequenceFloodFill(int[][] matrix) {
+            super(matrix, 1, 0);
+        }
+
+        @Override
+        public FillStats execute() {
+            nextValue = 2;
+            return super.execute();
+        }
+
+        @Override
+        public void onValueChange(int x, int y, int newValue) {
+        }
+
+        @Override
+        public int generateValue() {
+            return nextValue++;
+        }
+    }
+
+}
@@ -0,0 +1,213 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class FloodFillStrategyTest {
+
+    private static final Comparator<TestFloodFill.ValueChange> CHANGE_ORDER = Comparator
+            .comparingInt(TestFloodFill.ValueChange::y)
+            .thenComparingInt(TestFloodFill.ValueChange::x);
+
+    @Test
+    public void testScanline_MatchesStackOnRandomMatrices() {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 200; round++) {
+            int width = 1 + random.nextInt(40);
+            int height = 1 + random.nextInt(40);
+            int[][] matrix = randomMatrix(random, width, height, 3);
+
+            assertSameResult(matrix, 1, 0, 5, "round " + round);
+        }
+    }
+
+    @Test
+    public void testScanline_MatchesStackWithValueCollisions() {
+        Random random = new Random(7);
+
+        for (int round = 0; round < 200; round++) {
+            int width = 1 + random.nextInt(30);
+            int height = 1 + random.nextInt(30);
+
+            // Value 2 is both a pre-existing value and the fill value
+            int[][] matrix = randomMatrix(random, width, height, 3);
+
+            assertSameResult(matrix, 1, 0, 2, "round " + round);
+        }
+    }
+
+    @Test
+    public void testAllStrategies_MatchOnMatricesWithOtherValues() {
+        Random random = new Random(3);
+
+        for (int round = 0; round < 100; round++) {
+            int width = 1 + random.nextInt(40);
+            int height = 1 + random.nextInt(40);
+
+            // Values 2 and 3 are neither border nor empty, and 2 is also the first generated value
+            int[][] matrix = randomMatrix(random, width, height, 4);
+
+            for (FillStrategy strategy : new FillStrategy[] { FillStrategy.STACK, FillStrategy.PARALLEL,
+                    FillStrategy.TWO_PASS, FillStrategy.PACKED }) {
+                ParallelFloodFillTest.assertSameAsSequential(matrix, strategy, 1 + random.nextInt(8),
+                        strategy + ", round " + round);
+            }
+        }
+    }
+
+    @Test
+    public void testPacked_MatchesScanlineAcrossWordBoundaries() {
+        Random random = new Random(11);
+
+        // Widths around multiples of 64 put spans across and at the edges of mask words
+        for (int width : new int[] { 1, 63, 64, 65, 127, 128, 130, 200 }) {
+            for (int values : new int[] { 2, 3, 8 }) {
+                int[][] matrix = randomMatrix(random, width, 1 + random.nextInt(20), values);
+
+                ParallelFloodFillTest.assertSameAsSequential(matrix, FillStrategy.PACKED, 1,
+                        "width " + width + ", " + values + " values");
+            }
+        }
+    }
+
+    @Test
+    public void testPacked_ReportsSpansRowByRow() {
+        int[][] matrix = {
+                { 0, 1, 0 },
+                { 0, 1, 0 },
+                { 0, 0, 0 }
+        };
+
+        SpanFloodFill floodFill = new SpanFloodFill(matrix, 1, 0, 7);
+        floodFill.setStrategy(FillStrategy.PACKED);
+        floodFill.execute();
+
+        assertEquals(5, floodFill.spans.size(), "Should report one span per filled run");
+        for (int k = 1; k < floodFill.spans.size(); k++) {
+            assertTrue(floodFill.spans.get(k - 1)[0] <= floodFill.spans.get(k)[0],
+                    "Spans should be written in row order");
+        }
+    }
+
+    @Test
+    public void testScanline_MatchesStackOnSerpentine() {
+        int size = 64;
+        int[][] matrix = new int[size][size];
+
+        // Horizontal walls with a gap alternating between both ends
+        for (int y = 1; y < size; y += 2) {
+            for (int x = 0; x < size; x++) {
+                matrix[y][x] = 1;
+            }
+            matrix[y][(y / 2) % 2 == 0 ? size - 1 : 0] = 0;
+        }
+
+        assertSameResult(matrix, 1, 0, 9, "serpentine");
+    }
+
+    @Test
+    public void testScanline_ReportsOneSpanPerRun() {
+        int[][] matrix = {
+                { 0, 0, 0, 0, 0 },
+                { 0, 1, 1, 1, 0 },
+                { 0, 0, 0, 0, 0 }
+        };
+
+        SpanFloodFill floodFill = new SpanFloodFill(matrix, 1, 0, 7);
+        floodFill.setStrategy(FillStrategy.SCANLINE);
+        floodFill.execute();
+
+        // Rows 0 and 2 are one span each, row 1 has a span on each side of the border
+        assertEquals(4, floodFill.spans.size(), "Should report one span per filled run");
+        assertEquals(12, floodFill.spans.stream().mapToInt(span -> span[2] - span[1]).sum(),
+                "Spans should cover all filled cells");
+        assertEquals(0, floodFill.getValueChanges().size(), "Overridden span callback should not fall back");
+    }
+
+    @Test
+    public void testStack_ReportsSingleCellSpans() {
+        int[][] matrix = {
+                { 0, 0, 0 },
+                { 0, 1, 0 }
+        };
+
+        SpanFloodFill floodFill = new SpanFloodFill(matrix, 1, 0, 7);
+        floodFill.setStrategy(FillStrategy.STACK);
+        floodFill.execute();
+
+        assertEquals(5, floodFill.spans.size(), "Should report one span per filled cell");
+        floodFill.spans.forEach(span -> assertEquals(1, span[2] - span[1], "Spans should hold a single cell"));
+    }
+
+    private static void assertSameResult(int[][] matrix, int borderValue, int emptyValue, int fillValue,
+                                         String message) {
+        int[][] stackMatrix = copy(matrix);
+        int[][] scanlineMatrix = copy(matrix);
+
+        TestFloodFill stack = new TestFloodFill(stackMatrix, borderValue, emptyValue, fillValue);
+        stack.setStrategy(FillStrategy.STACK);
+        stack.execute();
+
+        TestFloodFill scanline = new TestFloodFill(scanlineMatrix, borderValue, emptyValue, fillValue);
+        scanline.setStrategy(FillStrategy.SCANLINE);
+        scanline.execute();
+
+        for (int y = 0; y < matrix.length; y++) {
+            assertArrayEquals(stackMatrix[y], scanlineMatrix[y], message + ", row " + y);
+        }
+
+        List<TestFloodFill.ValueChange> stackChanges = stack.getValueChanges().stream().sorted(CHANGE_ORDER).toList();
+        List<TestFloodFill.ValueChange> scanlineChanges = scanline.getValueChanges().stream().sorted(CHANGE_ORDER)
+                .toList();
+
+        assertEquals(stackChanges, scanlineChanges, message + ": value changes should match");
+    }
+
+    static int[][] randomMatrix(Random random, int width, int height, int values) {
+        int[][] matrix = new int[height][width];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                matrix[y][x] = random.nextInt(values);
+            }
+        }
+
+        return matrix;
+    }
+
+    static int[][] copy(int[][] matrix) {
+        int[][] copy = new int[matrix.length][];
+
+        for (int y = 0; y < matrix.length; y++) {
+            copy[y] = matrix[y].clone();
+        }
+
+        return copy;
+    }
+
+    /**
+     * Records the runs reported through the batched callback.
+     */
+    private static class SpanFloodFill extends TestFloodFill {
+
+        private final List<int[]> spans = new ArrayList<>();
+
+        SpanFloodFill(int[][] matrix, int borderValue, int emptyValue, int valueToGenerate) {
+            super(matrix, borderValue, emptyValue, valueToGenerate);
+        }
+
+        @Override
+        public void onSpanFilled(int y, int xStart, int xEndExclusive, int newValue) {
+            spans.add(new int[] { y, xStart, xEndExclusive, newValue });
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package br.pucminas.fpaa.floodfill;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
 
@@ -275,4 +277,97 @@ public class FloodFillTest {
         assertEquals(fillValue, matrix[0][0], "Single empty cell should be filled");
         assertEquals(1, floodFill.getValueChanges().size(), "Should have exactly one value change");
     }
+
+    @Test
+    public void testFloodFill_FlatMatrix() {
+
+        int[] matrix = {
+                1, 1, 1, 1, 1,
+                1, 0, 0, 1, 1,
+                1, 0, 1, 0, 1,
+                1, 1, 1, 1, 1
+        };
+
+        int borderValue = 1;
+        int emptyValue = 0;
+        int fillValue = 6;
+
+        TestFloodFill floodFill = new TestFloodFill(matrix, 0, 5, 5, 4, borderValue, emptyValue, fillValue);
+
+        floodFill.execute();
+
+        assertEquals(fillValue, matrix[6], "Cell (1, 1) should be filled");
+        assertEquals(fillValue, matrix[7], "Cell (2, 1) should be filled");
+        assertEquals(fillValue, matrix[11], "Cell (1, 2) should be filled");
+        assertEquals(fillValue, matrix[13], "Cell (3, 2) should be filled");
+        assertEquals(borderValue, matrix[12], "Cell (2, 2) should remain a border");
+
+        assertEquals(4, floodFill.getValueChanges().size(), "Should have 4 value changes");
+    }
+
+    @Test
+    public void testFloodFill_FlatMatrixWithOffsetAndStride() {
+
+        // A 3x2 view starting at index 2 of rows padded to 5 cells; 9 marks cells outside the view
+        int[] matrix = {
+                9, 9, 0, 0, 0,
+                9, 9, 0, 1, 0,
+                9, 9, 9, 9, 9
+        };
+
+        int borderValue = 1;
+        int emptyValue = 0;
+        int fillValue = 4;
+
+        TestFloodFill floodFill = new TestFloodFill(matrix, 2, 5, 3, 2, borderValue, emptyValue, fillValue);
+
+        floodFill.execute();
+
+        int[] expected = {
+                9, 9, 4, 4, 4,
+                9, 9, 4, 1, 4,
+                9, 9, 9, 9, 9
+        };
+
+        assertArrayEquals(expected, matrix, "Only the cells inside the view should be filled");
+        assertEquals(5, floodFill.getValueChanges().size(), "Should have 5 value changes");
+        assertTrue(floodFill.getValueChanges().contains(new TestFloodFill.ValueChange(2, 1, fillValue)),
+                "Changes should be reported in view coordinates");
+    }
+
+    @Test
+    public void testFloodFill_MatrixEditedAfterConstruction() {
+
+        int[][] matrix = {
+                { 1, 1, 1 },
+                { 1, 1, 1 },
+                { 1, 1, 1 }
+        };
+
+        int borderValue = 1;
+        int emptyValue = 0;
+        int fillValue = 7;
+
+        TestFloodFill floodFill = new TestFloodFill(matrix, borderValue, emptyValue, fillValue);
+
+        matrix[1][1] = emptyValue;
+        floodFill.execute();
+
+        assertEquals(fillValue, matrix[1][1], "A cell emptied after construction should be filled");
+        assertEquals(1, floodFill.getValueChanges().size(), "Should have 1 value change");
+
+        // Edits between executions are seen too, and cells the fill did not change are not overwritten
+        matrix[0][0] = emptyValue;
+        matrix[1][1] = 2;
+        floodFill.execute();
+
+        assertEquals(fillValue, matrix[0][0], "A cell emptied between executions should be filled");
+        assertEquals(2, matrix[1][1], "An edit between executions should be kept");
+
+        matrix[2][2] = emptyValue;
+        floodFill.fill(2, 2, 3);
+
+        assertEquals(3, matrix[2][2], "A single fill should see edits made before it");
+        assertEquals(fillValue, matrix[0][0]);
+    }
 }
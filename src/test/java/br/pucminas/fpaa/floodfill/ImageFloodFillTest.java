@@ -0,0 +1,120 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+public class ImageFloodFillTest {
+
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    @Test
+    public void testImageFloodFill_IntRgbIsFilledInPlace() {
+        BufferedImage image = twoRegionImage(BufferedImage.TYPE_INT_RGB, 20, 10);
+
+        ImageFloodFill floodFill = new ImageFloodFill(image);
+        assertTrue(floodFill.isDirect(), "TYPE_INT_RGB should be filled directly on the raster");
+
+        floodFill.execute();
+
+        assertTwoRegionsFilled(image, 0, 0, 20, 10);
+    }
+
+    @Test
+    public void testImageFloodFill_IntArgbIsFilledInPlace() {
+        BufferedImage image = twoRegionImage(BufferedImage.TYPE_INT_ARGB, 12, 8);
+
+        ImageFloodFill floodFill = new ImageFloodFill(image);
+        assertTrue(floodFill.isDirect(), "TYPE_INT_ARGB should be filled directly on the raster");
+
+        floodFill.execute();
+
+        assertTwoRegionsFilled(image, 0, 0, 12, 8);
+    }
+
+    @Test
+    public void testImageFloodFill_SubimageRespectsOffsetAndStride() {
+        BufferedImage parent = new BufferedImage(30, 30, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = parent.createGraphics();
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, 30, 30);
+        g2d.setColor(Color.BLACK);
+        g2d.drawLine(16, 5, 16, 14);
+        g2d.dispose();
+
+        BufferedImage subimage = parent.getSubimage(10, 5, 12, 10);
+
+        ImageFloodFill floodFill = new ImageFloodFill(subimage);
+        assertTrue(floodFill.isDirect(), "A TYPE_INT_RGB subimage should be filled directly on the raster");
+
+        floodFill.execute();
+
+        assertTwoRegionsFilled(subimage, 0, 0, 12, 10);
+
+        // Pixels of the parent outside the subimage must be untouched
+        for (int y = 0; y < 30; y++) {
+            for (int x = 0; x < 30; x++) {
+                boolean inside = x >= 10 && x < 22 && y >= 5 && y < 15;
+                if (!inside) {
+                    assertEquals(WHITE, parent.getRGB(x, y), String.format("Pixel (%d, %d) should stay white", x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testImageFloodFill_OtherTypesFallBackToCopy() {
+        BufferedImage image = twoRegionImage(BufferedImage.TYPE_3BYTE_BGR, 16, 9);
+
+        ImageFloodFill floodFill = new ImageFloodFill(image);
+        assertFalse(floodFill.isDirect(), "TYPE_3BYTE_BGR should be filled through a copy");
+
+        floodFill.execute();
+
+        assertTwoRegionsFilled(image, 0, 0, 16, 9);
+    }
+
+    /**
+     * Creates a white image split in two regions by a vertical black line.
+     */
+    private static BufferedImage twoRegionImage(int type, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, width, height);
+        g2d.setColor(Color.BLACK);
+        g2d.drawLine(width / 2, 0, width / 2, height - 1);
+        g2d.dispose();
+        return image;
+    }
+
+    /**
+     * Asserts that the area has a black vertical line in its middle and that
+     * each side of it was filled with a single color other than black and white.
+     */
+    private static void assertTwoRegionsFilled(BufferedImage image, int minX, int minY, int width, int height) {
+        int middle = minX + width / 2;
+        int leftColor = image.getRGB(minX, minY);
+        int rightColor = image.getRGB(minX + width - 1, minY);
+
+        assertNotEquals(WHITE, leftColor, "Left region should be filled");
+        assertNotEquals(BLACK, leftColor, "Left region should not be black");
+        assertNotEquals(WHITE, rightColor, "Right region should be filled");
+        assertNotEquals(BLACK, rightColor, "Right region should not be black");
+
+        for (int y = minY; y < minY + height; y++) {
+            for (int x = minX; x < minX + width; x++) {
+                int expected = x < middle ? leftColor : x > middle ? rightColor : BLACK;
+                assertEquals(expected, image.getRGB(x, y), String.format("Unexpected color at (%d, %d)", x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class IncrementalRefillTest {
+
+    @Test
+    public void testRefill_SplitKeepsValueInLargerPiece() {
+        int[][] matrix = new int[3][7];
+        NumberingFloodFill floodFill = new NumberingFloodFill(matrix);
+        floodFill.setIncremental(true);
+        floodFill.execute();
+
+        // A stroke cuts the single region into 2 and 4 columns
+        for (int y = 0; y < 3; y++) {
+            matrix[y][2] = 1;
+        }
+
+        FilledRegion changed = floodFill.refill(2, 0, 1, 3);
+
+        int[][] expected = {
+                { 3, 3, 1, 2, 2, 2, 2 },
+                { 3, 3, 1, 2, 2, 2, 2 },
+                { 3, 3, 1, 2, 2, 2, 2 }
+        };
+
+        assertArrayEquals(expected, matrix, "The smaller piece should get a new value");
+        assertEquals(6, changed.getCellCount(), "Only the smaller piece changes");
+        assertEquals(0, changed.getX());
+        assertEquals(2, changed.getWidth());
+    }
+
+    @Test
+    public void testRefill_MergeTakesValueOfLargerRegion() {
+        int[][] matrix = {
+                { 0, 1, 0, 0 },
+                { 0, 1, 0, 0 },
+                { 0, 1, 0, 0 }
+        };
+
+        NumberingFloodFill floodFill = new NumberingFloodFill(matrix);
+        floodFill.setIncremental(true);
+        floodFill.execute();
+
+        // Erase part of the wall between both regions
+        matrix[1][1] = 0;
+        floodFill.refill(1, 1, 1, 1);
+
+        int[][] expected = {
+                { 3, 1, 3, 3 },
+                { 3, 3, 3, 3 },
+                { 3, 1, 3, 3 }
+        };
+
+        assertArrayEquals(expected, matrix, "Merged regions should take the larger region's value");
+    }
+
+    @Test
+    public void testRefill_UntouchedRegionsKeepTheirValues() {
+        int[][] matrix = {
+                { 0, 1, 0, 1, 0 },
+                { 0, 1, 0, 1, 0 },
+                { 0, 1, 0, 1, 0 }
+        };
+
+        NumberingFloodFill floodFill = new NumberingFloodFill(matrix);
+        floodFill.setIncremental(true);
+        floodFill.execute();
+
+        // Cut only the middle region
+        matrix[1][2] = 1;
+        floodFill.refill(2, 1, 1, 1);
+
+        int[][] expected = {
+                { 2, 1, 3, 1, 4 },
+                { 2, 1, 1, 1, 4 },
+                { 2, 1, 5, 1, 4 }
+        };
+
+        assertArrayEquals(expected, matrix, "Only the cut region should change");
+    }
+
+    @Test
+    public void testRefill_MatchesFreshLabelingAfterRandomEdits() {
+        Random random = new Random(5);
+
+        for (int round = 0; round < 100; round++) {
+            int width = 2 + random.nextInt(30);
+            int height = 2 + random.nextInt(30);
+            int[][] matrix = new int[height][width];
+
+            for (int[] row : matrix) {
+                for (int x = 0; x < width; x++) {
+                    row[x] = random.nextInt(3) == 0 ? 1 : 0;
+                }
+            }
+
+            // The traversal strategies record the map as they fill, the others label first
+            FillStrategy strategy = FillStrategy.values()[round % FillStrategy.values().length];
+            NumberingFloodFill floodFill = new NumberingFloodFill(matrix);
+            floodFill.setStrategy(strategy);
+            floodFill.setIncremental(true);
+            floodFill.execute();
+
+            for (int edit = 0; edit < 5; edit++) {
+                int x = random.nextInt(width);
+                int y = random.nextInt(height);
+                int w = 1 + random.nextInt(width - x);
+                int h = 1 + random.nextInt(height - y);
+
+                for (int row = y; row < y + h; row++) {
+                    for (int column = x; column < x + w; column++) {
+                        if (random.nextInt(3) == 0) {
+                            matrix[row][column] = random.nextBoolean() ? 1 : 0;
+                        }
+                    }
+                }
+
+                floodFill.refill(x, y, w, h);
+                assertSameRegionsAsFreshLabeling(matrix, strategy + ", round " + round + ", edit " + edit);
+            }
+        }
+    }
+
+    @Test
+    public void testRefill_AfterFillWithinToleranceAcrossRegions() {
+        // The 4 is left as it is and separates two regions
+        int[][] matrix = { { 0, 4, 0, 0, 0, 0 } };
+
+        NumberingFloodFill floodFill = new NumberingFloodFill(matrix);
+        floodFill.setIncremental(true);
+        floodFill.execute();
+        assertArrayEquals(new int[] { 2, 4, 3, 3, 3, 3 }, matrix[0]);
+
+        // Both regions and the 4 are within the tolerance of the seed
+        floodFill.setTolerance(2);
+        floodFill.fill(0, 0, 9);
+        assertArrayEquals(new int[] { 9, 9, 9, 9, 9, 9 }, matrix[0]);
+
+        matrix[0][3] = 1;
+        floodFill.refill(3, 0, 1, 1);
+
+        assertEquals(9, matrix[0][4], "The larger piece should keep the value it was filled with");
+        assertEquals(9, matrix[0][5], "The larger piece should keep the value it was filled with");
+        assertTrue(matrix[0][2] != 9 && matrix[0][2] != 1, "The smaller piece should get a new value");
+        assertEquals(9, matrix[0][0], "The seed's region should be left as it was filled");
+    }
+
+    @Test
+    public void testExecute_TraversalStrategiesReportEachRegionWhileKeepingTheMap() {
+        int[][] matrix = {
+                { 0, 1, 0, 1, 0 },
+                { 0, 1, 0, 1, 0 },
+                { 0, 1, 0, 1, 0 }
+        };
+
+        for (FillStrategy strategy : new FillStrategy[] { FillStrategy.SCANLINE, FillStrategy.STACK }) {
+            int[][] copy = FloodFillStrategyTest.copy(matrix);
+            InterruptedFloodFill floodFill = new InterruptedFloodFill(copy, 2);
+            floodFill.setStrategy(strategy);
+            floodFill.setIncremental(true);
+
+            assertThrows(IllegalStateException.class, floodFill::execute);
+
+            // Interrupted while generating the third value, so only whole regions were filled
+            assertEquals(2, floodFill.regionsFilled, strategy + ": each region should be reported as it completes");
+            for (int y = 0; y < 3; y++) {
+                assertEquals(2, copy[y][0], strategy + ": the first region should be filled");
+                assertEquals(3, copy[y][2], strategy + ": the second region should be filled");
+                assertEquals(0, copy[y][4], strategy + ": the third region should be untouched");
+            }
+
+            assertFalse(floodFill.hasRegionMap(), strategy + ": an interrupted execution keeps no map");
+
+            floodFill.limit = Integer.MAX_VALUE;
+            floodFill.execute();
+            assertTrue(floodFill.hasRegionMap(), strategy + ": a complete execution keeps the map");
+            assertEquals(4, copy[0][4], strategy + ": the remaining region should be filled");
+        }
+    }
+
+    @Test
+    public void testRefill_RequiresRegionMap() {
+        NumberingFloodFill floodFill = new NumberingFloodFill(new int[][] { { 0 } });
+        floodFill.execute();
+
+        assertFalse(floodFill.hasRegionMap());
+        assertThrows(IllegalStateException.class, () -> floodFill.refill(0, 0, 1, 1));
+
+        floodFill.setIncremental(true);
+        floodFill.execute();
+        assertTrue(floodFill.hasRegionMap());
+
+        floodFill.setIncremental(false);
+        assertFalse(floodFill.hasRegionMap(), "Disabling incremental re-fills should drop the map");
+    }
+
+    @Test
+    public void testRefill_ImageEditedAfterFill() {
+        BufferedImage image = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, 20, 10);
+
+        ImageFloodFill floodFill = new ImageFloodFill(image);
+        floodFill.setIncremental(true);
+        floodFill.execute();
+        int before = image.getRGB(0, 0);
+
+        g2d.setColor(Color.BLACK);
+        g2d.drawLine(5, 0, 5, 9);
+        g2d.dispose();
+
+        floodFill.refill(5, 0, 1, 10);
+
+        assertEquals(before, image.getRGB(19, 9), "The larger piece keeps its color");
+        assertTrue(image.getRGB(0, 0) != before && image.getRGB(0, 0) != 0xFF000000,
+                "The smaller piece gets a new color");
+        assertEquals(image.getRGB(0, 0), image.getRGB(4, 9));
+    }
+
+    /**
+     * Checks that two non-border cells hold the same value exactly when they
+     * are in the same 4-connected region of non-border cells.
+     */
+    private static void assertSameRegionsAsFreshLabeling(int[][] matrix, String message) {
+        int height = matrix.length;
+        int width = matrix[0].length;
+        int[][] mask = new int[height][width];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                mask[y][x] = matrix[y][x] == 1 ? 1 : 0;
+            }
+        }
+
+        RegionLabels labels = new NumberingFloodFill(mask).label();
+        Map<Integer, Integer> valueOfLabel = new HashMap<>();
+        Map<Integer, Integer> labelOfValue = new HashMap<>();
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (matrix[y][x] == 1) {
+                    continue;
+                }
+
+                int label = labels.getLabel(x, y);
+                int value = matrix[y][x];
+
+                assertTrue(value >= 2, message + ": cell (" + x + ", " + y + ") was not filled");
+                assertEquals(value, valueOfLabel.computeIfAbsent(label, _ -> value), message);
+                assertEquals(label, labelOfValue.computeIfAbsent(value, _ -> label), message);
+            }
+        }
+    }
+
+    /**
+     * Counts the regions reported as filled, and fails to generate a value
+     * once a given number of them has been generated.
+     */
+    private static class InterruptedFloodFill extends NumberingFloodFill {
+
+        private int limit;
+        private int generated;
+        private int regionsFilled;
+
+        InterruptedFloodFill(int[][] matrix, int limit) {
+            super(matrix);
+            this.limit = limit;
+        }
+
+        @Override
+        public int generateValue() {
+            if (generated++ == limit) {
+                throw new IllegalStateException("Interrupted");
+            }
+
+            return super.generateValue();
+        }
+
+        @Override
+        public void onRegionFilled(int x, int y, int width, int height, int cellCount) {
+            regionsFilled++;
+        }
+    }
+
+}
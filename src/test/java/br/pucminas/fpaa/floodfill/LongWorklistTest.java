@@ -0,0 +1,67 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class LongWorklistTest {
+
+    @Test
+    public void testWorklist_PopsInReverseOrderAcrossGrowth() {
+        LongWorklist worklist = new LongWorklist();
+
+        for (int i = 0; i < 1000; i++) {
+            worklist.push(i, 1000 - i);
+        }
+
+        assertEquals(1000, worklist.size());
+
+        for (int i = 999; i >= 0; i--) {
+            long entry = worklist.pop();
+            assertEquals(i, LongWorklist.x(entry));
+            assertEquals(1000 - i, LongWorklist.y(entry));
+        }
+
+        assertTrue(worklist.isEmpty());
+    }
+
+    @Test
+    public void testWorklist_PacksNegativeAndLargeCoordinates() {
+        long entry = LongWorklist.pack(-1, Integer.MAX_VALUE);
+
+        assertEquals(-1, LongWorklist.x(entry));
+        assertEquals(Integer.MAX_VALUE, LongWorklist.y(entry));
+    }
+
+    @Test
+    public void testWorklist_ClearKeepsWorklistUsable() {
+        LongWorklist worklist = new LongWorklist();
+        worklist.push(1, 2);
+        worklist.push(3, 4);
+        worklist.clear();
+
+        assertTrue(worklist.isEmpty());
+
+        worklist.push(5, 6);
+        long entry = worklist.pop();
+        assertEquals(5, LongWorklist.x(entry));
+        assertEquals(6, LongWorklist.y(entry));
+    }
+
+    @Test
+    public void testWorklist_TakesOverGrownArray() {
+        LongWorklist worklist = new LongWorklist();
+
+        for (int i = 0; i < 1000; i++) {
+            worklist.push(i, i);
+        }
+
+        int capacity = worklist.capacity();
+        CountingWorklist counting = new CountingWorklist(worklist);
+
+        assertTrue(counting.isEmpty(), "The new worklist should start empty");
+        assertEquals(capacity, counting.capacity(), "The grown array should be kept");
+        assertEquals(capacity, new LongWorklist(counting).capacity(), "The grown array should be kept");
+    }
+}
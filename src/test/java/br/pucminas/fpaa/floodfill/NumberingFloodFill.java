@@ -0,0 +1,33 @@
+package br.pucminas.fpaa.floodfill;
+
+/**
+ * Fills each region with its discovery number plus one, so that with a
+ * border value of 1 values never collide with the border.
+ */
+public class NumberingFloodFill extends FloodFill {
+
+    private int nextValue = 2;
+    private int filled;
+
+    public NumberingFloodFill(int[][] matrix) {
+        super(matrix, 1, 0);
+    }
+
+    public NumberingFloodFill(PixelSource source) {
+        super(source, 1, 0);
+    }
+
+    @Override
+    public void onValueChange(int x, int y, int newValue) {
+        filled++;
+    }
+
+    @Override
+    public int generateValue() {
+        return nextValue++;
+    }
+
+    public int getFilled() {
+        return filled;
+    }
+}
@@ -0,0 +1,117 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ParallelFloodFillTest {
+
+    @Test
+    public void testParallel_MatchesSequentialOnRandomMatrices() {
+        Random random = new Random(11);
+
+        for (int round = 0; round < 100; round++) {
+            int width = 1 + random.nextInt(60);
+            int height = 1 + random.nextInt(60);
+            int[][] matrix = FloodFillStrategyTest.randomMatrix(random, width, height, 2);
+
+            assertSameAsSequential(matrix, 1 + random.nextInt(9), "round " + round);
+        }
+    }
+
+    @Test
+    public void testParallel_SerpentineAcrossManyTiles() {
+        int size = 97;
+        int[][] matrix = new int[size][size];
+
+        // Horizontal walls with a gap alternating between both ends make a single snaking region
+        for (int y = 1; y < size; y += 2) {
+            for (int x = 0; x < size; x++) {
+                matrix[y][x] = 1;
+            }
+            matrix[y][(y / 2) % 2 == 0 ? size - 1 : 0] = 0;
+        }
+
+        for (int tileSize : new int[] { 1, 2, 3, 8, 16, 200 }) {
+            int[][] result = assertSameAsSequential(matrix, tileSize, "tile size " + tileSize);
+            assertEquals(2, result[0][0], "The whole serpentine should be a single region");
+            assertEquals(2, result[size - 1][size - 1], "The whole serpentine should be a single region");
+        }
+    }
+
+    @Test
+    public void testParallel_VerticalSerpentineAcrossManyTiles() {
+        int width = 75;
+        int height = 50;
+        int[][] matrix = new int[height][width];
+
+        // Vertical walls with a gap alternating between the top and the bottom
+        for (int x = 1; x < width; x += 2) {
+            for (int y = 0; y < height; y++) {
+                matrix[y][x] = 1;
+            }
+            matrix[(x / 2) % 2 == 0 ? height - 1 : 0][x] = 0;
+        }
+
+        for (int tileSize : new int[] { 1, 5, 7, 32 }) {
+            int[][] result = assertSameAsSequential(matrix, tileSize, "tile size " + tileSize);
+            assertEquals(2, result[0][0], "The whole serpentine should be a single region");
+            assertEquals(2, result[height - 1][width - 1], "The whole serpentine should be a single region");
+        }
+    }
+
+    @Test
+    public void testParallel_SameValueGenerationChangesNothing() {
+        int[][] matrix = {
+                { 1, 1, 1 },
+                { 1, 0, 1 },
+                { 1, 1, 1 }
+        };
+
+        TestFloodFill floodFill = new TestFloodFill(matrix, 1, 0, 0);
+        floodFill.setStrategy(FillStrategy.PARALLEL);
+        floodFill.execute();
+
+        assertEquals(0, matrix[1][1], "Center cell should keep the empty value");
+        assertEquals(0, floodFill.getValueChanges().size(), "Should have no value changes");
+    }
+
+    /**
+     * Fills copies of the matrix sequentially and in parallel with values
+     * numbered in discovery order, asserts both results are identical and
+     * returns the parallel one.
+     */
+    private static int[][] assertSameAsSequential(int[][] matrix, int tileSize, String message) {
+        return assertSameAsSequential(matrix, FillStrategy.PARALLEL, tileSize, message);
+    }
+
+    /**
+     * Fills copies of the matrix sequentially and with the given label-based
+     * strategy, using values numbered in discovery order, asserts both results
+     * are identical and returns the label-based one.
+     */
+    static int[][] assertSameAsSequential(int[][] matrix, FillStrategy strategy, int tileSize, String message) {
+        int[][] sequentialMatrix = FloodFillStrategyTest.copy(matrix);
+        int[][] parallelMatrix = FloodFillStrategyTest.copy(matrix);
+
+        NumberingFloodFill sequential = new NumberingFloodFill(sequentialMatrix);
+        sequential.setStrategy(FillStrategy.SCANLINE);
+        sequential.execute();
+
+        NumberingFloodFill parallel = new NumberingFloodFill(parallelMatrix);
+        parallel.setStrategy(strategy);
+        parallel.setTileSize(tileSize);
+        parallel.execute();
+
+        for (int y = 0; y < matrix.length; y++) {
+            assertArrayEquals(sequentialMatrix[y], parallelMatrix[y], message + ", row " + y);
+        }
+
+        assertEquals(sequential.getFilled(), parallel.getFilled(), message + ": filled cell count should match");
+
+        return parallelMatrix;
+    }
+}
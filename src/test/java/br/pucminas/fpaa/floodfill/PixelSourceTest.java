@@ -0,0 +1,263 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PixelSourceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testSources_ReadAndWriteTheSameCells() {
+        try (Arena arena = Arena.ofConfined()) {
+            for (Map.Entry<String, PixelSource> entry : sources(arena, 5, 3).entrySet()) {
+                String name = entry.getKey();
+                PixelSource source = entry.getValue();
+                int[] cells = new int[15];
+                for (int k = 0; k < cells.length; k++) {
+                    cells[k] = k * 0x01020304;
+                }
+
+                source.writeRows(0, 3, cells);
+
+                assertEquals(5, source.getWidth(), name);
+                assertEquals(3, source.getHeight(), name);
+                assertEquals(7 * 0x01020304, source.get(2, 1), name + ": cell (2, 1)");
+
+                source.set(4, 2, -1);
+                int[] band = new int[10];
+                source.readRows(1, 2, band);
+
+                assertEquals(5 * 0x01020304, band[0], name + ": first cell of row 1");
+                assertEquals(-1, band[9], name + ": cell set on its own");
+
+                source.writeRows(2, 1, new int[] { 9, 9, 9, 9, 9 });
+                assertEquals(9, source.get(0, 2), name + ": written row");
+                assertEquals(5 * 0x01020304, source.get(0, 1), name + ": row above the written one");
+            }
+        }
+    }
+
+    @Test
+    public void testStreaming_FillsEverySourceInPlace() throws IOException {
+        int[][] matrix = FloodFillStrategyTest.randomMatrix(new Random(23), 31, 19, 3);
+        int[][] expected = FloodFillStrategyTest.copy(matrix);
+        int regionCount = new NumberingFloodFill(FloodFillStrategyTest.copy(matrix)).label().getRegionCount();
+        new NumberingFloodFill(expected).execute();
+
+        try (Arena arena = Arena.ofConfined()) {
+            for (Map.Entry<String, PixelSource> entry : sources(arena, 31, 19).entrySet()) {
+                String name = entry.getKey();
+                PixelSource source = entry.getValue();
+                write(source, matrix);
+
+                StreamingFloodFill streaming = new StreamingFloodFillTest.NumberingStreamingFill(source);
+                streaming.setBandHeight(4);
+
+                assertEquals(regionCount, streaming.execute(source), name + ": region count");
+                assertArrayEquals(expected, read(source), name + ": filled matrix");
+            }
+        }
+    }
+
+    @Test
+    public void testFloodFill_FillsEverySource() {
+        int[][] matrix = FloodFillStrategyTest.randomMatrix(new Random(31), 27, 17, 3);
+        int[][] expected = FloodFillStrategyTest.copy(matrix);
+        new NumberingFloodFill(expected).execute();
+
+        try (Arena arena = Arena.ofConfined()) {
+            for (Map.Entry<String, PixelSource> entry : sources(arena, 27, 17).entrySet()) {
+                String name = entry.getKey();
+                PixelSource source = entry.getValue();
+                write(source, matrix);
+
+                new NumberingFloodFill(source).execute();
+
+                assertArrayEquals(expected, read(source), name + ": filled matrix");
+            }
+        }
+    }
+
+    @Test
+    public void testFloodFill_FillsAndRefillsSourcesLikeMatrices() {
+        int[][] matrix = FloodFillStrategyTest.randomMatrix(new Random(37), 24, 16, 3);
+        int[][] expected = FloodFillStrategyTest.copy(matrix);
+        NumberingFloodFill reference = new NumberingFloodFill(expected);
+        fillEditAndRefill(reference, expected, null);
+
+        try (Arena arena = Arena.ofConfined()) {
+            for (Map.Entry<String, PixelSource> entry : sources(arena, 24, 16).entrySet()) {
+                String name = entry.getKey();
+                PixelSource source = entry.getValue();
+                write(source, matrix);
+
+                fillEditAndRefill(new NumberingFloodFill(source), null, source);
+
+                assertArrayEquals(expected, read(source), name + ": filled matrix");
+            }
+        }
+    }
+
+    @Test
+    public void testFloodFill_RejectsSourcesLargerThanAnArray() {
+        try (Arena arena = Arena.ofConfined()) {
+            PixelSource source = PixelSource.of(arena.allocate(Integer.BYTES), ByteOrder.nativeOrder(), 1, 1);
+            NumberingFloodFill floodFill = new NumberingFloodFill(source);
+
+            PixelSource huge = new PixelSource() {
+                @Override
+                public int getWidth() {
+                    return 1 << 16;
+                }
+
+                @Override
+                public int getHeight() {
+                    return 1 << 16;
+                }
+
+                @Override
+                public int get(int x, int y) {
+                    return 0;
+                }
+
+                @Override
+                public void set(int x, int y, int value) {
+                }
+
+                @Override
+                public void readRect(int x, int y, int columns, int rows, int[] buffer, int offset, int stride) {
+                }
+
+                @Override
+                public void writeRect(int x, int y, int columns, int rows, int[] buffer, int offset, int stride) {
+                }
+            };
+
+            assertThrows(IllegalArgumentException.class, () -> floodFill.reset(huge));
+        }
+    }
+
+    @Test
+    public void testMappedFile_IsFilledInPlace() throws IOException {
+        int[][] matrix = FloodFillStrategyTest.randomMatrix(new Random(29), 40, 25, 3);
+        int[][] expected = FloodFillStrategyTest.copy(matrix);
+        new NumberingFloodFill(expected).execute();
+
+        ByteBuffer bytes = ByteBuffer.allocate(40 * 25 * Integer.BYTES);
+        for (int[] row : matrix) {
+            for (int value : row) {
+                bytes.putInt(value);
+            }
+        }
+
+        Path file = Files.write(directory.resolve("raster.raw"), bytes.array());
+
+        try (Arena arena = Arena.ofConfined()) {
+            PixelSource source = PixelSource.mapRawFile(file, 40, 25, arena);
+            new StreamingFloodFillTest.NumberingStreamingFill(source).execute(source);
+        }
+
+        assertArrayEquals(expected, StreamingFloodFillTest.read(file, 40, 25));
+    }
+
+    @Test
+    public void testSources_RejectInvalidDimensions() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> PixelSource.of(new int[6], 2, 2));
+        assertThrows(IllegalArgumentException.class, () -> PixelSource.of(new int[0], 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> PixelSource.of(new int[][] { { 0, 0 }, { 0 } }));
+        assertThrows(IllegalArgumentException.class, () -> PixelSource.of(IntBuffer.allocate(10).position(3), 8, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> PixelSource.of(MemorySegment.ofArray(new int[3]), ByteOrder.nativeOrder(), 2, 2));
+
+        Path file = Files.write(directory.resolve("short.raw"), new byte[12]);
+        try (Arena arena = Arena.ofConfined()) {
+            assertThrows(EOFException.class, () -> PixelSource.mapRawFile(file, 2, 2, arena));
+        }
+
+        PixelSource source = PixelSource.of(new int[4], 2, 2);
+        StreamingFloodFill streaming = new StreamingFloodFillTest.NumberingStreamingFill(source);
+        assertThrows(IllegalArgumentException.class, () -> streaming.execute(PixelSource.of(new int[4], 4, 1)));
+    }
+
+    /**
+     * Executes with incremental re-fills, fills a region within a tolerance,
+     * then draws a wall and re-fills around it, editing either the 2D matrix
+     * or the source the flood fill works on.
+     */
+    private static void fillEditAndRefill(NumberingFloodFill floodFill, int[][] matrix, PixelSource source) {
+        floodFill.setIncremental(true);
+        floodFill.execute();
+        floodFill.setTolerance(1);
+        assertTrue(floodFill.fill(5, 5, 1000).getCellCount() > 0, "The seeded fill should change cells");
+        floodFill.setTolerance(0);
+
+        for (int y = 0; y < 16; y++) {
+            if (matrix != null) {
+                matrix[y][11] = 1;
+            } else {
+                source.set(11, y, 1);
+            }
+        }
+
+        assertTrue(floodFill.refill(11, 0, 1, 16).getCellCount() > 0, "The wall should split a region");
+        assertTrue(floodFill.fill(2, 3, 2000).getCellCount() > 0, "The seeded fill should change cells");
+    }
+
+    /**
+     * Returns an empty source of every kind with the given dimensions.
+     */
+    private static Map<String, PixelSource> sources(Arena arena, int width, int height) {
+        int cells = width * height;
+        Map<String, PixelSource> sources = new LinkedHashMap<>();
+
+        sources.put("rows", PixelSource.of(new int[height][width]));
+        sources.put("array", PixelSource.of(new int[cells], width, height));
+        sources.put("heap buffer", PixelSource.of(IntBuffer.allocate(cells + 2).position(2), width, height));
+        sources.put("direct buffer", PixelSource.of(ByteBuffer.allocateDirect(cells * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer(), width, height));
+        sources.put("native segment", PixelSource.of(arena.allocate((long) cells * Integer.BYTES),
+                ByteOrder.nativeOrder(), width, height));
+        // One byte in, so no cell is aligned
+        sources.put("unaligned big-endian segment", PixelSource.of(
+                arena.allocate((long) cells * Integer.BYTES + 1).asSlice(1), ByteOrder.BIG_ENDIAN, width, height));
+
+        return sources;
+    }
+
+    private static void write(PixelSource source, int[][] matrix) {
+        for (int y = 0; y < matrix.length; y++) {
+            source.writeRows(y, 1, matrix[y]);
+        }
+    }
+
+    private static int[][] read(PixelSource source) {
+        int[][] matrix = new int[source.getHeight()][source.getWidth()];
+
+        for (int y = 0; y < matrix.length; y++) {
+            source.readRows(y, 1, matrix[y]);
+        }
+
+        return matrix;
+    }
+
+}
@@ -0,0 +1,102 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class RegionIndexTest {
+
+    @Test
+    public void testRegionIndex_DescribesEveryRegion() {
+        int[][] matrix = {
+                { 1, 0, 0, 1, 0 },
+                { 0, 1, 0, 1, 0 },
+                { 0, 0, 0, 1, 0 },
+                { 1, 1, 1, 1, 1 }
+        };
+
+        NumberingFloodFill floodFill = new NumberingFloodFill(matrix);
+        floodFill.setIndexing(true);
+        floodFill.execute();
+
+        RegionIndex index = floodFill.getRegionIndex();
+
+        assertEquals(2, index.getRegionCount());
+        assertEquals(1, index.getRegion(1, 0));
+        assertEquals(1, index.getRegion(0, 1), "The U shape is a single region");
+        assertEquals(2, index.getRegion(4, 2));
+        assertEquals(0, index.getRegion(3, 1), "Border cells are not part of any region");
+        assertEquals(7, index.getArea(1));
+
+        assertEquals(3, index.getValue(2), "Values are generated in region order");
+        assertEquals(3, index.getArea(2));
+        assertEquals(4, index.getSeedX(2));
+        assertEquals(0, index.getSeedY(2));
+
+        FilledRegion bounds = index.getBounds(2);
+        assertEquals(4, bounds.getX());
+        assertEquals(0, bounds.getY());
+        assertEquals(1, bounds.getWidth());
+        assertEquals(3, bounds.getHeight());
+    }
+
+    @Test
+    public void testRegionIndex_MatchesFilledMatrixWithEveryStrategy() {
+        Random random = new Random(9);
+
+        for (FillStrategy strategy : FillStrategy.values()) {
+            int[][] matrix = new int[25][31];
+            for (int[] row : matrix) {
+                for (int x = 0; x < row.length; x++) {
+                    row[x] = random.nextInt(3) == 0 ? 1 : 0;
+                }
+            }
+
+            NumberingFloodFill floodFill = new NumberingFloodFill(matrix);
+            floodFill.setStrategy(strategy);
+            floodFill.setIndexing(true);
+            floodFill.execute();
+
+            RegionIndex index = floodFill.getRegionIndex();
+            int[] areas = new int[index.getRegionCount() + 1];
+
+            for (int y = 0; y < matrix.length; y++) {
+                for (int x = 0; x < matrix[0].length; x++) {
+                    int region = index.getRegion(x, y);
+
+                    if (region == 0) {
+                        assertEquals(1, matrix[y][x], "Only border cells are outside regions with " + strategy);
+                    } else {
+                        assertEquals(index.getValue(region), matrix[y][x], "Cell value with " + strategy);
+                        areas[region]++;
+                    }
+                }
+            }
+
+            for (int region = 1; region <= index.getRegionCount(); region++) {
+                assertEquals(areas[region], index.getArea(region), "Area of region " + region + " with " + strategy);
+                assertEquals(region, index.getRegion(index.getSeedX(region), index.getSeedY(region)));
+            }
+        }
+    }
+
+    @Test
+    public void testRegionIndex_OnlyBuiltWhenEnabled() {
+        NumberingFloodFill floodFill = new NumberingFloodFill(new int[][] { { 0, 1, 0 } });
+        floodFill.execute();
+
+        assertNull(floodFill.getRegionIndex());
+
+        floodFill.setIndexing(true);
+        floodFill.execute();
+
+        RegionIndex index = floodFill.getRegionIndex();
+        assertThrows(IndexOutOfBoundsException.class, () -> index.getArea(1), "Nothing was left to fill");
+        assertThrows(IndexOutOfBoundsException.class, () -> index.getRegion(3, 0));
+    }
+
+}
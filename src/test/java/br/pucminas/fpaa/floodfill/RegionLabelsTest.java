@@ -0,0 +1,99 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class RegionLabelsTest {
+
+    @Test
+    public void testTwoPass_MatchesSequentialOnRandomMatrices() {
+        Random random = new Random(23);
+
+        for (int round = 0; round < 100; round++) {
+            int width = 1 + random.nextInt(50);
+            int height = 1 + random.nextInt(50);
+            int[][] matrix = FloodFillStrategyTest.randomMatrix(random, width, height, 2);
+
+            ParallelFloodFillTest.assertSameAsSequential(matrix, FillStrategy.TWO_PASS, 1, "round " + round);
+        }
+    }
+
+    @Test
+    public void testLabel_NumbersRegionsInRasterOrder() {
+        int[][] matrix = {
+                { 1, 0, 1, 0 },
+                { 0, 0, 1, 0 },
+                { 1, 1, 1, 1 },
+                { 0, 1, 0, 0 }
+        };
+
+        TestFloodFill floodFill = new TestFloodFill(matrix, 1, 0, 5);
+        floodFill.setStrategy(FillStrategy.TWO_PASS);
+
+        RegionLabels labels = floodFill.label();
+
+        int[] expected = {
+                0, 1, 0, 2,
+                1, 1, 0, 2,
+                0, 0, 0, 0,
+                3, 0, 4, 4
+        };
+
+        assertEquals(4, labels.getRegionCount(), "Should find 4 regions");
+        assertArrayEquals(expected, labels.getLabels(), "Regions should be numbered in raster order");
+        assertEquals(2, labels.getLabel(3, 1));
+        assertEquals(0, floodFill.getValueChanges().size(), "Labeling should not change any cell");
+        assertEquals(0, matrix[0][1], "Labeling should not modify the matrix");
+    }
+
+    @Test
+    public void testLabel_MergesBranchesJoinedLater() {
+
+        // Both arms of the U get different provisional labels until the bottom row joins them
+        int[][] matrix = {
+                { 0, 1, 0, 1, 0 },
+                { 0, 1, 0, 1, 0 },
+                { 0, 1, 1, 1, 0 },
+                { 0, 0, 0, 0, 0 }
+        };
+
+        TestFloodFill floodFill = new TestFloodFill(matrix, 1, 0, 5);
+        floodFill.setStrategy(FillStrategy.TWO_PASS);
+
+        RegionLabels labels = floodFill.label();
+
+        assertEquals(2, labels.getRegionCount(), "The U and the center column should be 2 regions");
+        assertEquals(1, labels.getLabel(0, 0));
+        assertEquals(1, labels.getLabel(4, 0));
+        assertEquals(1, labels.getLabel(2, 3));
+        assertEquals(2, labels.getLabel(2, 0));
+    }
+
+    @Test
+    public void testLabel_ParallelMatchesTwoPass() {
+        Random random = new Random(5);
+
+        for (int round = 0; round < 50; round++) {
+            int width = 1 + random.nextInt(70);
+            int height = 1 + random.nextInt(70);
+            int[][] matrix = FloodFillStrategyTest.randomMatrix(random, width, height, 2);
+
+            TestFloodFill twoPass = new TestFloodFill(matrix, 1, 0, 5);
+            twoPass.setStrategy(FillStrategy.TWO_PASS);
+
+            TestFloodFill parallel = new TestFloodFill(matrix, 1, 0, 5);
+            parallel.setStrategy(FillStrategy.PARALLEL);
+            parallel.setTileSize(1 + random.nextInt(16));
+
+            RegionLabels expected = twoPass.label();
+            RegionLabels actual = parallel.label();
+
+            assertEquals(expected.getRegionCount(), actual.getRegionCount(), "round " + round);
+            assertArrayEquals(expected.getLabels(), actual.getLabels(), "round " + round);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class StreamingFloodFillTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testStreaming_MatchesInMemoryFillWithAnyBandHeight() throws IOException {
+        Random random = new Random(17);
+        int[][] matrix = FloodFillStrategyTest.randomMatrix(random, 37, 29, 3);
+        Path input = write(matrix);
+
+        int[][] expected = FloodFillStrategyTest.copy(matrix);
+        NumberingFloodFill floodFill = new NumberingFloodFill(expected);
+        int regionCount = floodFill.label().getRegionCount();
+        floodFill.execute();
+
+        for (int bandHeight : new int[] { 1, 2, 5, 29, 100 }) {
+            Path output = directory.resolve("output-" + bandHeight + ".raw");
+            StreamingFloodFill streaming = new NumberingStreamingFill(BandSource.ofRawFile(input, 37, 29));
+            streaming.setBandHeight(bandHeight);
+
+            assertEquals(regionCount, streaming.execute(output), "Band height " + bandHeight + ": region count");
+            assertArrayEquals(expected, read(output, 37, 29), "Band height " + bandHeight + ": filled matrix");
+        }
+    }
+
+    @Test
+    public void testStreaming_JoinsRegionsAcrossBands() throws IOException {
+        // The U shape is only joined on its last row, two bands below its arms
+        int[][] matrix = {
+                { 0, 1, 0 },
+                { 0, 1, 0 },
+                { 0, 1, 0 },
+                { 0, 1, 0 },
+                { 0, 0, 0 }
+        };
+
+        Path output = directory.resolve("output.raw");
+        StreamingFloodFill streaming = new NumberingStreamingFill(BandSource.ofRawFile(write(matrix), 3, 5));
+        streaming.setBandHeight(2);
+
+        assertEquals(1, streaming.execute(output));
+        assertArrayEquals(new int[][] {
+                { 2, 1, 2 },
+                { 2, 1, 2 },
+                { 2, 1, 2 },
+                { 2, 1, 2 },
+                { 2, 2, 2 }
+        }, read(output, 3, 5));
+    }
+
+    @Test
+    public void testStreaming_MatchesInMemoryFillOfPiecesJoinedBandsBelow() throws IOException {
+        // Combs whose teeth start in different bands and are joined further down, so carried
+        // pieces are joined in chains and their roots are not always the earliest pieces
+        Random random = new Random(41);
+
+        for (int round = 0; round < 20; round++) {
+            int width = 2 + random.nextInt(30);
+            int height = 2 + random.nextInt(30);
+            int[][] matrix = new int[height][width];
+
+            for (int y = 0; y < height; y++) {
+                boolean spine = random.nextInt(4) == 0;
+
+                for (int x = 0; x < width; x++) {
+                    matrix[y][x] = spine || x % 2 == 0 && random.nextInt(8) != 0 ? 0 : 1;
+                }
+            }
+
+            Path input = write(matrix);
+            int[][] expected = FloodFillStrategyTest.copy(matrix);
+            NumberingFloodFill floodFill = new NumberingFloodFill(expected);
+            int regionCount = floodFill.label().getRegionCount();
+            floodFill.execute();
+
+            for (int bandHeight = 1; bandHeight <= 4; bandHeight++) {
+                Path output = directory.resolve("output.raw");
+
+                try (BandSource source = BandSource.ofRawFile(input, width, height)) {
+                    StreamingFloodFill streaming = new NumberingStreamingFill(source);
+                    streaming.setBandHeight(bandHeight);
+
+                    String name = "Round " + round + ", band height " + bandHeight;
+                    assertEquals(regionCount, streaming.execute(output), name + ": region count");
+                    assertArrayEquals(expected, read(output, width, height), name + ": filled matrix");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testStreaming_RejectsTheSourceFileAsOutput() throws IOException {
+        int[][] matrix = { { 0, 1 }, { 1, 0 } };
+        Path input = write(matrix);
+
+        try (BandSource source = BandSource.ofRawFile(input, 2, 2)) {
+            StreamingFloodFill streaming = new NumberingStreamingFill(source);
+
+            assertThrows(IllegalArgumentException.class, () -> streaming.execute(input));
+        }
+
+        assertArrayEquals(matrix, read(input, 2, 2), "The source file should be left as it was");
+    }
+
+    @Test
+    public void testSetBandHeight_RejectsNonPositiveHeight() throws IOException {
+        StreamingFloodFill streaming = new NumberingStreamingFill(
+                BandSource.ofRawFile(write(new int[][] { { 0 } }), 1, 1));
+
+        assertThrows(IllegalArgumentException.class, () -> streaming.setBandHeight(0));
+    }
+
+    @Test
+    public void testRawFile_ReportsTruncatedFile() throws IOException {
+        Path input = write(new int[][] { { 0, 0 } });
+        StreamingFloodFill streaming = new NumberingStreamingFill(BandSource.ofRawFile(input, 2, 2));
+
+        assertThrows(EOFException.class, () -> streaming.execute(directory.resolve("output.raw")));
+    }
+
+    private Path write(int[][] matrix) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(matrix.length * matrix[0].length * Integer.BYTES);
+
+        for (int[] row : matrix) {
+            for (int value : row) {
+                bytes.putInt(value);
+            }
+        }
+
+        return Files.write(Files.createTempFile(directory, "input", ".raw"), bytes.array());
+    }
+
+    static int[][] read(Path file, int width, int height) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        int[][] matrix = new int[height][width];
+
+        for (int[] row : matrix) {
+            for (int x = 0; x < width; x++) {
+                row[x] = bytes.getInt();
+            }
+        }
+
+        return matrix;
+    }
+
+    /**
+     * Numbers regions like {@link NumberingFloodFill}, with empty value 0.
+     */
+    static final class NumberingStreamingFill extends StreamingFloodFill {
+
+        private int nextValue = 2;
+
+        NumberingStreamingFill(BandSource source) {
+            super(source, 0);
+        }
+
+        @Override
+        public int generateValue() {
+            return nextValue++;
+        }
+    }
+}
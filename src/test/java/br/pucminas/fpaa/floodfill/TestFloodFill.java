@@ -14,6 +14,13 @@ public class TestFloodFill extends FloodFill {
         this.valueChanges = new ArrayList<>();
     }
 
+    public TestFloodFill(int[] matrix, int offset, int stride, int width, int height, int borderValue,
+                         int emptyValue, int valueToGenerate) {
+        super(matrix, offset, stride, width, height, borderValue, emptyValue);
+        this.valueToGenerate = valueToGenerate;
+        this.valueChanges = new ArrayList<>();
+    }
+
     @Override
     public void onValueChange(int x, int y, int newValue) {
         valueChanges.add(new ValueChange(x, y, newValue));
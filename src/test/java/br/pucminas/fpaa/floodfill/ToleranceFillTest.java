@@ -0,0 +1,147 @@
+package br.pucminas.fpaa.floodfill;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ToleranceFillTest {
+
+    private static final int WHITE = 0xFFFFFFFF;
+    private static final int NEAR_WHITE = 0xFFFAFBFC;
+    private static final int GREY = 0xFF808080;
+    private static final int BLACK = 0xFF000000;
+
+    @Test
+    public void testExecute_ExactMatchStopsAtSpeckles() {
+        int[][] matrix = {
+                { WHITE, NEAR_WHITE, WHITE },
+                { BLACK, BLACK, BLACK }
+        };
+
+        TestFloodFill floodFill = new TestFloodFill(matrix, BLACK, WHITE, 7);
+        floodFill.execute();
+
+        assertEquals(NEAR_WHITE, matrix[0][1], "Speckles should not be filled without a tolerance");
+        assertEquals(2, floodFill.getValueChanges().size());
+    }
+
+    @Test
+    public void testExecute_ToleranceFillsThroughSpeckles() {
+        int[][] matrix = {
+                { WHITE, NEAR_WHITE, WHITE },
+                { BLACK, GREY, BLACK },
+                { WHITE, WHITE, WHITE }
+        };
+
+        TestFloodFill floodFill = new TestFloodFill(matrix, BLACK, WHITE, 7);
+        floodFill.setTolerance(8);
+        floodFill.execute();
+
+        assertArrayEquals(new int[][] {
+                { 7, 7, 7 },
+                { BLACK, GREY, BLACK },
+                { 7, 7, 7 }
+        }, matrix, "Near-white cells should be filled, grey ones should block like borders");
+    }
+
+    @Test
+    public void testExecute_ToleranceWorksWithEveryStrategy() {
+        Random random = new Random(21);
+        int[][] matrix = new int[20][70];
+
+        for (int[] row : matrix) {
+            for (int x = 0; x < row.length; x++) {
+                row[x] = random.nextInt(4) == 0 ? BLACK : WHITE - random.nextInt(6) * 0x010101;
+            }
+        }
+
+        int[][] expected = FloodFillStrategyTest.copy(matrix);
+        NumberingFloodFill reference = new NumberingFloodFill(expected);
+        reference.setTolerance(5);
+        reference.execute();
+
+        for (FillStrategy strategy : FillStrategy.values()) {
+            int[][] actual = FloodFillStrategyTest.copy(matrix);
+            NumberingFloodFill floodFill = new NumberingFloodFill(actual);
+            floodFill.setTolerance(5);
+            floodFill.setStrategy(strategy);
+            floodFill.execute();
+
+            assertArrayEquals(expected, actual, strategy.name());
+        }
+    }
+
+    @Test
+    public void testFill_ToleranceIsRelativeToTheSeed() {
+        int[][] matrix = {
+                { GREY, GREY + 0x030303, WHITE },
+                { GREY - 0x020202, BLACK, GREY }
+        };
+
+        TestFloodFill floodFill = new TestFloodFill(matrix, BLACK, WHITE, 7);
+        floodFill.setTolerance(4);
+        FilledRegion region = floodFill.fill(0, 0, 9);
+
+        assertEquals(3, region.getCellCount());
+        assertArrayEquals(new int[][] {
+                { 9, 9, WHITE },
+                { 9, BLACK, GREY }
+        }, matrix, "Only cells close to the seed's grey and connected to it should be filled");
+    }
+
+    @Test
+    public void testLabel_FindsTheRegionsExecuteFills() {
+        int[][] matrix = { { WHITE, NEAR_WHITE, WHITE, BLACK, WHITE } };
+
+        TestFloodFill floodFill = new TestFloodFill(matrix, BLACK, WHITE, 7);
+        floodFill.setTolerance(10);
+        RegionLabels labels = floodFill.label();
+
+        assertEquals(2, labels.getRegionCount(), "The near-white cell should join the white cells around it");
+        assertEquals(labels.getLabel(0, 0), labels.getLabel(1, 0));
+    }
+
+    @Test
+    public void testExecute_BordersStopTheWidestTolerance() {
+        int[][] matrix = {
+                { WHITE, BLACK, GREY },
+                { NEAR_WHITE, BLACK, WHITE }
+        };
+
+        for (FillStrategy strategy : FillStrategy.values()) {
+            int[][] actual = FloodFillStrategyTest.copy(matrix);
+            TestFloodFill floodFill = new TestFloodFill(actual, BLACK, WHITE, 7);
+            floodFill.setTolerance(255);
+            floodFill.setStrategy(strategy);
+            floodFill.execute();
+
+            assertArrayEquals(new int[][] {
+                    { 7, BLACK, 7 },
+                    { 7, BLACK, 7 }
+            }, actual, strategy.name() + ": the border should be kept and split the regions");
+        }
+
+        int[][] actual = FloodFillStrategyTest.copy(matrix);
+        TestFloodFill floodFill = new TestFloodFill(actual, BLACK, WHITE, 7);
+        floodFill.setTolerance(255);
+        FilledRegion region = floodFill.fill(0, 0, 9);
+
+        assertEquals(2, region.getCellCount());
+        assertArrayEquals(new int[][] {
+                { 9, BLACK, GREY },
+                { 9, BLACK, WHITE }
+        }, actual, "A fill should not cross the border, however wide the tolerance");
+    }
+
+    @Test
+    public void testSetTolerance_RejectsValuesOutsideChannelRange() {
+        TestFloodFill floodFill = new TestFloodFill(new int[][] { { 0 } }, 1, 0, 2);
+
+        assertThrows(IllegalArgumentException.class, () -> floodFill.setTolerance(-1));
+        assertThrows(IllegalArgumentException.class, () -> floodFill.setTolerance(256));
+    }
+}